@@ -0,0 +1,19 @@
+package io.camunda.rpa.worker.browser;
+
+import lombok.Builder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+@Builder(toBuilder = true)
+@ConfigurationProperties("camunda.rpa.browser-pool")
+record BrowserPoolProperties(
+		boolean enabled,
+		Path executable,
+		int size,
+		int maxUses,
+		Duration healthCheckInterval,
+		boolean isolateContexts,
+		List<String> extraArgs) { }
@@ -0,0 +1,417 @@
+package io.camunda.rpa.worker.browser;
+
+import io.camunda.rpa.worker.io.IO;
+import io.camunda.rpa.worker.net.WebClientProvisioner;
+import io.camunda.rpa.worker.pexec.ProcessService;
+import io.camunda.rpa.worker.robot.EnvironmentVariablesContributor;
+import io.camunda.rpa.worker.robot.PreparedScript;
+import io.camunda.rpa.worker.workspace.Workspace;
+import io.netty.channel.ChannelOption;
+import io.vavr.control.Try;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static reactor.core.scheduler.Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE;
+
+/// Keeps a pool of warm headless browser servers which Robots can connect to, rather than each launching and tearing
+/// down a browser of its own. Each execution is handed the least busy browser through its environment variables:
+///
+/// - `RPA_BROWSER_CDP_URL`: the Chrome DevTools Protocol endpoint, e.g. for `Connect To Browser` with `use_cdp=True`
+/// - `RPA_BROWSER_DEBUGGER_ADDRESS`: the same endpoint as `host:port`, for the Selenium `debuggerAddress` option
+///
+/// When contexts are isolated, each execution is also given a browser context of its own, which shares no cookies,
+/// storage or cache with the other executions in the browser, and which is closed once the execution has finished:
+///
+/// - `RPA_BROWSER_CONTEXT_ID`: the ID of the execution's browser context
+/// - `RPA_BROWSER_TARGET_URL`: the DevTools endpoint of a blank page opened in the context
+///
+/// Browsers are health-checked, and are restarted when they stop responding. A browser whose process exits is no 
+/// longer handed out, and is restarted at the next health check. A browser which has been handed out the maximum 
+/// number of times is retired, and is restarted once the executions using it have finished. Its output is captured to
+/// a file in its data directory, which is only deleted once the browser has exited. When no browser is available, no 
+/// variables are contributed and the Robot launches its own browser as it would without the pool.
+@Component
+@Slf4j
+class BrowserServerPool implements EnvironmentVariablesContributor, DisposableBean {
+
+	static final String CDP_URL_ENV_NAME = "RPA_BROWSER_CDP_URL";
+	static final String DEBUGGER_ADDRESS_ENV_NAME = "RPA_BROWSER_DEBUGGER_ADDRESS";
+	static final String CONTEXT_ID_ENV_NAME = "RPA_BROWSER_CONTEXT_ID";
+	static final String TARGET_URL_ENV_NAME = "RPA_BROWSER_TARGET_URL";
+
+	private static final String LOOPBACK = "127.0.0.1";
+	private static final Duration EXIT_TIMEOUT = Duration.ofSeconds(30);
+
+	private final BrowserPoolProperties properties;
+	private final ProcessService processService;
+	private final IO io;
+	private final WebClient webClient;
+	private final CdpClient cdpClient;
+	private final Scheduler browserScheduler;
+	private final List<BrowserServer> browsers;
+	private final Map<String, Lease> leases = new HashMap<>();
+	private final Disposable healthCheck;
+
+	private final class BrowserServer {
+		private final int index;
+		private int port;
+		private Path userDataDir;
+		private Disposable process;
+		private volatile ProcessHandle handle;
+		private int generation;
+		private int uses;
+		private int active;
+		private boolean retiring;
+		private Instant startedAt;
+
+		private BrowserServer(int index) {
+			this.index = index;
+		}
+
+		private String debuggerAddress() {
+			return "%s:%s".formatted(LOOPBACK, port);
+		}
+
+		private String cdpUrl() {
+			return "http://%s".formatted(debuggerAddress());
+		}
+	}
+
+	/// A browser handed to an execution, along with the context opened for it, if any
+	private final class Lease {
+		private final BrowserServer browser;
+		private final String cdpUrl;
+		private final Mono<Map<String, String>> environment;
+		private volatile String contextId;
+
+		private Lease(BrowserServer browser, String workspaceId) {
+			this.browser = browser;
+			this.cdpUrl = browser.cdpUrl();
+
+			Map<String, String> shared = Map.of(
+					CDP_URL_ENV_NAME, cdpUrl,
+					DEBUGGER_ADDRESS_ENV_NAME, browser.debuggerAddress());
+
+			this.environment = ! properties.isolateContexts()
+					? Mono.just(shared)
+					: cdpClient.createContext(cdpUrl)
+							.doOnNext(context -> contextId = context.contextId())
+							.map(context -> Map.of(
+									CDP_URL_ENV_NAME, cdpUrl,
+									DEBUGGER_ADDRESS_ENV_NAME, browser.debuggerAddress(),
+									CONTEXT_ID_ENV_NAME, context.contextId(),
+									TARGET_URL_ENV_NAME, "ws://%s/devtools/page/%s".formatted(browser.debuggerAddress(), context.targetId())))
+							.onErrorResume(thrown -> {
+								log.atWarn()
+										.setCause(thrown)
+										.kv("browser", browser.index)
+										.kv("workspace", workspaceId)
+										.log("Failed to open a context in pooled browser, the execution will share its default context");
+								return Mono.just(shared);
+							})
+							.cache();
+		}
+	}
+
+	@Autowired
+	BrowserServerPool(
+			BrowserPoolProperties properties, 
+			ProcessService processService, 
+			IO io, 
+			WebClientProvisioner webClientProvisioner, 
+			ObjectMapper objectMapper) {
+		
+		this(properties, processService, io, webClientProvisioner.webClient(_ -> {}, c -> c
+				.responseTimeout(Duration.ofSeconds(2))
+				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 2_000)), objectMapper);
+	}
+
+	private BrowserServerPool(BrowserPoolProperties properties, ProcessService processService, IO io, WebClient webClient, ObjectMapper objectMapper) {
+		this(properties, processService, io, webClient, new CdpClient(webClient, new ReactorNettyWebSocketClient(), objectMapper));
+	}
+
+	BrowserServerPool(BrowserPoolProperties properties, ProcessService processService, IO io, WebClient webClient, CdpClient cdpClient) {
+		this.properties = properties;
+		this.processService = processService;
+		this.io = io;
+		this.webClient = webClient;
+		this.cdpClient = cdpClient;
+
+		if( ! properties.enabled() || ! hasExecutable(properties)) {
+			this.browserScheduler = null;
+			this.browsers = Collections.emptyList();
+			this.healthCheck = null;
+			return;
+		}
+
+		this.browserScheduler = Schedulers.newBoundedElastic(
+				Math.max(1, properties.size()),
+				DEFAULT_BOUNDED_ELASTIC_QUEUESIZE,
+				"browser-pool",
+				60,
+				true);
+		this.browsers = IntStream.range(0, Math.max(1, properties.size()))
+				.mapToObj(BrowserServer::new)
+				.toList();
+
+		synchronized (leases) {
+			browsers.forEach(this::start);
+		}
+
+		this.healthCheck = Flux.interval(properties.healthCheckInterval(), properties.healthCheckInterval())
+				.concatMap(_ -> Flux.fromIterable(browsers).concatMap(this::checkHealth))
+				.subscribe();
+	}
+
+	private static boolean hasExecutable(BrowserPoolProperties properties) {
+		if(properties.executable() != null)
+			return true;
+		
+		log.atWarn().log("The browser pool is enabled but camunda.rpa.browser-pool.executable is not set, "
+				+ "the pool is disabled and Robots will launch their own browsers");
+		return false;
+	}
+
+	@Override
+	public Mono<Map<String, String>> getEnvironmentVariables(Workspace workspace, PreparedScript script) {
+		if(browsers.isEmpty())
+			return Mono.just(Collections.emptyMap());
+
+		return Mono.defer(() -> {
+			synchronized (leases) {
+				Lease lease = leases.get(workspace.id());
+				if(lease == null) {
+					BrowserServer browser = browsers.stream()
+							.filter(b -> ! b.retiring && b.process != null)
+							.min(Comparator.comparingInt(b -> b.active))
+							.orElse(null);
+					if(browser == null) {
+						log.atWarn()
+								.kv("workspace", workspace.id())
+								.log("No pooled browser is available, Robot will launch its own");
+						return Mono.just(Collections.<String, String>emptyMap());
+					}
+
+					browser.active++;
+					browser.uses++;
+					if(properties.maxUses() > 0 && browser.uses >= properties.maxUses())
+						browser.retiring = true;
+					lease = new Lease(browser, workspace.id());
+					leases.put(workspace.id(), lease);
+				}
+
+				return lease.environment;
+			}
+		});
+	}
+
+	@Override
+	public void afterRobotExecution(Workspace workspace) {
+		synchronized (leases) {
+			Lease lease = leases.remove(workspace.id());
+			if(lease == null) return;
+
+			BrowserServer browser = lease.browser;
+			browser.active--;
+			if(browser.retiring && browser.active == 0) {
+				log.atInfo()
+						.kv("browser", browser.index)
+						.kv("uses", browser.uses)
+						.log("Recycling pooled browser");
+				restart(browser);
+			}
+			else if(lease.contextId != null && browser.process != null && lease.cdpUrl.equals(browser.cdpUrl())) {
+				cdpClient.disposeContext(lease.cdpUrl, lease.contextId)
+						.doOnError(thrown -> log.atWarn()
+								.setCause(thrown)
+								.kv("browser", browser.index)
+								.kv("workspace", workspace.id())
+								.log("Failed to close the context of pooled browser"))
+						.onErrorComplete()
+						.subscribe();
+			}
+		}
+	}
+
+	private Mono<Void> checkHealth(BrowserServer browser) {
+		String cdpUrl;
+		synchronized (leases) {
+			if(browser.process == null) {
+				log.atInfo()
+						.kv("browser", browser.index)
+						.log("Restarting pooled browser which is not running");
+				restart(browser);
+				return Mono.empty();
+			}
+
+			if(browser.startedAt.isAfter(Instant.now().minus(properties.healthCheckInterval()))) 
+				return Mono.empty();
+
+			cdpUrl = browser.cdpUrl();
+		}
+
+		return webClient.get()
+				.uri(cdpUrl + "/json/version")
+				.retrieve()
+				.toBodilessEntity()
+				.map(re -> re.getStatusCode() == HttpStatus.OK)
+				.onErrorReturn(false)
+				.defaultIfEmpty(false)
+				.filter(healthy -> ! healthy)
+				.doOnNext(_ -> {
+					synchronized (leases) {
+						if( ! cdpUrl.equals(browser.cdpUrl())) return;
+						log.atWarn()
+								.kv("browser", browser.index)
+								.kv("endpoint", cdpUrl)
+								.log("Pooled browser is not responding, restarting");
+						restart(browser);
+					}
+				})
+				.then();
+	}
+
+	private void restart(BrowserServer browser) {
+		stop(browser).subscribe();
+		start(browser);
+	}
+
+	private void start(BrowserServer browser) {
+		Try.of(BrowserServerPool::freePort)
+				.onFailure(thrown -> log.atError()
+						.setCause(thrown)
+						.kv("browser", browser.index)
+						.log("Failed to find a port for pooled browser"))
+				.forEach(port -> {
+					int generation = ++browser.generation;
+					Path userDataDir = io.createTempDirectory("rpa-worker-browser");
+					browser.port = port;
+					browser.userDataDir = userDataDir;
+					browser.uses = 0;
+					browser.retiring = false;
+					browser.startedAt = Instant.now();
+					browser.process = processService.execute(properties.executable(), c -> {
+								c.arg("--headless=new")
+										.arg("--remote-debugging-address=%s".formatted(LOOPBACK))
+										.arg("--remote-debugging-port=%s".formatted(port))
+										.arg("--user-data-dir=%s".formatted(userDataDir.toAbsolutePath()))
+										.arg("--no-first-run")
+										.arg("--no-default-browser-check")
+										.captureOutputTo(userDataDir.resolve("browser.log"))
+										.onStart(handle -> browser.handle = handle)
+										.inheritEnv()
+										.noFail()
+										.silent()
+										.scheduleOn(browserScheduler);
+
+								if(properties.extraArgs() != null)
+									properties.extraArgs().forEach(c::arg);
+								return c;
+							})
+							.subscribe(xr -> onExited(browser, generation, xr));
+
+					log.atInfo()
+							.kv("browser", browser.index)
+							.kv("endpoint", browser.cdpUrl())
+							.log("Started pooled browser");
+				});
+	}
+
+	/// A browser which exits by itself is no longer handed out, and is restarted at the next health check
+	private void onExited(BrowserServer browser, int generation, ProcessService.ExecutionResult xr) {
+		synchronized (leases) {
+			if(browser.generation != generation) return;
+
+			log.atWarn()
+					.kv("browser", browser.index)
+					.kv("exitCode", xr.exitCode())
+					.kv("stderr", xr.stderr())
+					.kv("output", xr.outputFile())
+					.log("Pooled browser exited");
+			stop(browser).subscribe();
+		}
+	}
+
+	/// Stop the browser, and delete its data directory once its process has exited
+	///
+	/// @return A Mono which completes once the data directory has been deleted
+	private Mono<Void> stop(BrowserServer browser) {
+		Disposable process = browser.process;
+		ProcessHandle handle = browser.handle;
+		Path userDataDir = browser.userDataDir;
+		browser.process = null;
+		browser.handle = null;
+		browser.userDataDir = null;
+
+		if(process != null)
+			process.dispose();
+
+		if(userDataDir == null)
+			return Mono.empty();
+
+		return Mono.justOrEmpty(handle)
+				.flatMap(h -> Mono.fromFuture(h.onExit()))
+				.timeout(EXIT_TIMEOUT)
+				.doOnError(_ -> log.atWarn()
+						.kv("browser", browser.index)
+						.kv("dir", userDataDir)
+						.log("Pooled browser did not exit in time, deleting its data directory anyway"))
+				.onErrorComplete()
+				.then(io.run(() -> io.deleteDirectoryRecursively(userDataDir)))
+				.doOnError(thrown -> log.atWarn()
+						.setCause(thrown)
+						.kv("dir", userDataDir)
+						.log("Failed to clean up pooled browser data directory"))
+				.onErrorComplete();
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getByName(LOOPBACK))) {
+			return socket.getLocalPort();
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if(healthCheck != null)
+			healthCheck.dispose();
+
+		List<Mono<Void>> stopping;
+		synchronized (leases) {
+			stopping = browsers.stream()
+					.map(this::stop)
+					.toList();
+		}
+		Mono.when(stopping)
+				.timeout(EXIT_TIMEOUT)
+				.onErrorComplete()
+				.block();
+
+		if(browserScheduler != null)
+			browserScheduler.dispose();
+	}
+}
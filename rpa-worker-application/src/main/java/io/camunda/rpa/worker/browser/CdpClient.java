@@ -0,0 +1,86 @@
+package io.camunda.rpa.worker.browser;
+
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/// Sends commands to a browser over the Chrome DevTools Protocol, each on a connection of its own.
+class CdpClient {
+
+	private static final Duration COMMAND_TIMEOUT = Duration.ofSeconds(5);
+
+	/// @param contextId the ID of the browser context
+	/// @param targetId the ID of the blank page opened in the context
+	record BrowserContext(String contextId, String targetId) { }
+
+	private final WebClient webClient;
+	private final WebSocketClient webSocketClient;
+	private final ObjectMapper objectMapper;
+
+	CdpClient(WebClient webClient, WebSocketClient webSocketClient, ObjectMapper objectMapper) {
+		this.webClient = webClient;
+		this.webSocketClient = webSocketClient;
+		this.objectMapper = objectMapper;
+	}
+
+	/// Create a browser context, which shares no cookies, storage or cache with any other, and open a blank page in it.
+	///
+	/// @param cdpUrl the DevTools endpoint of the browser
+	Mono<BrowserContext> createContext(String cdpUrl) {
+		return browserWebSocketUrl(cdpUrl)
+				.flatMap(webSocketUrl -> send(webSocketUrl, "Target.createBrowserContext", Map.of("disposeOnDetach", false))
+						.map(result -> String.valueOf(result.get("browserContextId")))
+						.flatMap(contextId -> send(webSocketUrl, "Target.createTarget", Map.of("url", "about:blank", "browserContextId", contextId))
+								.map(result -> new BrowserContext(contextId, String.valueOf(result.get("targetId"))))));
+	}
+
+	/// Close a browser context, along with every page in it.
+	///
+	/// @param cdpUrl the DevTools endpoint of the browser
+	/// @param contextId the ID of the browser context
+	Mono<Void> disposeContext(String cdpUrl, String contextId) {
+		return browserWebSocketUrl(cdpUrl)
+				.flatMap(webSocketUrl -> send(webSocketUrl, "Target.disposeBrowserContext", Map.of("browserContextId", contextId)))
+				.then();
+	}
+
+	private Mono<String> browserWebSocketUrl(String cdpUrl) {
+		return webClient.get()
+				.uri(cdpUrl + "/json/version")
+				.retrieve()
+				.bodyToMono(Map.class)
+				.map(version -> String.valueOf(version.get("webSocketDebuggerUrl")));
+	}
+
+	private Mono<Map<?, ?>> send(String webSocketUrl, String method, Map<String, Object> params) {
+		AtomicReference<Map<?, ?>> response = new AtomicReference<>();
+		return webSocketClient.execute(URI.create(webSocketUrl), session -> session
+						.send(Mono.fromSupplier(() -> session.textMessage(objectMapper.writeValueAsString(Map.of(
+								"id", 1,
+								"method", method,
+								"params", params)))))
+						.thenMany(session.receive()
+								.map(message -> objectMapper.readValue(message.getPayloadAsText(), Map.class))
+								.filter(message -> Objects.equals(message.get("id"), 1)))
+						.next()
+						.doOnNext(response::set)
+						.then())
+				.timeout(COMMAND_TIMEOUT)
+				.then(Mono.defer(() -> {
+					Map<?, ?> received = response.get();
+					if(received == null)
+						return Mono.error(new IllegalStateException("No response from the browser to %s".formatted(method)));
+					if(received.get("error") != null)
+						return Mono.error(new IllegalStateException("The browser rejected %s: %s".formatted(method, received.get("error"))));
+
+					return Mono.just(received.get("result") instanceof Map<?, ?> result ? result : Map.of());
+				}));
+	}
+}
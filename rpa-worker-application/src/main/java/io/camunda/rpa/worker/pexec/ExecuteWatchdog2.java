@@ -4,27 +4,47 @@ import lombok.Getter;
 import org.apache.commons.exec.ExecuteWatchdog;
 import org.apache.commons.exec.Watchdog;
 
+import java.time.Duration;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 @Getter
 class ExecuteWatchdog2 extends ExecuteWatchdog {
 	
+	private final Duration killGracePeriod;
+	private final ProcessTree.ReapListener reapListener;
+	private final Consumer<Process> startListener;
+	
 	private Process process;
+	private boolean destroyed;
 	
 	@SuppressWarnings("deprecation")
-	public ExecuteWatchdog2() {
-		super(-1);
-	}
-
-	@SuppressWarnings("deprecation")
-	public ExecuteWatchdog2(long timeoutMillis) {
+	public ExecuteWatchdog2(
+			long timeoutMillis, 
+			Duration killGracePeriod, 
+			ProcessTree.ReapListener reapListener, 
+			Consumer<Process> startListener) {
+		
 		super(timeoutMillis);
+		this.killGracePeriod = killGracePeriod;
+		this.reapListener = reapListener;
+		this.startListener = startListener;
 	}
 
 	@Override
 	public synchronized void start(Process processToMonitor) {
 		super.start(processToMonitor);
 		this.process = processToMonitor;
+		startListener.accept(processToMonitor);
+	}
+
+	/// Destroy the process, along with any processes it has started, as [ProcessTree#destroy] does
+	public synchronized void destroyProcessTree() {
+		if(process == null || destroyed)
+			return;
+		
+		destroyed = true;
+		ProcessTree.destroy(process.toHandle(), killGracePeriod, reapListener);
 	}
 
 	@Override
@@ -35,7 +55,7 @@ class ExecuteWatchdog2 extends ExecuteWatchdog {
 		}
 		catch (final IllegalThreadStateException ignored) {
 			if (isWatching())
-				process.toHandle().destroy();
+				destroyProcessTree();
 		}
 		
 		try {
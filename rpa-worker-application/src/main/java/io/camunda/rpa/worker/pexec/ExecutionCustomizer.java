@@ -6,8 +6,20 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Map;
 import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 public interface ExecutionCustomizer {
+	
+	/// Told of each line of output as it is read from the process
+	@FunctionalInterface
+	interface OutputListener {
+		
+		/// @param stream `stdout` or `stderr`
+		/// @param line the line of output
+		/// @return whether the line is kept as output of the process, rather than left out of what is captured
+		boolean onLine(String stream, String line);
+	}
+	
 	ExecutionCustomizer arg(String arg);
 	ExecutionCustomizer bindArg(String arg, Object value);
 	ExecutionCustomizer conditionalArg(BooleanSupplier test, String arg);
@@ -22,4 +34,14 @@ public interface ExecutionCustomizer {
 	ExecutionCustomizer scheduleOn(Scheduler scheduler);
 	ExecutionCustomizer silent();
 	ExecutionCustomizer required();
+	ExecutionCustomizer captureOutputTo(Path file);
+	ExecutionCustomizer onOutput(OutputListener listener);
+
+	/// @param listener told of the process once it has been started, e.g. so that its exit can be awaited after the
+	/// execution has been cancelled
+	ExecutionCustomizer onStart(Consumer<ProcessHandle> listener);
+
+	/// @param sample whether the resources used by the process and its descendants are sampled while it runs, and 
+	/// given with its result - only worth the polling for processes whose resources are reported
+	ExecutionCustomizer sampleResources(boolean sample);
 }
@@ -0,0 +1,121 @@
+package io.camunda.rpa.worker.pexec;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/// Collects the output of a process line by line.
+///
+/// Without a file, all of the output is kept in memory. With a file, every line is written to it as it arrives (from
+/// either stream, prefixed with the stream it came from) and only the last `tailSize` characters of each stream are
+/// kept in memory, cut back to whole lines. Each line is offered to the listener first, if there is one, which may 
+/// leave it out of what is captured.
+@Slf4j
+class OutputCapture implements AutoCloseable {
+
+	@Getter
+	private final Path file;
+	private final int tailSize;
+	private final BufferedWriter writer;
+	private final ExecutionCustomizer.OutputListener listener;
+
+	private final StringBuilder out = new StringBuilder();
+	private final StringBuilder err = new StringBuilder();
+
+	@Getter
+	private boolean truncated;
+	private boolean closed;
+
+	OutputCapture() {
+		this(null);
+	}
+
+	OutputCapture(ExecutionCustomizer.OutputListener listener) {
+		this.file = null;
+		this.tailSize = Integer.MAX_VALUE;
+		this.writer = null;
+		this.listener = listener;
+	}
+
+	OutputCapture(Path file, int tailSize, ExecutionCustomizer.OutputListener listener) throws IOException {
+		this.file = file;
+		this.tailSize = tailSize;
+		this.writer = Files.newBufferedWriter(file);
+		this.listener = listener;
+	}
+
+	void stdout(String line) {
+		if(listener == null || listener.onLine("stdout", line))
+			append(out, "[STDOUT] ", line);
+	}
+
+	void stderr(String line) {
+		if(listener == null || listener.onLine("stderr", line))
+			append(err, "[STDERR] ", line);
+	}
+
+	synchronized String getOutString() {
+		return tail(out);
+	}
+
+	synchronized String getErrString() {
+		return tail(err);
+	}
+
+	@Override
+	public synchronized void close() {
+		if(writer == null || closed) return;
+
+		closed = true;
+		try {
+			writer.close();
+		}
+		catch (IOException ioex) {
+			log.atWarn()
+					.kv("file", file)
+					.setCause(ioex)
+					.log("Failed to close process output file");
+		}
+	}
+
+	private synchronized void append(StringBuilder buffer, String prefix, String line) {
+		buffer.append(line).append("\n");
+
+		if(writer != null && ! closed) {
+			try {
+				writer.write(prefix);
+				writer.write(line);
+				writer.newLine();
+			}
+			catch (IOException ioex) {
+				log.atWarn()
+						.kv("file", file)
+						.setCause(ioex)
+						.log("Failed to write process output file");
+				close();
+			}
+		}
+
+		// Only trimmed once the buffer is twice the size of the tail, so that lines are not shifted along one by one
+		if(buffer.length() > tailSize * 2L)
+			trim(buffer);
+	}
+
+	private String tail(StringBuilder buffer) {
+		if(buffer.length() > tailSize)
+			trim(buffer);
+
+		return buffer.toString().trim();
+	}
+
+	private void trim(StringBuilder buffer) {
+		int cut = buffer.length() - tailSize;
+		int lineStart = buffer.indexOf("\n", cut - 1);
+		buffer.delete(0, lineStart < 0 ? cut : lineStart + 1);
+		truncated = true;
+	}
+}
@@ -0,0 +1,28 @@
+package io.camunda.rpa.worker.pexec;
+
+import lombok.Builder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Builder(toBuilder = true)
+@ConfigurationProperties("camunda.rpa.process")
+record ProcessProperties(
+		Duration killGracePeriod, 
+		Engine engine, 
+		DataSize outputTailSize, 
+		Duration resourceSampleInterval) {
+
+	/// How processes are started and watched
+	enum Engine {
+
+		/// Apache Commons Exec, which blocks a thread for each process, and uses further threads for its output and
+		/// timeout
+		CommonsExec,
+
+		/// [ProcessBuilder], with output read on virtual threads and timeouts kept on a shared timer, so that no
+		/// platform thread is held while the process runs
+		Native
+	}
+}
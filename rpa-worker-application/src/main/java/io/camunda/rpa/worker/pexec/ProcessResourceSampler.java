@@ -0,0 +1,147 @@
+package io.camunda.rpa.worker.pexec;
+
+import io.vavr.control.Try;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/// Samples the resources used by a process, and every process it starts, for as long as it runs.
+///
+/// CPU time comes from [ProcessHandle.Info], so is available everywhere. Memory and I/O are read from `/proc`, so are 
+/// only available on Linux, and are otherwise reported as `0`. The totals are made of the last sample taken of each 
+/// process, so anything a process does after it was last sampled is missed - the shorter the interval, the less is 
+/// missed. Peak memory is the larger of the most memory the tree was seen to use at once, and the most memory used by 
+/// any one process. Once a process has exited, its last sample is added to the totals and it is no longer tracked.
+///
+/// `/proc` is read on [Schedulers#boundedElastic()], as the reads block. With no interval, nothing is sampled and no 
+/// resources are reported.
+class ProcessResourceSampler {
+
+	private record Sample(Duration cpuTime, long memoryBytes, long peakMemoryBytes, long bytesRead, long bytesWritten) {
+
+		static final Sample NONE = new Sample(Duration.ZERO, 0, 0, 0, 0);
+
+		/// The counters only ever go up, so a process which exits while it is being read does not lose what it had 
+		/// already been seen to use
+		Sample max(Sample other) {
+			return new Sample(
+					cpuTime.compareTo(other.cpuTime) >= 0 ? cpuTime : other.cpuTime,
+					Math.max(memoryBytes, other.memoryBytes),
+					Math.max(peakMemoryBytes, other.peakMemoryBytes),
+					Math.max(bytesRead, other.bytesRead),
+					Math.max(bytesWritten, other.bytesWritten));
+		}
+
+		/// Adds the usage of a process which has exited, whose memory is no longer in use
+		Sample plus(Sample other) {
+			return new Sample(
+					cpuTime.plus(other.cpuTime),
+					0,
+					Math.max(peakMemoryBytes, other.peakMemoryBytes),
+					bytesRead + other.bytesRead,
+					bytesWritten + other.bytesWritten);
+		}
+	}
+
+	private final Duration interval;
+	private final Map<Long, Sample> latest = new HashMap<>();
+
+	private ProcessHandle root;
+	private Disposable sampling;
+	private long peakMemoryBytes;
+	private Sample exited = Sample.NONE;
+	private int exitedProcesses;
+
+	ProcessResourceSampler(Duration interval) {
+		this.interval = interval != null && interval.isPositive() ? interval : null;
+	}
+
+	/// Start sampling the process, until [#stop] is called
+	synchronized void start(Process process) {
+		if(interval == null || root != null) return;
+
+		root = process.toHandle();
+		sampling = Flux.interval(Duration.ZERO, interval, Schedulers.boundedElastic())
+				.subscribe(_ -> sample());
+	}
+
+	/// Stop sampling the process
+	///
+	/// @return what the process used, or `null` if it was not sampled
+	synchronized ProcessResources stop() {
+		if(root == null) return null;
+
+		if(sampling != null) {
+			sampling.dispose();
+			sampling = null;
+		}
+
+		Sample total = latest.values().stream().reduce(exited, Sample::plus);
+		return new ProcessResources(
+				total.cpuTime(),
+				Math.max(peakMemoryBytes, total.peakMemoryBytes()),
+				total.bytesRead(),
+				total.bytesWritten(),
+				Math.max(0, latest.size() + exitedProcesses - 1));
+	}
+
+	private synchronized void sample() {
+		if(sampling == null) return;
+
+		Set<Long> alive = new HashSet<>();
+		long memoryBytes = Stream.concat(Stream.of(root), root.descendants())
+				.filter(ProcessHandle::isAlive)
+				.mapToLong(handle -> {
+					Sample sample = sampleOf(handle);
+					latest.merge(handle.pid(), sample, Sample::max);
+					alive.add(handle.pid());
+					return sample.memoryBytes();
+				})
+				.sum();
+
+		peakMemoryBytes = Math.max(peakMemoryBytes, memoryBytes);
+
+		latest.entrySet().removeIf(entry -> {
+			if(alive.contains(entry.getKey())) return false;
+			exited = exited.plus(entry.getValue());
+			exitedProcesses++;
+			return true;
+		});
+	}
+
+	private static Sample sampleOf(ProcessHandle handle) {
+		Map<String, Long> status = readProcFile(handle.pid(), "status");
+		Map<String, Long> io = readProcFile(handle.pid(), "io");
+
+		return new Sample(
+				handle.info().totalCpuDuration().orElse(Duration.ZERO),
+				status.getOrDefault("VmRSS", 0L) * 1024,
+				status.getOrDefault("VmHWM", 0L) * 1024,
+				io.getOrDefault("read_bytes", 0L),
+				io.getOrDefault("write_bytes", 0L));
+	}
+
+	/// Reads the numeric fields of a `/proc/<pid>` file made of `name: value` lines, e.g. `VmRSS:  1024 kB`
+	private static Map<String, Long> readProcFile(long pid, String name) {
+		return Try.of(() -> Files.readAllLines(Path.of("/proc", String.valueOf(pid), name)))
+				.getOrElse(List.of())
+				.stream()
+				.map(line -> line.split(":\\s*", 2))
+				.filter(parts -> parts.length == 2)
+				.flatMap(parts -> Try.of(() -> Long.parseLong(parts[1].split("\\s+")[0]))
+						.map(value -> Map.entry(parts[0], value))
+						.toJavaStream())
+				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (first, _) -> first));
+	}
+}
@@ -0,0 +1,17 @@
+package io.camunda.rpa.worker.pexec;
+
+import java.time.Duration;
+
+/// The resources used by a process and its descendants, as sampled while it ran
+///
+/// @param cpuTime the CPU time used, summed over the processes
+/// @param peakMemoryBytes the most resident memory in use at once, summed over the processes
+/// @param bytesRead the bytes read from storage, summed over the processes
+/// @param bytesWritten the bytes written to storage, summed over the processes
+/// @param childProcesses how many descendants of the process were seen
+public record ProcessResources(
+		Duration cpuTime, 
+		long peakMemoryBytes, 
+		long bytesRead, 
+		long bytesWritten, 
+		int childProcesses) { }
@@ -1,7 +1,8 @@
 package io.camunda.rpa.worker.pexec;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.vavr.control.Try;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecutor;
@@ -13,232 +14,483 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 
+import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 @Slf4j
 public class ProcessService {
 	
+	static final String METRIC_PREFIX = "rpaworker.process.";
+	
+	private static final Pattern BINDING_PATTERN = Pattern.compile("\\$\\{([^}]+)}");
+	
 	private final Scheduler processExecutionScheduler;
 	private final Supplier<DefaultExecutor.Builder<?>> executorBuilderFactory;
+	private final ProcessProperties processProperties;
+	private final Counter reapedGracefully;
+	private final Counter reapedForcibly;
+	private final ExecutorService outputPumps = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+			.name("pexec-output-", 0)
+			.factory());
 	
-	public record ExecutionResult(int exitCode, String stdout, String stderr, Duration duration) {}
+	/// @param stdout the output of the process, or its tail when it was captured to a file
+	/// @param stderr the error output of the process, or its tail when it was captured to a file
+	/// @param outputFile the file holding all of the output, when it was captured to one
+	/// @param truncated whether the output held here is only the tail of what is in the file
+	/// @param resources the resources used by the process and its descendants, when they were sampled
+	public record ExecutionResult(
+			int exitCode, 
+			String stdout, 
+			String stderr, 
+			Duration duration, 
+			Path outputFile, 
+			boolean truncated, 
+			ProcessResources resources) {
+		
+		public ExecutionResult(int exitCode, String stdout, String stderr, Duration duration, Path outputFile, boolean truncated) {
+			this(exitCode, stdout, stderr, duration, outputFile, truncated, null);
+		}
+		
+		public ExecutionResult(int exitCode, String stdout, String stderr, Duration duration) {
+			this(exitCode, stdout, stderr, duration, null, false);
+		}
+	}
 
 	@Autowired
-	public ProcessService(Scheduler processExecutionScheduler) {
-		this(processExecutionScheduler, DefaultExecutor.Builder::new);
+	public ProcessService(Scheduler processExecutionScheduler, ProcessProperties processProperties, MeterRegistry meterRegistry) {
+		this(processExecutionScheduler, DefaultExecutor.Builder::new, processProperties, meterRegistry);
 	}
 	
-	ProcessService(Scheduler processExecutionScheduler, Supplier<DefaultExecutor.Builder<?>> executorBuilderFactory) {
+	ProcessService(
+			Scheduler processExecutionScheduler, 
+			Supplier<DefaultExecutor.Builder<?>> executorBuilderFactory, 
+			ProcessProperties processProperties, 
+			MeterRegistry meterRegistry) {
+		
 		this.processExecutionScheduler = processExecutionScheduler;
 		this.executorBuilderFactory = executorBuilderFactory;
+		this.processProperties = processProperties;
+		
+		this.reapedGracefully = Counter.builder(METRIC_PREFIX + "reaped")
+				.tag("mode", "graceful")
+				.register(meterRegistry);
+		this.reapedForcibly = Counter.builder(METRIC_PREFIX + "reaped")
+				.tag("mode", "forced")
+				.register(meterRegistry);
+	}
+	
+	/// @return how long processes are given to exit once they have been asked to, before they are killed - for 
+	/// processes which stop their own children, so that they give them the same grace
+	public Duration killGracePeriod() {
+		return processProperties.killGracePeriod();
 	}
 	
 	public Mono<ExecutionResult> execute(Object executable, UnaryOperator<ExecutionCustomizer> customization) {
-
-		Map<String, Object> bindings = new HashMap<>();
-		Set<Integer> allowedExitCodes = new HashSet<>();
-		Map<String, String> environment = new HashMap<>();
-
+		Invocation invocation = new Invocation(processExecutionScheduler);
+		customization.apply(invocation);
+		
+		return processProperties.engine() == ProcessProperties.Engine.Native
+				? executeNatively(executable, invocation)
+				: executeWithCommonsExec(executable, invocation);
+	}
+	
+	private Mono<ExecutionResult> executeWithCommonsExec(Object executable, Invocation invocation) {
 		CommandLine cmdLine = executable instanceof Path p
 				? new CommandLine(p.toFile())
 				: new CommandLine(executable.toString());
+		invocation.args.forEach(cmdLine::addArgument);
+		
+		Map<String, Object> bindings = new HashMap<>();
+		invocation.bindings.forEach((name, value) -> bindings.put(name, value instanceof Path p ? p.toFile() : value));
+		cmdLine.setSubstitutionMap(bindings);
+
 		DefaultExecutor.Builder<?> executorBuilder = executorBuilderFactory.get();
+		if(invocation.workDir != null)
+			executorBuilder.setWorkingDirectory(invocation.workDir.toFile());
+		
+		DefaultExecutor defaultExecutor = executorBuilder.get();
+		defaultExecutor.setExitValues(invocation.isNoFail()
+				? null
+				: invocation.allowedExitCodes.stream().mapToInt(i -> i).toArray());
+		ProcessResourceSampler sampler = new ProcessResourceSampler(invocation.sampleResources ? processProperties.resourceSampleInterval() : null);
+		ExecuteWatchdog2 watchdog = new ExecuteWatchdog2(
+				invocation.timeout != null ? invocation.timeout.toMillis() : -1,
+				processProperties.killGracePeriod(),
+				this::onReaped, 
+				process -> {
+					sampler.start(process);
+					invocation.onStarted(process);
+				});
+		defaultExecutor.setWatchdog(watchdog);
 
-		allowedExitCodes.add(0);
+		return Mono.defer(() -> openCapture(invocation).flatMap(capture -> {
+			StreamHandler streamHandler = new StreamHandler(capture);
+			defaultExecutor.setStreamHandler(streamHandler);
+			
+			return Mono.fromSupplier(() -> Try.of(() -> defaultExecutor.execute(cmdLine, invocation.environment))
+							.onFailure(thrown -> {
+								if( ! invocation.silent) log.atError()
+										.setCause(thrown)
+										.addKeyValue("stderr", streamHandler.getErrString())
+										.addKeyValue("stdout", streamHandler.getOutString())
+										.log("Process execution failed");
+							})
+							.get())
+							.onErrorResume(ExecuteException.class, thrown -> invocation.required 
+									? Mono.error(thrown) 
+									: Mono.just(thrown.getExitValue()))
+							.timed()
+							.map(exitCode -> toExecutionResult(exitCode.get(), capture, exitCode.elapsedSinceSubscription(), sampler.stop()))
+							.subscribeOn(invocation.scheduler)
+							.doOnCancel(watchdog::destroyProcessTree)
+							.doFinally(_ -> {
+								sampler.stop();
+								capture.close();
+							})
+							.onErrorResume(
+									thrown -> thrown instanceof TimeoutException 
+											|| (thrown instanceof IOException && thrown.getCause() instanceof TimeoutException),
+									thrown -> Mono.error(() -> 
+									new ProcessTimeoutException(streamHandler.getOutString(), streamHandler.getErrString(), thrown)));
+		}));
+	}
 
-		IntrospectableExecutionCustomizer executionCustomizer = new IntrospectableExecutionCustomizer() {
+	/// Runs the process with [ProcessBuilder]. The scheduler is only used to start the process - its output is read
+	/// on virtual threads, its exit is awaited without blocking, and its timeout is kept on Reactor's shared timer.
+	private Mono<ExecutionResult> executeNatively(Object executable, Invocation invocation) {
+		return Mono.defer(() -> openCapture(invocation).flatMap(capture -> {
+			List<String> command = new ArrayList<>();
+			command.add(executable instanceof Path p ? p.toAbsolutePath().toString() : executable.toString());
+			invocation.args.stream()
+					.map(arg -> expand(arg, invocation.bindings))
+					.forEach(command::add);
+
+			ProcessBuilder processBuilder = new ProcessBuilder(command);
+			if(invocation.workDir != null)
+				processBuilder.directory(invocation.workDir.toFile());
+			processBuilder.environment().clear();
+			processBuilder.environment().putAll(invocation.environment);
+
+			ProcessResourceSampler sampler = new ProcessResourceSampler(invocation.sampleResources ? processProperties.resourceSampleInterval() : null);
+			Process process;
+			try {
+				process = processBuilder.start();
+				sampler.start(process);
+				invocation.onStarted(process);
+				process.getOutputStream().close();
+			}
+			catch (IOException ioex) {
+				sampler.stop();
+				capture.close();
+				if( ! invocation.silent) log.atError()
+						.setCause(ioex)
+						.log("Process execution failed");
+				return Mono.error(ioex);
+			}
 
-			@Getter
-			private Duration timeout;
+			AtomicBoolean destroyed = new AtomicBoolean();
+			Runnable destroyTree = () -> {
+				if(destroyed.compareAndSet(false, true))
+					ProcessTree.destroy(process.toHandle(), processProperties.killGracePeriod(), this::onReaped);
+			};
 
-			@Getter
-			private Scheduler scheduler = processExecutionScheduler;
-			
-			@Getter
-			private boolean silent = false;
+			CompletableFuture<Integer> exited = CompletableFuture.allOf(
+							CompletableFuture.runAsync(() -> pump(process.getInputStream(), capture::stdout), outputPumps),
+							CompletableFuture.runAsync(() -> pump(process.getErrorStream(), capture::stderr), outputPumps),
+							process.onExit())
+					.thenApply(_ -> process.exitValue());
+
+			Mono<Integer> exitCode = Mono.fromFuture(exited);
+			if(invocation.timeout != null)
+				exitCode = exitCode.timeout(invocation.timeout);
+
+			return exitCode
+					.flatMap(code -> {
+						if(invocation.isNoFail() || invocation.allowedExitCodes.contains(code))
+							return Mono.just(code);
+
+						ExecuteException thrown = new ExecuteException("Process exited with an error: %d".formatted(code), code);
+						if( ! invocation.silent) log.atError()
+								.setCause(thrown)
+								.addKeyValue("stderr", capture.getErrString())
+								.addKeyValue("stdout", capture.getOutString())
+								.log("Process execution failed");
+
+						return invocation.required
+								? Mono.error(thrown)
+								: Mono.just(code);
+					})
+					.timed()
+					.map(code -> toExecutionResult(code.get(), capture, code.elapsedSinceSubscription(), sampler.stop()))
+					.doOnCancel(destroyTree)
+					.doFinally(_ -> {
+						sampler.stop();
+						capture.close();
+					})
+					.onErrorResume(TimeoutException.class, thrown -> {
+						destroyTree.run();
+						if( ! invocation.silent) log.atError()
+								.setCause(thrown)
+								.addKeyValue("stderr", capture.getErrString())
+								.addKeyValue("stdout", capture.getOutString())
+								.log("Process execution failed");
+						return Mono.error(new ProcessTimeoutException(capture.getOutString(), capture.getErrString(), thrown));
+					});
+		})).subscribeOn(invocation.scheduler);
+	}
+
+	private Mono<OutputCapture> openCapture(Invocation invocation) {
+		return invocation.outputFile == null
+				? Mono.just(new OutputCapture(invocation.outputListener))
+				: Mono.fromCallable(() -> new OutputCapture(
+						invocation.outputFile,
+						(int) processProperties.outputTailSize().toBytes(),
+						invocation.outputListener));
+	}
+
+	private static ExecutionResult toExecutionResult(int exitCode, OutputCapture capture, Duration duration, ProcessResources resources) {
+		return new ExecutionResult(
+				exitCode,
+				capture.getOutString(),
+				capture.getErrString(),
+				duration,
+				capture.getFile(),
+				capture.isTruncated(),
+				resources);
+	}
+
+	private static void pump(InputStream stream, Consumer<String> sink) {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
+			String line;
+			while ((line = reader.readLine()) != null)
+				sink.accept(line);
+		}
+		catch (IOException ignored) {
+			// The stream is closed when the process is destroyed
+		}
+	}
+
+	private static String expand(String arg, Map<String, Object> bindings) {
+		return BINDING_PATTERN.matcher(arg).replaceAll(match -> {
+			Object value = bindings.get(match.group(1));
+			if(value == null) 
+				return Matcher.quoteReplacement(match.group());
 			
-			@Getter
-			private boolean required = false;
+			return Matcher.quoteReplacement(switch (value) {
+				case Path p -> p.toAbsolutePath().toString();
+				case File f -> f.getAbsolutePath();
+				default -> value.toString();
+			});
+		});
+	}
+	
+	private void onReaped(int descendants, int forced) {
+		if(descendants == 0) return;
+		
+		log.atInfo()
+				.kv("descendants", descendants)
+				.kv("forced", forced)
+				.log("Reaped processes left behind by terminated process");
+		
+		reapedGracefully.increment(descendants - forced);
+		reapedForcibly.increment(forced);
+	}
+	
+	/// Records how a process is to be executed, for whichever engine executes it
+	private static class Invocation implements ExecutionCustomizer {
 
-			@Override
-			public ExecutionCustomizer arg(String arg) {
-				cmdLine.addArgument(arg);
-				return this;
-			}
+		private final List<String> args = new ArrayList<>();
+		private final Map<String, Object> bindings = new HashMap<>();
+		private final Set<Integer> allowedExitCodes = new HashSet<>(Set.of(0));
+		private final Map<String, String> environment = new HashMap<>();
+		
+		private Path workDir;
+		private Path outputFile;
+		private OutputListener outputListener;
+		private Consumer<ProcessHandle> startListener;
+		private Duration timeout;
+		private Scheduler scheduler;
+		private boolean silent = false;
+		private boolean required = false;
+		private boolean sampleResources = false;
+
+		Invocation(Scheduler scheduler) {
+			this.scheduler = scheduler;
+		}
 
-			@Override
-			public ExecutionCustomizer bindArg(String name, Object value) {
-				cmdLine.addArgument("${%s}".formatted(name));
-				bindings.put(name, value instanceof Path p ? p.toFile() : value);
-				return this;
-			}
+		boolean isNoFail() {
+			return allowedExitCodes.contains(Integer.MIN_VALUE);
+		}
 
-			@Override
-			public ExecutionCustomizer conditionalArg(BooleanSupplier test, String arg) {
-				if(test.getAsBoolean()) 
-					cmdLine.addArgument(arg);
-				
-				return this;
-			}
+		void onStarted(Process process) {
+			if(startListener != null)
+				startListener.accept(process.toHandle());
+		}
 
-			@Override
-			public ExecutionCustomizer workDir(Path path) {
-				executorBuilder.setWorkingDirectory(path.toFile());
-				return this;
-			}
+		@Override
+		public ExecutionCustomizer arg(String arg) {
+			args.add(arg);
+			return this;
+		}
 
-			@Override
-			public ExecutionCustomizer allowExitCode(int code) {
-				allowedExitCodes.add(code);
-				return this;
-			}
+		@Override
+		public ExecutionCustomizer bindArg(String name, Object value) {
+			args.add("${%s}".formatted(name));
+			bindings.put(name, value);
+			return this;
+		}
 
-			@Override
-			public ExecutionCustomizer allowExitCodes(int[] codes) {
-				Arrays.stream(codes).forEach(allowedExitCodes::add);
-				return this;
-			}
+		@Override
+		public ExecutionCustomizer conditionalArg(BooleanSupplier test, String arg) {
+			if(test.getAsBoolean()) 
+				args.add(arg);
+			
+			return this;
+		}
 
-			@Override
-			public ExecutionCustomizer env(String name, String value) {
-				environment.put(name, value);
-				return this;
-			}
+		@Override
+		public ExecutionCustomizer workDir(Path path) {
+			this.workDir = path;
+			return this;
+		}
 
-			@Override
-			public ExecutionCustomizer env(Map<String, String> map) {
-				environment.putAll(map);
-				return this;
-			}
+		@Override
+		public ExecutionCustomizer allowExitCode(int code) {
+			allowedExitCodes.add(code);
+			return this;
+		}
 
-			@Override
-			public ExecutionCustomizer inheritEnv() {
-				return env(System.getenv());
-			}
+		@Override
+		public ExecutionCustomizer allowExitCodes(int[] codes) {
+			Arrays.stream(codes).forEach(allowedExitCodes::add);
+			return this;
+		}
 
-			@Override
-			public ExecutionCustomizer noFail() {
-				return allowExitCode(Integer.MIN_VALUE);
-			}
+		@Override
+		public ExecutionCustomizer env(String name, String value) {
+			environment.put(name, value);
+			return this;
+		}
 
-			@Override
-			public ExecutionCustomizer timeout(Duration newTimeout) {
-				this.timeout = newTimeout;
-				return this;
-			}
+		@Override
+		public ExecutionCustomizer env(Map<String, String> map) {
+			environment.putAll(map);
+			return this;
+		}
 
-			@Override
-			public ExecutionCustomizer scheduleOn(Scheduler scheduler) {
-				this.scheduler = scheduler;
-				return this;
-			}
+		@Override
+		public ExecutionCustomizer inheritEnv() {
+			return env(System.getenv());
+		}
 
-			@Override
-			public ExecutionCustomizer silent() {
-				this.silent = true;
-				return this;
-			}
+		@Override
+		public ExecutionCustomizer noFail() {
+			return allowExitCode(Integer.MIN_VALUE);
+		}
 
-			@Override
-			public ExecutionCustomizer required() {
-				this.required = true;
-				return this;
-			}
-		};
-		customization.apply(executionCustomizer);
+		@Override
+		public ExecutionCustomizer timeout(Duration newTimeout) {
+			this.timeout = newTimeout;
+			return this;
+		}
 
-		cmdLine.setSubstitutionMap(bindings);
-		DefaultExecutor defaultExecutor = executorBuilder.get();
-		defaultExecutor.setExitValues(allowedExitCodes.contains(Integer.MIN_VALUE)
-				? null
-				: allowedExitCodes.stream().mapToInt(i -> i).toArray());
-		ExecuteWatchdog2 watchdog = executionCustomizer.getTimeout() != null
-				? new ExecuteWatchdog2(executionCustomizer.getTimeout().toMillis())
-				: new ExecuteWatchdog2();
-		defaultExecutor.setWatchdog(watchdog);
+		@Override
+		public ExecutionCustomizer scheduleOn(Scheduler scheduler) {
+			this.scheduler = scheduler;
+			return this;
+		}
 
-		StreamHandler streamHandler = new StreamHandler();
-		defaultExecutor.setStreamHandler(streamHandler);
-
-		return Mono.defer(() -> Mono.fromSupplier(() -> Try.of(() -> defaultExecutor.execute(cmdLine, environment))
-						.onFailure(thrown -> {
-							if( ! executionCustomizer.isSilent()) log.atError()
-									.setCause(thrown)
-									.addKeyValue("stderr", streamHandler.getErrString())
-									.addKeyValue("stdout", streamHandler.getOutString())
-									.log("Process execution failed");
-						})
-						.get())
-						.onErrorResume(ExecuteException.class, thrown -> executionCustomizer.isRequired() 
-								? Mono.error(thrown) 
-								: Mono.just(thrown.getExitValue()))
-						.timed()
-						.map(exitCode -> new ExecutionResult(
-								exitCode.get(),
-								streamHandler.getOutString(),
-								streamHandler.getErrString(), 
-								exitCode.elapsedSinceSubscription()))
-						.subscribeOn(executionCustomizer.getScheduler()))
-				.onErrorResume(
-						thrown -> thrown instanceof TimeoutException 
-								|| (thrown instanceof IOException && thrown.getCause() instanceof TimeoutException),
-						thrown -> Mono.error(() -> 
-						new ProcessTimeoutException(streamHandler.getOutString(), streamHandler.getErrString(), thrown)));
-	}
-	
-	private interface IntrospectableExecutionCustomizer extends ExecutionCustomizer {
-		Duration getTimeout();
-		Scheduler getScheduler();
-		boolean isSilent();
-		boolean isRequired();
+		@Override
+		public ExecutionCustomizer silent() {
+			this.silent = true;
+			return this;
+		}
+
+		@Override
+		public ExecutionCustomizer required() {
+			this.required = true;
+			return this;
+		}
+
+		@Override
+		public ExecutionCustomizer captureOutputTo(Path file) {
+			this.outputFile = file;
+			return this;
+		}
+
+		@Override
+		public ExecutionCustomizer onOutput(OutputListener listener) {
+			this.outputListener = listener;
+			return this;
+		}
+
+		@Override
+		public ExecutionCustomizer onStart(Consumer<ProcessHandle> listener) {
+			this.startListener = listener;
+			return this;
+		}
+
+		@Override
+		public ExecutionCustomizer sampleResources(boolean sample) {
+			this.sampleResources = sample;
+			return this;
+		}
 	}
 
 	static class StreamHandler extends PumpStreamHandler {
 		
-		private final StringBuilder out;
-		private final StringBuilder err;
+		private final OutputCapture capture;
 
-		public StreamHandler() {
-			StringBuilder out = new StringBuilder();
+		public StreamHandler(OutputCapture capture) {
 			LogOutputStream outStream = new LogOutputStream() {
 				@Override
 				protected void processLine(String line, int logLevel) {
-					out.append(line).append("\n");
+					capture.stdout(line);
 				}
 			};
-			StringBuilder err = new StringBuilder();
 			LogOutputStream errStream = new LogOutputStream() {
 
 				@Override
 				protected void processLine(String line, int logLevel) {
-					err.append(line).append("\n");
+					capture.stderr(line);
 				}
 			};
 			
 			super(outStream, errStream);
-			this.out = out;
-			this.err = err;
+			this.capture = capture;
 		}
 		
 		public String getOutString() {
-			return out.toString().trim();
+			return capture.getOutString();
 		}
 		
 		public String getErrString() {
-			return err.toString().trim();
+			return capture.getErrString();
 		}
 
 		@Override
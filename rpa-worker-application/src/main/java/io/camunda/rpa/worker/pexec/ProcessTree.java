@@ -0,0 +1,45 @@
+package io.camunda.rpa.worker.pexec;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/// Terminates a process along with every process it has started, whichever engine started it
+final class ProcessTree {
+
+	/// Told how many descendants of the process were terminated along with it, and how many of those had to be killed
+	/// forcibly
+	@FunctionalInterface
+	interface ReapListener {
+		void onReaped(int descendants, int forced);
+	}
+
+	private ProcessTree() { }
+
+	/// Destroy the process, along with any processes it has started. Every process in the tree is asked to exit, and
+	/// any which are still running once the grace period has passed are killed forcibly. The descendants are found up
+	/// front, as they are no longer descendants once the process itself has exited.
+	///
+	/// @param handle the process at the root of the tree
+	/// @param killGracePeriod how long the processes are given to exit before they are killed
+	/// @param reapListener told what was terminated, once the grace period has passed
+	static void destroy(ProcessHandle handle, Duration killGracePeriod, ReapListener reapListener) {
+		List<ProcessHandle> descendants = handle.descendants().toList();
+		descendants.forEach(ProcessHandle::destroy);
+		handle.destroy();
+
+		CompletableFuture.runAsync(() -> {
+			List<ProcessHandle> stillRunning = descendants.stream()
+					.filter(ProcessHandle::isAlive)
+					.toList();
+			stillRunning.forEach(ProcessHandle::destroyForcibly);
+
+			if(handle.isAlive())
+				handle.destroyForcibly();
+
+			reapListener.onReaped(descendants.size(), stillRunning.size());
+
+		}, CompletableFuture.delayedExecutor(killGracePeriod.toMillis(), TimeUnit.MILLISECONDS));
+	}
+}
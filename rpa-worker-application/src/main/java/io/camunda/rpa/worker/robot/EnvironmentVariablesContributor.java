@@ -7,4 +7,8 @@ import java.util.Map;
 
 public interface EnvironmentVariablesContributor {
 	Mono<Map<String, String>> getEnvironmentVariables(Workspace workspace, PreparedScript script);
+
+	/// Called once every Robot process of an execution has exited, so that anything handed out for the execution's 
+	/// workspace can be released
+	default void afterRobotExecution(Workspace workspace) {}
 }
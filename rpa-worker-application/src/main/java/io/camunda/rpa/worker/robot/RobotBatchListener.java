@@ -0,0 +1,76 @@
+package io.camunda.rpa.worker.robot;
+
+/// A Robot listener which lets the suites of several jobs run in one Robot process, by giving each suite its own job's
+/// environment variables and variables file while it runs. The environment of the process is put back as it was once
+/// each suite has ended, so that nothing set for (or by) one job's suite is seen by the next. The manifest, which holds
+/// the environment variables of every job, is deleted once it has been read.
+///
+/// The start and end of each job's suite are marked out on standard output and standard error, so that the output of
+/// the process can be split between the jobs. Starts are marked as by [RobotSequenceListener].
+final class RobotBatchListener {
+
+	static final String FILE_NAME = "RobotBatch.py";
+
+	static final String SCRIPT_END_PREFIX = "\u001eRPA-SCRIPT-END ";
+
+	static final String SOURCE = """
+			import json
+			import os
+			import sys
+			from pathlib import Path
+
+			from robot.utils import escape
+
+
+			class RobotBatch:
+
+			    ROBOT_LISTENER_API_VERSION = 3
+
+			    def __init__(self, manifest):
+			        with open(manifest, encoding="utf-8") as f:
+			            self.members = {Path(m["suite"]).resolve(): m for m in json.load(f)}
+			        os.remove(manifest)
+			        self.environment = None
+
+			    def start_suite(self, data, result):
+			        member = self._member(data)
+			        if member is None:
+			            return
+
+			        self._mark("\\x1eRPA-SCRIPT ", data)
+			        self.environment = dict(os.environ)
+			        os.environ.update(member["environment"])
+
+			        steps = [["BuiltIn.Import Variables", escape(member["variables"])]]
+			        if data.setup:
+			            steps.append([data.setup.name, *data.setup.args])
+
+			        args = []
+			        for step in steps:
+			            if args:
+			                args.append("AND")
+			            args.extend(step)
+
+			        data.setup.config(name="BuiltIn.Run Keywords", args=tuple(args))
+
+			    def end_suite(self, data, result):
+			        if self._member(data) is None or self.environment is None:
+			            return
+
+			        os.environ.clear()
+			        os.environ.update(self.environment)
+			        self.environment = None
+			        self._mark("\\x1eRPA-SCRIPT-END ", data)
+
+			    def _member(self, data):
+			        return self.members.get(Path(data.source).resolve()) if data.source else None
+
+			    @staticmethod
+			    def _mark(prefix, data):
+			        for stream in (sys.__stdout__, sys.__stderr__):
+			            stream.write(prefix + str(data.source) + "\\n")
+			            stream.flush()
+			""";
+
+	private RobotBatchListener() { }
+}
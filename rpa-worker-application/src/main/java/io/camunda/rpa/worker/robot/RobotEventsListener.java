@@ -0,0 +1,46 @@
+package io.camunda.rpa.worker.robot;
+
+/// A Robot listener which reports the suites, tasks and keywords as they start and end, as lines of JSON on standard 
+/// error, marked out from the rest of the output so that they can be picked out of it. Keyword arguments are left out,
+/// as they may hold secrets. Suite events carry the suite's source, so that the events of a batch can be told apart.
+final class RobotEventsListener {
+
+	static final String FILE_NAME = "RobotEvents.py";
+	
+	static final String EVENT_PREFIX = "\u001eRPA-EVENT ";
+
+	static final String SOURCE = """
+			import json
+			import sys
+
+
+			class RobotEvents:
+
+			    ROBOT_LISTENER_API_VERSION = 2
+
+			    def start_suite(self, name, attrs):
+			        self._emit("suite-start", name=attrs["longname"], source=attrs["source"])
+
+			    def end_suite(self, name, attrs):
+			        self._emit("suite-end", name=attrs["longname"], source=attrs["source"], status=attrs["status"], elapsed=attrs["elapsedtime"])
+
+			    def start_test(self, name, attrs):
+			        self._emit("task-start", name=attrs["longname"])
+
+			    def end_test(self, name, attrs):
+			        self._emit("task-end", name=attrs["longname"], status=attrs["status"], elapsed=attrs["elapsedtime"])
+
+			    def start_keyword(self, name, attrs):
+			        self._emit("keyword-start", name=name, kind=attrs["type"])
+
+			    def end_keyword(self, name, attrs):
+			        self._emit("keyword-end", name=name, kind=attrs["type"], status=attrs["status"], elapsed=attrs["elapsedtime"])
+
+			    @staticmethod
+			    def _emit(event_type, **data):
+			        sys.__stderr__.write("\\x1eRPA-EVENT " + json.dumps({"type": event_type, **data}) + "\\n")
+			        sys.__stderr__.flush()
+			""";
+
+	private RobotEventsListener() { }
+}
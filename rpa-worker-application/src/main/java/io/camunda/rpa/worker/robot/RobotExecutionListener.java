@@ -7,6 +7,15 @@ import java.time.Duration;
 @FunctionalInterface
 public interface RobotExecutionListener {
 	default void beforeScriptExecution(Workspace workspace, Duration timeout) {}
+
+	/// Called once the last Robot process of an execution has exited, before its results are processed
+	default void afterScriptsExecuted(Workspace workspace) {}
 	
 	void afterRobotExecution(Workspace workspace);
+
+	/// @return Whether the workspace is deleted once the execution has finished, so that nothing in it can be pointed 
+	/// to in the results
+	default boolean deletesWorkspace() {
+		return false;
+	}
 }
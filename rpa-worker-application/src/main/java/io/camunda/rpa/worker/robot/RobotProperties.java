@@ -5,4 +5,9 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import java.time.Duration;
 
 @ConfigurationProperties("camunda.rpa.robot")
-record RobotProperties(Duration defaultTimeout, boolean failFast) { }
+record RobotProperties(
+		Duration defaultTimeout, 
+		boolean failFast, 
+		int batchMaxJobs, 
+		Duration batchLinger, 
+		boolean singleProcess) { }
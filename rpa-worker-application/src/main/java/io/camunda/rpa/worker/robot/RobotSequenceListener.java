@@ -0,0 +1,72 @@
+package io.camunda.rpa.worker.robot;
+
+/// A Robot listener which runs the suites of several scripts one after another in one Robot process, as if each had 
+/// been run by itself: once one of the suites has failed, the suites after it are emptied so that nothing in them runs.
+/// The start of each script's suite is marked out on standard output and standard error, so that the output of the 
+/// process can be split between the scripts.
+///
+/// Each script's suite is given its own environment variables from the manifest while it runs, and the environment of
+/// the process is put back as it was once the suite has ended, so that nothing set for (or by) one script is seen by 
+/// the next. The manifest is deleted once it has been read.
+final class RobotSequenceListener {
+
+	static final String FILE_NAME = "RobotSequence.py";
+
+	static final String SCRIPT_PREFIX = "\u001eRPA-SCRIPT ";
+
+	static final String SOURCE = """
+			import json
+			import os
+			import sys
+			from pathlib import Path
+
+
+			class RobotSequence:
+
+			    ROBOT_LISTENER_API_VERSION = 3
+
+			    def __init__(self, manifest):
+			        with open(manifest, encoding="utf-8") as f:
+			            self.environments = {Path(s["suite"]).resolve(): s["environment"] for s in json.load(f)}
+			        os.remove(manifest)
+			        self.environment = None
+			        self.failed = False
+
+			    def start_suite(self, data, result):
+			        if not self._is_script(data):
+			            return
+
+			        for stream in (sys.__stdout__, sys.__stderr__):
+			            stream.write("\\x1eRPA-SCRIPT " + str(data.source) + "\\n")
+			            stream.flush()
+
+			        self.environment = dict(os.environ)
+			        os.environ.update(self.environments.get(Path(data.source).resolve(), {}))
+
+			        if not self.failed:
+			            return
+
+			        data.tests.clear()
+			        data.suites.clear()
+			        data.setup.config(name=None)
+			        data.teardown.config(name=None)
+
+			    def end_suite(self, data, result):
+			        if not self._is_script(data):
+			            return
+
+			        if self.environment is not None:
+			            os.environ.clear()
+			            os.environ.update(self.environment)
+			            self.environment = None
+
+			        if result.failed:
+			            self.failed = True
+
+			    @staticmethod
+			    def _is_script(data):
+			        return data.parent is not None and data.parent.parent is None
+			""";
+
+	private RobotSequenceListener() { }
+}
@@ -1,11 +1,14 @@
 package io.camunda.rpa.worker.robot;
 
 import io.camunda.rpa.worker.io.IO;
+import io.camunda.rpa.worker.pexec.ExecutionCustomizer;
 import io.camunda.rpa.worker.pexec.ProcessService;
+import io.camunda.rpa.worker.pexec.ProcessResources;
 import io.camunda.rpa.worker.pexec.ProcessTimeoutException;
 import io.camunda.rpa.worker.script.RobotScript;
 import io.camunda.rpa.worker.util.MoreCollectors;
 import io.camunda.rpa.worker.workspace.Workspace;
+import io.camunda.rpa.worker.workspace.WorkspaceEventService;
 import io.camunda.rpa.worker.workspace.WorkspaceService;
 import io.camunda.rpa.worker.workspace.WorkspaceVariablesManager;
 import io.vavr.control.Try;
@@ -13,20 +16,36 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Scheduler;
 import tools.jackson.databind.ObjectMapper;
 
+import javax.xml.parsers.DocumentBuilderFactory;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -51,8 +70,38 @@ public class RobotService {
 	private final ObjectProvider<EnvironmentVariablesContributor> environmentContributors;
 	private final WorkspaceVariablesManager workspaceVariablesManager;
 	private final RobotExecutionStrategy robotExecutionStrategy;
+	private final RobotSessionService robotSessionService;
+	private final WorkspaceEventService workspaceEventService;
+
+	private record RobotEnvironment(
+			Workspace workspace, 
+			Path varsFile, 
+			Path outputDir, 
+			Path artifactsDir, 
+			Map<String, Map<String, String>> environmentVariables) { }
+
+	/// @param deadline when the execution's timeout runs out, counted from when it joined the batch
+	/// @param execution what to do when the execution is cancelled, which is disposed once it has been
+	private record BatchMember(
+			RobotScript script,
+			Map<String, Object> variables,
+			Duration timeout,
+			Instant deadline,
+			List<RobotExecutionListener> executionListeners,
+			List<ExecutionResultsProcessor> resultsProcessors,
+			Map<String, Object> workspaceProperties,
+			MonoSink<ExecutionResults> sink,
+			Disposable.Swap execution) {
 
-	private record RobotEnvironment(Workspace workspace, Path varsFile, Path outputDir, Path artifactsDir) { }
+		boolean isCancelled() {
+			return execution.isDisposed();
+		}
+	}
+
+	/// @param elapsed how long the suite ran for, when Robot records it
+	private record SuiteResult(ExecutionResults.Result result, Duration elapsed) { }
+
+	private final Map<String, List<BatchMember>> pendingBatches = new HashMap<>();
 
 	public Mono<ExecutionResults> execute(
 			RobotScript script,
@@ -93,10 +142,335 @@ public class RobotService {
 				.toList();
 
 		
-		List<RobotExecutionListener> allListeners = Stream.concat(Stream.of(workspaceVariablesManager), executionListeners.stream()).toList();
-		return doExecute(scripts, variables, timeout != null ? timeout : robotProperties.defaultTimeout(), allListeners, resultsProcessors, workspaceProperties, workspaceAffinityKey);
+		List<RobotExecutionListener> allListeners = Stream.concat(Stream.of(workspaceVariablesManager, workspaceEventService), executionListeners.stream()).toList();
+		return robotSessionService.withSession(workspaceAffinityKey, robotExecutionStrategy, strategy -> 
+				doExecute(scripts, variables, timeout != null ? timeout : robotProperties.defaultTimeout(), allListeners, resultsProcessors, workspaceProperties, workspaceAffinityKey, strategy));
 	}
 	
+	/// Run the script along with other executions of it which are requested around the same time, in a single Robot
+	/// process, so that the cost of starting Robot is paid once for the batch. Each execution gets its own workspace,
+	/// variables and environment, and its own results. A batch is started once it is full, or once the first execution
+	/// in it has waited for the batch linger time. An execution which is cancelled before its batch has started is left 
+	/// out of it, and the batch is stopped if every execution in it has been cancelled.
+	///
+	/// @param batchKey executions with the same key are batched together, so must all run the same script
+	public Mono<ExecutionResults> executeBatched(
+			String batchKey,
+			RobotScript script,
+			Map<String, Object> variables,
+			Duration timeout,
+			List<RobotExecutionListener> executionListeners,
+			List<ExecutionResultsProcessor> resultsProcessors,
+			Map<String, Object> workspaceProperties) {
+
+		List<RobotExecutionListener> allListeners = Stream.concat(Stream.of(workspaceVariablesManager, workspaceEventService), executionListeners.stream()).toList();
+		Duration effectiveTimeout = timeout != null ? timeout : robotProperties.defaultTimeout();
+		return Mono.create(sink -> {
+			BatchMember member = new BatchMember(
+					script,
+					variables,
+					effectiveTimeout,
+					Instant.now().plus(effectiveTimeout),
+					allListeners,
+					resultsProcessors,
+					workspaceProperties,
+					sink,
+					Disposables.swap());
+
+			sink.onCancel(() -> {
+				member.execution().dispose();
+				synchronized (pendingBatches) {
+					List<BatchMember> pending = pendingBatches.get(batchKey);
+					if(pending != null && pending.remove(member) && pending.isEmpty())
+						pendingBatches.remove(batchKey);
+				}
+			});
+
+			List<BatchMember> full = null;
+			boolean first;
+			synchronized (pendingBatches) {
+				List<BatchMember> pending = pendingBatches.computeIfAbsent(batchKey, _ -> new ArrayList<>());
+				first = pending.isEmpty();
+				pending.add(member);
+				if(pending.size() >= robotProperties.batchMaxJobs())
+					full = pendingBatches.remove(batchKey);
+			}
+
+			if(full != null)
+				runBatch(full);
+			else if(first)
+				Mono.delay(robotProperties.batchLinger())
+						.subscribe(_ -> {
+							List<BatchMember> lingered;
+							synchronized (pendingBatches) {
+								lingered = pendingBatches.remove(batchKey);
+							}
+							if(lingered != null) runBatch(lingered);
+						});
+		});
+	}
+
+	private void runBatch(List<BatchMember> batch) {
+		List<BatchMember> members = batch.stream()
+				.filter(m -> ! m.isCancelled())
+				.toList();
+
+		if(members.isEmpty()) return;
+
+		if(members.size() == 1) {
+			BatchMember member = members.getFirst();
+			member.execution().update(doExecute(List.of(new PreparedScript("main", member.script())),
+					member.variables(),
+					member.timeout(),
+					member.executionListeners(),
+					member.resultsProcessors(),
+					member.workspaceProperties(),
+					null, 
+					robotExecutionStrategy)
+					.contextWrite(member.sink().contextView())
+					.subscribe(member.sink()::success, member.sink()::error));
+			return;
+		}
+
+		log.atInfo()
+				.kv("script", members.getFirst().script().id())
+				.kv("size", members.size())
+				.log("Running batch of Robot executions");
+
+		Sinks.Empty<Void> abandoned = Sinks.empty();
+		members.forEach(m -> m.execution().update(() -> {
+			if(members.stream().allMatch(BatchMember::isCancelled))
+				abandoned.tryEmitEmpty();
+		}));
+
+		// A member whose environment cannot be prepared fails by itself, and one which is cancelled while the batch is 
+		// being prepared is cleaned up and left out, so that the rest of the batch can still run
+		Flux.fromIterable(members)
+				.flatMapSequential(m -> newRobotEnvironment(
+								List.of(new PreparedScript("main", m.script())),
+								m.variables(),
+								m.workspaceProperties(),
+								null)
+						.contextWrite(m.sink().contextView())
+						.map(renv -> Map.entry(m, renv))
+						.onErrorResume(thrown -> Mono.<Map.Entry<BatchMember, RobotEnvironment>>fromRunnable(() -> m.sink().error(new RobotErrorException(thrown)))))
+				.collectList()
+				.flatMap(prepared -> {
+					prepared.stream()
+							.filter(kv -> kv.getKey().isCancelled())
+							.forEach(kv -> finishBatchMember(kv.getKey(), kv.getValue()));
+
+					List<BatchMember> running = prepared.stream()
+							.map(Map.Entry::getKey)
+							.filter(m -> ! m.isCancelled())
+							.toList();
+					List<RobotEnvironment> envs = prepared.stream()
+							.filter(kv -> ! kv.getKey().isCancelled())
+							.map(Map.Entry::getValue)
+							.toList();
+
+					if(running.isEmpty()) return Mono.<Void>empty();
+
+					return executeBatch(running, envs)
+							.takeUntilOther(abandoned.asMono())
+							.doFinally(_ -> IntStream.range(0, running.size()).forEach(i ->
+									finishBatchMember(running.get(i), envs.get(i))))
+							.doOnError(thrown -> running.forEach(m -> m.sink().error(
+									thrown instanceof ProcessTimeoutException
+											? thrown
+											: new RobotErrorException(thrown))))
+							.onErrorComplete();
+				})
+				.subscribe();
+	}
+
+	private void finishBatchMember(BatchMember member, RobotEnvironment renv) {
+		member.executionListeners().forEach(l -> l.afterRobotExecution(renv.workspace()));
+		environmentContributors.forEach(ec -> ec.afterRobotExecution(renv.workspace()));
+	}
+
+	/// The suites of every execution in the batch are passed to a single Robot process, along with a listener which 
+	/// gives each suite its own execution's variables file and environment variables while it runs. The process itself
+	/// is only given the environment variables which every execution shares. The results and output of each suite are
+	/// then read back from the batch's output. The batch is given until the earliest deadline of its executions, so 
+	/// that none of them is left running past its own timeout.
+	private Mono<Void> executeBatch(List<BatchMember> members, List<RobotEnvironment> envs) {
+		RobotEnvironment lead = envs.getFirst();
+		Path batchOutputDir = lead.outputDir().resolve("batch");
+		Path listener = lead.workspace().path().resolve(RobotBatchListener.FILE_NAME);
+		Path manifest = lead.workspace().path().resolve("batch.json");
+		Map<String, String> sharedEnvironment = new HashMap<>(lead.environmentVariables().get("main"));
+		envs.forEach(renv -> sharedEnvironment.entrySet().retainAll(renv.environmentVariables().get("main").entrySet()));
+		Duration timeout = members.stream()
+				.map(BatchMember::deadline)
+				.min(Comparator.naturalOrder())
+				.map(deadline -> Duration.between(Instant.now(), deadline))
+				.filter(Duration::isPositive)
+				.orElse(Duration.ofMillis(1));
+
+		return io.run(() -> {
+					io.writeString(listener, RobotBatchListener.SOURCE);
+					io.write(manifest, Try.of(() -> objectMapper.writeValueAsBytes(envs.stream()
+							.map(renv -> Map.of(
+									"suite", mainScriptOf(renv).toAbsolutePath().toString(),
+									"variables", renv.varsFile().toAbsolutePath().toString(),
+									"environment", renv.environmentVariables().get("main")))
+							.toList())).get());
+				})
+
+				.then(robotExecutionStrategy.executeRobot(c -> {
+					c.workDir(lead.workspace().path())
+							.captureOutputTo(lead.outputDir().resolve("batch.console.log"))
+							.allowExitCodes(ROBOT_TASK_FAILURE_EXIT_CODES)
+
+							.inheritEnv()
+							.env(sharedEnvironment)
+
+							.arg("--rpa")
+							.arg("--outputdir").bindArg("outputDir", batchOutputDir)
+							.arg("--listener").bindArg("batchListener", "%s;%s".formatted(listener, manifest))
+							.arg("--report").arg("none")
+							.arg("--logtitle").arg("Task log")
+
+							.timeout(timeout)
+							.scheduleOn(robotWorkScheduler);
+
+					publishEvents(c, envs.stream().collect(Collectors.toMap(
+							renv -> mainScriptOf(renv).toAbsolutePath().normalize(),
+							RobotEnvironment::workspace,
+							(l, _) -> l,
+							LinkedHashMap::new)));
+					IntStream.range(0, envs.size()).forEach(i ->
+							c.bindArg("script%s".formatted(i), mainScriptOf(envs.get(i))));
+					return c;
+				}))
+
+				.doOnSubscribe(_ -> IntStream.range(0, members.size()).forEach(i ->
+						members.get(i).executionListeners().forEach(l ->
+								l.beforeScriptExecution(envs.get(i).workspace(), members.get(i).timeout()))))
+
+				.doOnTerminate(() -> IntStream.range(0, members.size()).forEach(i ->
+						members.get(i).executionListeners().forEach(l ->
+								l.afterScriptsExecuted(envs.get(i).workspace()))))
+
+				.flatMap(xr -> io.supply(() -> readSuiteResults(batchOutputDir.resolve("output.xml")))
+						.flatMapMany(suiteResults -> {
+							List<Path> suitePaths = envs.stream()
+									.map(renv -> mainScriptOf(renv).toAbsolutePath().normalize())
+									.toList();
+							BatchOutput output = new BatchOutput(
+									splitOutput(xr.stdout(), suitePaths, null),
+									splitOutput(xr.stderr(), suitePaths, null),
+									xr.truncated() ? leadingScript(xr.stdout(), suitePaths, null) : null);
+
+							return Flux.range(0, members.size())
+									.flatMap(i -> completeBatchMember(members.get(i), envs.get(i), xr, suiteResults, output));
+						})
+						.then());
+	}
+
+	/// The output of a batch process, split between its members' suites
+	///
+	/// @param stdout the standard output of each suite, by its source, with Robot's own output under `null`
+	/// @param stderr the standard error of each suite, by its source, with Robot's own output under `null`
+	/// @param truncatedAt the suite whose output was cut short when only the tail of the output was kept
+	private record BatchOutput(Map<Path, String> stdout, Map<Path, String> stderr, Path truncatedAt) { }
+
+	/// Each member is given only the output of its own suite, or Robot's own output if its suite never started, so that
+	/// the output of one job is never reported against another. The note of where to find the full output is left out,
+	/// as the file holds the output of every member.
+	private Mono<Void> completeBatchMember(
+			BatchMember member,
+			RobotEnvironment renv,
+			ProcessService.ExecutionResult xr,
+			Map<Path, SuiteResult> suiteResults,
+			BatchOutput output) {
+
+		Path suitePath = mainScriptOf(renv).toAbsolutePath().normalize();
+		ExecutionResults.ExecutionResult processResult = toRobotExecutionResult("main", xr, getOutputVariables(renv), null);
+		SuiteResult suiteResult = suiteResults.get(suitePath);
+		ExecutionResults.Result result = processResult.result() == ExecutionResults.Result.ERROR || suiteResult == null
+				? processResult.result()
+				: suiteResult.result();
+
+		Path section = output.stdout().containsKey(suitePath) || output.stderr().containsKey(suitePath)
+				? suitePath
+				: null;
+
+		// The resources used by the batch process are shared by every member, so are not given to any one of them
+		ExecutionResults.ExecutionResult executionResult = new ExecutionResults.ExecutionResult(
+				"main",
+				result,
+				mergeOutput(
+						xr.truncated() && Objects.equals(output.truncatedAt(), section),
+						null,
+						output.stdout().getOrDefault(section, ""),
+						output.stderr().getOrDefault(section, "")),
+				processResult.outputVariables(),
+				suiteResult != null && suiteResult.elapsed() != null
+						? suiteResult.elapsed()
+						: processResult.duration());
+
+		return Flux.fromIterable(member.resultsProcessors())
+				.reduce(Mono.just(new ExecutionResults(
+								Map.of("main", executionResult),
+								result,
+								executionResult.outputVariables(),
+								renv.workspace(),
+								executionResult.duration())),
+						(chain, proc) -> chain.flatMap(proc::withExecutionResults))
+				.flatMap(it -> it)
+				.doOnNext(member.sink()::success)
+				.doOnError(member.sink()::error)
+				.onErrorComplete()
+				.then();
+	}
+
+	/// Reads the status of each suite, by its source, from the Robot output file.
+	private Map<Path, SuiteResult> readSuiteResults(Path outputXml) {
+		if(io.notExists(outputXml))
+			return Collections.emptyMap();
+
+		Document output = io.withReader(outputXml, reader -> Try.of(() -> DocumentBuilderFactory.newInstance()
+						.newDocumentBuilder()
+						.parse(new InputSource(reader)))
+				.get());
+
+		NodeList suites = output.getElementsByTagName("suite");
+		return IntStream.range(0, suites.getLength())
+				.mapToObj(i -> (Element) suites.item(i))
+				.filter(suite -> ! suite.getAttribute("source").isBlank())
+				.flatMap(suite -> childElements(suite, "status")
+						.findFirst()
+						.map(status -> Map.entry(
+								Path.of(suite.getAttribute("source")).toAbsolutePath().normalize(),
+								new SuiteResult(
+										status.getAttribute("status").equals("FAIL")
+												? ExecutionResults.Result.FAIL
+												: ExecutionResults.Result.PASS,
+										status.getAttribute("elapsed").isBlank()
+												? null
+												: Duration.ofNanos((long) (Double.parseDouble(status.getAttribute("elapsed")) * 1_000_000_000)))))
+						.stream())
+				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (l, _) -> l));
+	}
+
+	private static Stream<Element> childElements(Element parent, String name) {
+		NodeList children = parent.getChildNodes();
+		return IntStream.range(0, children.getLength())
+				.mapToObj(children::item)
+				.filter(n -> n instanceof Element e && e.getTagName().equals(name))
+				.map(Element.class::cast);
+	}
+
+	private static Path mainScriptOf(RobotEnvironment renv) {
+		return scriptOf(renv, "main");
+	}
+
+	private static Path scriptOf(RobotEnvironment renv, String executionKey) {
+		return renv.workspace().path().resolve("%s.robot".formatted(executionKey));
+	}
+
 	private Mono<ExecutionResults> doExecute(
 			List<PreparedScript> scripts,
 			Map<String, Object> variables,
@@ -104,15 +478,24 @@ public class RobotService {
 			List<RobotExecutionListener> executionListeners,
 			List<ExecutionResultsProcessor> resultsProcessors,
 			Map<String, Object> workspaceProperties, 
-			String workspaceAffinityKey) {
+			String workspaceAffinityKey, 
+			RobotExecutionStrategy strategy) {
 
 		return newRobotEnvironment(scripts, variables, workspaceProperties, workspaceAffinityKey)
 				.flatMap(renv ->
-						Flux.fromIterable(scripts)
-								.concatMap(script -> getEnvironmentVariables(renv, script)
-
-										.flatMap(envVars ->
-												executeRobot(timeout, executionListeners, renv, script, envVars)))
+						(robotProperties.singleProcess() && scripts.size() > 1
+								? executeRobotSuites(strategy, timeout, executionListeners, renv, scripts)
+								: Flux.fromIterable(scripts)
+										.concatMap(script -> executeRobot(
+												strategy, 
+												timeout, 
+												executionListeners, 
+												renv, 
+												script, 
+												renv.environmentVariables().get(script.executionKey()))))
+
+								.doOnTerminate(() -> executionListeners.forEach(
+										l -> l.afterScriptsExecuted(renv.workspace())))
 
 								.onErrorResume(RobotFailureException.class, thrown ->
 										Mono.just(thrown.getExecutionResult()))
@@ -144,10 +527,17 @@ public class RobotService {
 												chain.flatMap(proc::withExecutionResults))
 										.flatMap(it -> it))
 
-								.doFinally(_ -> executionListeners.forEach(
-										l -> l.afterRobotExecution(renv.workspace()))));
+								.doFinally(_ -> {
+									executionListeners.forEach(
+											l -> l.afterRobotExecution(renv.workspace()));
+									environmentContributors.forEach(
+											ec -> ec.afterRobotExecution(renv.workspace()));
+								}));
 	}
 
+	/// Once the workspace has been created, the script resources and variables file are written and the environment 
+	/// variables for every script are resolved (including any secrets lookup) all at the same time, rather than one 
+	/// after another and then again before each script.
 	private Mono<RobotEnvironment> newRobotEnvironment(
 			List<PreparedScript> scripts, 
 			Map<String, Object> variables, 
@@ -155,18 +545,51 @@ public class RobotService {
 			String workspaceAffinityKey) {
 		
 		return io.supply(() -> {
-			Workspace workspace = workspaceService.createWorkspace(workspaceAffinityKey, workspaceProperties);
-			Path varsFile = workspace.path().resolve("variables.json");
-			Path outputDir = workspace.path().resolve("output");
-			io.createDirectories(outputDir);
-			Path artifactsDir = workspace.path().resolve("robot_artifacts");
-			io.createDirectories(artifactsDir);
-
-			scripts.forEach(s -> writeResources(s, workspace));
-			io.write(varsFile, Try.of(() -> objectMapper.writeValueAsBytes(variables)).get());
-			
-			return new RobotEnvironment(workspace, varsFile, outputDir, artifactsDir);
-		});
+					Workspace workspace = workspaceService.createWorkspace(workspaceAffinityKey, workspaceProperties);
+					io.createDirectories(workspace.path().resolve("output"));
+					io.createDirectories(workspace.path().resolve("robot_artifacts"));
+					return workspace;
+				})
+				.timed()
+				.flatMap(workspace -> Mono.zip(
+								writeWorkspaceFiles(workspace.get(), scripts, variables)
+										.thenReturn(workspace.get())
+										.timed(),
+
+								Flux.fromIterable(scripts)
+										.flatMapSequential(s -> getEnvironmentVariables(workspace.get(), s)
+												.map(envVars -> Map.entry(s.executionKey(), envVars)))
+										.collectMap(Map.Entry::getKey, Map.Entry::getValue)
+										.timed())
+
+						.doOnNext(prepared -> log.atDebug()
+								.kv("workspace", workspace.get().id())
+								.kv("createWorkspace", workspace.elapsed())
+								.kv("writeFiles", prepared.getT1().elapsed())
+								.kv("environmentVariables", prepared.getT2().elapsed())
+								.log("Prepared Robot environment"))
+
+						.map(prepared -> new RobotEnvironment(
+								workspace.get(),
+								workspace.get().path().resolve("variables.json"),
+								workspace.get().path().resolve("output"),
+								workspace.get().path().resolve("robot_artifacts"),
+								prepared.getT2().get())));
+	}
+
+	private Mono<Void> writeWorkspaceFiles(Workspace workspace, List<PreparedScript> scripts, Map<String, Object> variables) {
+		return Mono.when(Stream.of(
+						scripts.stream().map(s -> io.run(() -> writeResources(s, workspace))),
+						Stream.of(io.run(() -> io.write(
+								workspace.path().resolve("variables.json"),
+								Try.of(() -> objectMapper.writeValueAsBytes(variables)).get()))),
+						workspaceEventService.isEnabled()
+								? Stream.of(io.run(() -> io.writeString(
+										workspace.path().resolve(RobotEventsListener.FILE_NAME),
+										RobotEventsListener.SOURCE)))
+								: Stream.<Mono<Void>>empty())
+				.flatMap(writes -> writes)
+				.toList());
 	}
 
 	private void writeResources(PreparedScript s, Workspace workspace) {
@@ -201,38 +624,43 @@ public class RobotService {
 		return false;
 	}
 
-	private Mono<Map<String, String>> getEnvironmentVariables(RobotEnvironment renv, PreparedScript script) {
+	private Mono<Map<String, String>> getEnvironmentVariables(Workspace workspace, PreparedScript script) {
 		return Flux.fromStream(environmentContributors.stream())
-				.flatMap(ec -> ec.getEnvironmentVariables(renv.workspace(), script))
+				.flatMap(ec -> ec.getEnvironmentVariables(workspace, script))
 				.flatMapIterable(Map::entrySet)
 				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
 	}
 
 	private Mono<ExecutionResults.ExecutionResult> executeRobot(
+			RobotExecutionStrategy strategy,
 			Duration timeout,
 			List<RobotExecutionListener> executionListeners,
 			RobotEnvironment renv,
 			PreparedScript script,
 			Map<String, String> envVars) {
 
-		return robotExecutionStrategy.executeRobot(c -> c
-				
-						.workDir(renv.workspace().path())
-						.allowExitCodes(ROBOT_TASK_FAILURE_EXIT_CODES)
-
-						.inheritEnv()
-						.env(envVars)
-
-						.arg("--rpa")
-						.arg("--outputdir").bindArg("outputDir", renv.outputDir().resolve(script.executionKey()))
-						.arg("--variablefile").bindArg("varsFile", renv.varsFile())
-						.arg("--report").arg("none")
-						.arg("--logtitle").arg("Task log")
-						.conditionalArg(robotProperties::failFast, "-X")
-						.bindArg("script", renv.workspace().path().resolve("%s.robot".formatted(script.executionKey())))
-
-						.timeout(timeout)
-						.scheduleOn(robotWorkScheduler))
+		return strategy.executeRobot(c -> {
+					c.workDir(renv.workspace().path())
+							.captureOutputTo(renv.outputDir().resolve("%s.console.log".formatted(script.executionKey())))
+							.allowExitCodes(ROBOT_TASK_FAILURE_EXIT_CODES)
+							.sampleResources(true)
+
+							.inheritEnv()
+							.env(envVars)
+
+							.arg("--rpa")
+							.arg("--outputdir").bindArg("outputDir", renv.outputDir().resolve(script.executionKey()))
+							.arg("--variablefile").bindArg("varsFile", renv.varsFile())
+							.arg("--report").arg("none")
+							.arg("--logtitle").arg("Task log")
+							.conditionalArg(robotProperties::failFast, "-X");
+
+					publishEvents(c, renv.workspace());
+					return c.bindArg("script", renv.workspace().path().resolve("%s.robot".formatted(script.executionKey())))
+
+							.timeout(timeout)
+							.scheduleOn(robotWorkScheduler);
+				})
 				
 				.doOnSubscribe(_ -> executionListeners.forEach(l -> 
 						l.beforeScriptExecution(renv.workspace(), timeout)))
@@ -240,28 +668,276 @@ public class RobotService {
 				.map(xr -> toRobotExecutionResult(
 								script.executionKey(),
 								xr,
-								getOutputVariables(renv)))
+								getOutputVariables(renv),
+								outputFileOf(xr, executionListeners)))
 
 				.flatMap(xr -> xr.result() != ExecutionResults.Result.PASS
 						? Mono.error(new RobotFailureException(xr))
 						: Mono.just(xr));
 	}
 
+	/// All of the scripts are passed to one Robot process as suites, in order, with a listener which stops any suite 
+	/// from running after one has failed. The results of each script are read back from the output, up to and 
+	/// including the first which did not pass, as they would have been had each script been run by itself. The output
+	/// of the process is split between the scripts by the markers the listener writes as each one starts. The 
+	/// resources used by the process are given with the first result only, as they cannot be divided between scripts.
+	/// The process is given only the environment variables which every script shares, and the listener gives each 
+	/// script's suite the rest of its own while it runs. The configured timeout is kept for the process as a whole, so
+	/// that a hung script cannot run for longer than it would have by itself.
+	private Flux<ExecutionResults.ExecutionResult> executeRobotSuites(
+			RobotExecutionStrategy strategy,
+			Duration timeout,
+			List<RobotExecutionListener> executionListeners,
+			RobotEnvironment renv,
+			List<PreparedScript> scripts) {
+
+		Path listener = renv.workspace().path().resolve(RobotSequenceListener.FILE_NAME);
+		Path manifest = renv.workspace().path().resolve("sequence.json");
+		Path outputDir = renv.outputDir().resolve("main");
+		Map<String, String> sharedEnvironment = new HashMap<>(renv.environmentVariables().get(scripts.getFirst().executionKey()));
+		scripts.forEach(s -> sharedEnvironment.entrySet().retainAll(renv.environmentVariables().get(s.executionKey()).entrySet()));
+
+		return io.run(() -> {
+					io.writeString(listener, RobotSequenceListener.SOURCE);
+					io.write(manifest, Try.of(() -> objectMapper.writeValueAsBytes(scripts.stream()
+							.map(s -> Map.of(
+									"suite", scriptOf(renv, s.executionKey()).toAbsolutePath().toString(),
+									"environment", renv.environmentVariables().get(s.executionKey())))
+							.toList())).get());
+				})
+
+				.then(strategy.executeRobot(c -> {
+					c.workDir(renv.workspace().path())
+							.captureOutputTo(renv.outputDir().resolve("suites.console.log"))
+							.allowExitCodes(ROBOT_TASK_FAILURE_EXIT_CODES)
+							.sampleResources(true)
+
+							.inheritEnv()
+							.env(sharedEnvironment)
+
+							.arg("--rpa")
+							.arg("--outputdir").bindArg("outputDir", outputDir)
+							.arg("--variablefile").bindArg("varsFile", renv.varsFile())
+							.arg("--listener").bindArg("sequenceListener", "%s;%s".formatted(listener, manifest))
+							.arg("--report").arg("none")
+							.arg("--logtitle").arg("Task log")
+							.conditionalArg(robotProperties::failFast, "-X")
+
+							.timeout(timeout)
+							.scheduleOn(robotWorkScheduler);
+
+					publishEvents(c, renv.workspace());
+					scripts.forEach(script -> 
+							c.bindArg("script_%s".formatted(script.executionKey()), scriptOf(renv, script.executionKey())));
+					return c;
+				}))
+
+				.doOnSubscribe(_ -> executionListeners.forEach(l ->
+						l.beforeScriptExecution(renv.workspace(), timeout)))
+
+				.flatMapMany(xr -> io.supply(() -> readSuiteResults(outputDir.resolve("output.xml")))
+						.flatMapIterable(suiteResults -> toScriptResults(
+								scripts, 
+								renv, 
+								xr,
+								toRobotExecutionResult("main", xr, getOutputVariables(renv), null), 
+								suiteResults,
+								outputFileOf(xr, executionListeners))));
+	}
+
+	private static List<ExecutionResults.ExecutionResult> toScriptResults(
+			List<PreparedScript> scripts,
+			RobotEnvironment renv,
+			ProcessService.ExecutionResult xr,
+			ExecutionResults.ExecutionResult processResult,
+			Map<Path, SuiteResult> suiteResults,
+			Path outputFile) {
+
+		List<Path> scriptPaths = scripts.stream()
+				.map(script -> scriptOf(renv, script.executionKey()).toAbsolutePath().normalize())
+				.toList();
+		Map<Path, String> stdout = splitOutput(xr.stdout(), scriptPaths, scriptPaths.getFirst());
+		Map<Path, String> stderr = splitOutput(xr.stderr(), scriptPaths, scriptPaths.getFirst());
+		Path leading = leadingScript(xr.stdout(), scriptPaths, scriptPaths.getFirst());
+
+		List<ExecutionResults.ExecutionResult> results = new ArrayList<>();
+		for(int i = 0; i < scripts.size(); i++) {
+			PreparedScript script = scripts.get(i);
+			Path scriptPath = scriptPaths.get(i);
+			SuiteResult suiteResult = suiteResults.get(scriptPath);
+			ExecutionResults.Result result = suiteResult == null 
+					|| (processResult.result() == ExecutionResults.Result.ERROR && suiteResult.result() != ExecutionResults.Result.PASS)
+					? processResult.result()
+					: suiteResult.result();
+
+			// The last script to be reported also takes the output of any after it, which holds Robot's summary
+			boolean last = result != ExecutionResults.Result.PASS || i == scripts.size() - 1;
+			List<Path> sections = last ? scriptPaths.subList(i, scripts.size()) : List.of(scriptPath);
+
+			results.add(new ExecutionResults.ExecutionResult(
+					script.executionKey(),
+					result,
+					mergeOutput(
+							xr.truncated() && sections.contains(leading),
+							outputFile,
+							joinSections(stdout, sections),
+							joinSections(stderr, sections)),
+					processResult.outputVariables(),
+					suiteResult != null && suiteResult.elapsed() != null
+							? suiteResult.elapsed()
+							: processResult.duration().dividedBy(scripts.size()),
+					results.isEmpty() ? processResult.resources() : null));
+
+			if(last) break;
+		}
+		return results;
+	}
+
+	/// Splits the output of a process which ran several scripts at the markers written as each script starts (and, in 
+	/// a batch, ends). Output after the end of a script, and before the start of the next, is Robot's own, and is kept
+	/// under `null`. Output before the first marker (Robot's own preamble, or the rest of a script whose start was cut
+	/// from the tail) belongs to the [#leadingScript].
+	///
+	/// @param before the script which output before the first script's start belongs to
+	private static Map<Path, String> splitOutput(String output, List<Path> scriptPaths, Path before) {
+		Map<Path, List<String>> sections = new HashMap<>();
+		Path current = leadingScript(output, scriptPaths, before);
+		for(String line : output.lines().toList()) {
+			if(line.startsWith(RobotSequenceListener.SCRIPT_PREFIX)) {
+				current = markedScript(line);
+				continue;
+			}
+			if(line.startsWith(RobotBatchListener.SCRIPT_END_PREFIX)) {
+				current = null;
+				continue;
+			}
+			sections.computeIfAbsent(current, _ -> new ArrayList<>()).add(line);
+		}
+
+		Map<Path, String> split = new HashMap<>();
+		sections.forEach((script, lines) -> split.put(script, String.join("\n", lines)));
+		return split;
+	}
+
+	private static String joinSections(Map<Path, String> output, List<Path> sections) {
+		return sections.stream()
+				.map(output::get)
+				.filter(Objects::nonNull)
+				.collect(Collectors.joining("\n"));
+	}
+
+	/// @param before the script which output before the first script's start belongs to
+	/// @return The script which the output before the first marker belongs to
+	private static Path leadingScript(String output, List<Path> scriptPaths, Path before) {
+		return output.lines()
+				.filter(line -> line.startsWith(RobotSequenceListener.SCRIPT_PREFIX) 
+						|| line.startsWith(RobotBatchListener.SCRIPT_END_PREFIX))
+				.findFirst()
+				.map(line -> {
+					if(line.startsWith(RobotBatchListener.SCRIPT_END_PREFIX))
+						return markedScript(line);
+
+					int index = scriptPaths.indexOf(markedScript(line));
+					return index > 0 ? scriptPaths.get(index - 1) : before;
+				})
+				.orElse(before);
+	}
+
+	private static Path markedScript(String marker) {
+		String prefix = marker.startsWith(RobotBatchListener.SCRIPT_END_PREFIX) 
+				? RobotBatchListener.SCRIPT_END_PREFIX 
+				: RobotSequenceListener.SCRIPT_PREFIX;
+		return Path.of(marker.substring(prefix.length())).toAbsolutePath().normalize();
+	}
+
+	/// When workspace events are enabled, Robot reports its progress through a listener, which is picked out of its 
+	/// output, and the rest of its output is published line by line, to those following the workspace.
+	private void publishEvents(ExecutionCustomizer c, Workspace workspace) {
+		publishEvents(c, Map.of(), List.of(workspace));
+	}
+
+	/// In a batch, the events and output of each member's suite are published only to that member's workspace, which
+	/// is told by the source of the suite which has started. Robot's own output, outside of any member's suite, is 
+	/// published to every member.
+	///
+	/// @param suites the workspace of each member, by the source of its suite
+	private void publishEvents(ExecutionCustomizer c, Map<Path, Workspace> suites) {
+		publishEvents(c, suites, List.copyOf(suites.values()));
+	}
+
+	private void publishEvents(ExecutionCustomizer c, Map<Path, Workspace> suites, List<Workspace> workspaces) {
+		if( ! workspaceEventService.isEnabled()) return;
+
+		AtomicReference<Workspace> current = new AtomicReference<>();
+		Function<Object, Workspace> memberOf = source -> source instanceof String s && ! s.isBlank()
+				? suites.get(Path.of(s).toAbsolutePath().normalize())
+				: null;
+
+		c.arg("--listener").bindArg("eventsListener", workspaces.getFirst().path().resolve(RobotEventsListener.FILE_NAME))
+				.onOutput((stream, line) -> {
+					Try<Map<?, ?>> event = line.startsWith(RobotEventsListener.EVENT_PREFIX)
+							? Try.of(() -> objectMapper.readValue(line.substring(RobotEventsListener.EVENT_PREFIX.length()), Map.class))
+							: Try.failure(new NoSuchElementException());
+
+					if(event.isSuccess()) {
+						String type = String.valueOf(event.get().get("type"));
+						Workspace member = memberOf.apply(event.get().get("source"));
+						if(member != null && type.equals("suite-start"))
+							current.set(member);
+
+						Workspace target = member != null ? member : current.get();
+						(target != null ? List.of(target) : workspaces)
+								.forEach(w -> workspaceEventService.publish(w, type, event.get()));
+
+						if(member != null && type.equals("suite-end"))
+							current.compareAndSet(member, null);
+						return false;
+					}
+
+					if( ! line.startsWith(RobotSequenceListener.SCRIPT_PREFIX) 
+							&& ! line.startsWith(RobotBatchListener.SCRIPT_END_PREFIX)) {
+						Workspace target = current.get();
+						(target != null ? List.of(target) : workspaces)
+								.forEach(w -> workspaceEventService.publish(w, stream, line));
+					}
+					return true;
+				});
+	}
+
 	private Map<String, Object> getOutputVariables(RobotEnvironment robotEnvironment) {
 		return workspaceVariablesManager.getVariables(robotEnvironment.workspace().id());
 	}
 
-	private String mergeOutput(String stdout, String stderr) {
-		return Stream.concat(
+	/// The output of a Robot is captured to a file, and only its tail is kept, so a note of where to find the rest is
+	/// given when it has been cut short - unless there is no file to point to.
+	///
+	/// @param outputFile the file holding the full output, or `null` if it will not be there to be read
+	private static String mergeOutput(boolean truncated, Path outputFile, String stdout, String stderr) {
+		return Stream.of(
+						truncated
+								? Stream.of(outputFile != null
+										? "[OUTPUT] Only the end of the output is shown, the full output is in %s".formatted(outputFile)
+										: "[OUTPUT] Only the end of the output is shown")
+								: Stream.<String>empty(),
 						stdout.lines().map("[STDOUT] %s"::formatted),
 						stderr.lines().map("[STDERR] %s"::formatted))
+				.flatMap(lines -> lines)
 				.collect(Collectors.joining("\n"));
 	}
 	
+	/// @return The file the full output of the process was captured to, unless the workspace holding it is deleted 
+	/// once the execution has finished, in which case a note pointing to it would only mislead
+	private static Path outputFileOf(ProcessService.ExecutionResult xr, List<RobotExecutionListener> executionListeners) {
+		return executionListeners.stream().anyMatch(RobotExecutionListener::deletesWorkspace)
+				? null
+				: xr.outputFile();
+	}
+	
 	private ExecutionResults.ExecutionResult toRobotExecutionResult(
 			String executionId, 
 			ProcessService.ExecutionResult xr, 
-			Map<String, Object> outputVariables) {
+			Map<String, Object> outputVariables,
+			Path outputFile) {
 		
 		return new ExecutionResults.ExecutionResult(executionId, switch (xr.exitCode()) {
 			case ROBOT_EXIT_SUCCESS -> ExecutionResults.Result.PASS;
@@ -271,7 +947,18 @@ public class RobotService {
 			     ROBOT_EXIT_INVALID_INVOKE -> ExecutionResults.Result.ERROR;
 
 			default -> ExecutionResults.Result.FAIL;
-		}, mergeOutput(xr.stdout(), xr.stderr()), outputVariables, xr.duration());
+		}, mergeOutput(xr.truncated(), outputFile, xr.stdout(), xr.stderr()), outputVariables, xr.duration(), toResourceUsage(xr.resources()));
+	}
+
+	private static ExecutionResults.ResourceUsage toResourceUsage(ProcessResources resources) {
+		if(resources == null) return null;
+		
+		return new ExecutionResults.ResourceUsage(
+				resources.cpuTime(),
+				resources.peakMemoryBytes(),
+				resources.bytesRead(),
+				resources.bytesWritten(),
+				resources.childProcesses());
 	}
 
 	private ExecutionResults.Result getWorstCase(Collection<ExecutionResults.ExecutionResult> results) {
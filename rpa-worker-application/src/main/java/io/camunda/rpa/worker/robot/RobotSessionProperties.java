@@ -0,0 +1,15 @@
+package io.camunda.rpa.worker.robot;
+
+import lombok.Builder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+@Builder(toBuilder = true)
+@ConfigurationProperties("camunda.rpa.robot.session")
+record RobotSessionProperties(
+		boolean enabled, 
+		int maxSessions, 
+		Duration idleTimeout, 
+		List<String> preloadModules) { }
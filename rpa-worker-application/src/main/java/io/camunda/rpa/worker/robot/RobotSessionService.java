@@ -0,0 +1,225 @@
+package io.camunda.rpa.worker.robot;
+
+import io.camunda.rpa.worker.io.IO;
+import io.camunda.rpa.worker.pexec.ProcessService;
+import io.camunda.rpa.worker.python.PythonInterpreter;
+import io.camunda.rpa.worker.python.PythonRuntimeProperties;
+import io.vavr.control.Try;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static reactor.core.scheduler.Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE;
+
+/// Keeps a warm Robot session for each workspace affinity key, so that repeated executions with the same key (such as
+/// sandbox evaluations while a script is being developed) do not pay for starting Python and importing Robot Framework
+/// and its libraries each time. A session is a dedicated [ZygoteRobotExecutionStrategy] with a single zygote.
+///
+/// Sessions which have not been used for the idle timeout are stopped. When the maximum number of sessions are 
+/// running, the least recently used idle session is stopped to make room for a new one, and if every session is busy
+/// the execution runs without a session. Sessions are taken out of the map while it is locked, but stopped (which waits
+/// on the zygote and cleans up its directory) only once it has been unlocked.
+@Service
+@Slf4j
+class RobotSessionService implements DisposableBean {
+	
+	private static final Duration MIN_SWEEP_INTERVAL = Duration.ofSeconds(1);
+
+	private final RobotSessionProperties properties;
+	private final ResolvedRobotExecutionStrategyType strategyType;
+	private final ProcessService processService;
+	private final ObjectProvider<PythonInterpreter> pythonInterpreter;
+	private final IO io;
+	private final Scheduler sessionScheduler;
+	private final Disposable idleSweep;
+
+	private final Map<String, Session> sessions = new HashMap<>();
+
+	private static final class Session {
+		private final ZygoteRobotExecutionStrategy strategy;
+		private int active;
+		private Instant lastUsed = Instant.now();
+
+		private Session(ZygoteRobotExecutionStrategy strategy) {
+			this.strategy = strategy;
+		}
+	}
+
+	RobotSessionService(
+			RobotSessionProperties properties,
+			ResolvedRobotExecutionStrategyType strategyType,
+			ProcessService processService,
+			ObjectProvider<PythonInterpreter> pythonInterpreter,
+			IO io) {
+		
+		this.properties = properties;
+		this.strategyType = strategyType;
+		this.processService = processService;
+		this.pythonInterpreter = pythonInterpreter;
+		this.io = io;
+		
+		if( ! isSupported()) {
+			this.sessionScheduler = null;
+			this.idleSweep = null;
+			return;
+		}
+		
+		this.sessionScheduler = Schedulers.newBoundedElastic(
+				Math.max(1, properties.maxSessions()),
+				DEFAULT_BOUNDED_ELASTIC_QUEUESIZE,
+				"robot-session",
+				60,
+				true);
+		
+		Duration sweepInterval = properties.idleTimeout().dividedBy(2);
+		this.idleSweep = Flux.interval(sweepInterval.compareTo(MIN_SWEEP_INTERVAL) < 0 ? MIN_SWEEP_INTERVAL : sweepInterval)
+				.subscribe(_ -> stopIdleSessions());
+	}
+
+	private boolean isSupported() {
+		return properties.enabled()
+				&& strategyType.getType() == PythonRuntimeProperties.PythonRuntimeEnvironment.Python
+				&& ! System.getProperty("os.name").contains("Windows");
+	}
+
+	/// Run the function with the session for the key, starting one if there is none, or with the fallback strategy
+	/// when sessions are not enabled or no session can be started. Sessions are acquired on
+	/// [Schedulers#boundedElastic()], as starting one and stopping any it replaces both block, and callers may be on an
+	/// event loop. The session scheduler is not used, as its threads may all be taken by running zygotes.
+	///
+	/// @param sessionKey the workspace affinity key, executions without one never use a session
+	/// @param fallback the strategy to use when there is no session
+	/// @param fn the function to run with the strategy
+	<T> Mono<T> withSession(String sessionKey, RobotExecutionStrategy fallback, Function<RobotExecutionStrategy, Mono<T>> fn) {
+		if(sessionKey == null || ! isSupported())
+			return fn.apply(fallback);
+
+		return Mono.fromSupplier(() -> Optional.ofNullable(acquire(sessionKey)))
+				.subscribeOn(Schedulers.boundedElastic())
+				.flatMap(session -> session
+						.map(s -> Mono.usingWhen(
+								Mono.just(s),
+								it -> fn.apply(it.strategy),
+								it -> Mono.fromRunnable(() -> release(it))))
+						.orElseGet(() -> fn.apply(fallback)));
+	}
+
+	private Session acquire(String sessionKey) {
+		Map<String, Session> evicted = new HashMap<>();
+		try {
+			return doAcquire(sessionKey, evicted);
+		}
+		finally {
+			evicted.forEach(RobotSessionService::stop);
+		}
+	}
+
+	private Session doAcquire(String sessionKey, Map<String, Session> evicted) {
+		synchronized (sessions) {
+			Session session = sessions.get(sessionKey);
+			if(session == null) {
+				if(sessions.size() >= properties.maxSessions() && ! removeLeastRecentlyUsed(evicted)) {
+					log.atWarn()
+							.kv("session", sessionKey)
+							.kv("maxSessions", properties.maxSessions())
+							.log("All Robot sessions are busy, running without a session");
+					return null;
+				}
+
+				session = new Session(new ZygoteRobotExecutionStrategy(
+						processService,
+						pythonInterpreter.getObject(),
+						io,
+						RobotZygoteProperties.builder()
+								.enabled(true)
+								.poolSize(1)
+								.preloadModules(properties.preloadModules())
+								.build(),
+						sessionScheduler));
+				sessions.put(sessionKey, session);
+
+				log.atInfo()
+						.kv("session", sessionKey)
+						.log("Started Robot session");
+			}
+
+			session.active++;
+			return session;
+		}
+	}
+
+	private void release(Session session) {
+		synchronized (sessions) {
+			session.active--;
+			session.lastUsed = Instant.now();
+		}
+	}
+
+	private boolean removeLeastRecentlyUsed(Map<String, Session> evicted) {
+		return sessions.entrySet().stream()
+				.filter(kv -> kv.getValue().active == 0)
+				.min(Comparator.comparing(kv -> kv.getValue().lastUsed))
+				.map(Map.Entry::getKey)
+				.map(sessionKey -> {
+					evicted.put(sessionKey, sessions.remove(sessionKey));
+					return true;
+				})
+				.orElse(false);
+	}
+
+	private void stopIdleSessions() {
+		Instant idleSince = Instant.now().minus(properties.idleTimeout());
+		Map<String, Session> idle = new HashMap<>();
+		synchronized (sessions) {
+			sessions.entrySet().stream()
+					.filter(kv -> kv.getValue().active == 0 && kv.getValue().lastUsed.isBefore(idleSince))
+					.map(Map.Entry::getKey)
+					.toList()
+					.forEach(sessionKey -> idle.put(sessionKey, sessions.remove(sessionKey)));
+		}
+
+		idle.forEach(RobotSessionService::stop);
+	}
+
+	private static void stop(String sessionKey, Session session) {
+		log.atInfo()
+				.kv("session", sessionKey)
+				.log("Stopping Robot session");
+		
+		Try.run(session.strategy::destroy)
+				.onFailure(thrown -> log.atWarn()
+						.setCause(thrown)
+						.kv("session", sessionKey)
+						.log("Failed to stop Robot session"));
+	}
+
+	@Override
+	public void destroy() {
+		if(idleSweep != null) 
+			idleSweep.dispose();
+		
+		Map<String, Session> stopping;
+		synchronized (sessions) {
+			stopping = new HashMap<>(sessions);
+			sessions.clear();
+		}
+		stopping.forEach(RobotSessionService::stop);
+		
+		if(sessionScheduler != null)
+			sessionScheduler.dispose();
+	}
+}
@@ -0,0 +1,160 @@
+package io.camunda.rpa.worker.robot;
+
+/// A Python server which imports Robot Framework and any configured libraries once, and then forks a child for each 
+/// Robot execution, along with the small client which asks it to. 
+///
+/// The client is what the worker runs in place of `python -m robot`. It sends its working directory, environment and
+/// arguments to the zygote along with its standard streams, then waits for the child and exits with its exit code. 
+/// If the client is killed (when the execution times out, for example), the child and everything it started are 
+/// asked to stop, so that Robot can run its teardowns and listeners, and are killed if they have not stopped after the
+/// kill grace period. The child itself only stops when Robot does, so that it is still there to kill the rest.
+final class RobotZygote {
+
+	static final String SERVER_FILE_NAME = "RobotZygote.py";
+	static final String CLIENT_FILE_NAME = "RobotZygoteClient.py";
+
+	static final String SERVER_SOURCE = """
+			import importlib
+			import json
+			import os
+			import signal
+			import socket
+			import sys
+			import threading
+			import time
+			import traceback
+
+
+			def main(path, kill_grace_period, modules):
+			    for module in ["robot", *modules]:
+			        try:
+			            importlib.import_module(module)
+			        except Exception:
+			            traceback.print_exc()
+
+			    signal.signal(signal.SIGCHLD, signal.SIG_IGN)
+			    if os.path.exists(path):
+			        os.unlink(path)
+			    server = socket.socket(socket.AF_UNIX, socket.SOCK_STREAM)
+			    server.bind(path)
+			    server.listen()
+			    sys.stdout.flush()
+			    sys.stderr.flush()
+
+			    while True:
+			        conn, _ = server.accept()
+			        if os.fork() == 0:
+			            server.close()
+			            run(conn, kill_grace_period)
+			        conn.close()
+
+
+			def run(conn, kill_grace_period):
+			    rc = 255
+			    disconnected = threading.Event()
+			    watcher = threading.Thread(target=watch, args=(conn, kill_grace_period, disconnected), daemon=True)
+			    try:
+			        signal.signal(signal.SIGCHLD, signal.SIG_DFL)
+			        signal.signal(signal.SIGTERM, lambda *_: None)
+			        os.setsid()
+
+			        header, fds, _, _ = socket.recv_fds(conn, 8, 3)
+			        request = json.loads(receive(conn, int.from_bytes(header, "big")))
+			        for fd, target in zip(fds, (0, 1, 2)):
+			            os.dup2(fd, target)
+			            os.close(fd)
+
+			        os.chdir(request["cwd"])
+			        os.environ.clear()
+			        os.environ.update(request["env"])
+			        watcher.start()
+
+			        from robot import run_cli
+			        rc = run_cli(request["args"], exit=False)
+			    except SystemExit as e:
+			        rc = e.code if isinstance(e.code, int) else 255
+			    except BaseException:
+			        traceback.print_exc()
+			    finally:
+			        sys.stdout.flush()
+			        sys.stderr.flush()
+			        try:
+			            conn.sendall(rc.to_bytes(4, "big", signed=True))
+			        except OSError:
+			            pass
+			        finally:
+			            if disconnected.is_set():
+			                watcher.join()
+			            os._exit(rc)
+
+
+			def receive(conn, length):
+			    data = b""
+			    while len(data) < length:
+			        chunk = conn.recv(length - len(data))
+			        if not chunk:
+			            raise EOFError()
+			        data += chunk
+			    return data
+
+
+			def watch(conn, kill_grace_period, disconnected):
+			    try:
+			        while conn.recv(1):
+			            pass
+			    except OSError:
+			        pass
+			    disconnected.set()
+			    os.killpg(0, signal.SIGTERM)
+			    time.sleep(kill_grace_period)
+			    os.killpg(0, signal.SIGKILL)
+
+
+			if __name__ == "__main__":
+			    main(sys.argv[1], float(sys.argv[2]), sys.argv[3:])
+			""";
+
+	static final String CLIENT_SOURCE = """
+			import json
+			import os
+			import socket
+			import sys
+			import time
+
+
+			def main(path, args):
+			    conn = connect(path)
+			    request = json.dumps({"cwd": os.getcwd(), "env": dict(os.environ), "args": args}).encode()
+			    socket.send_fds(conn, [len(request).to_bytes(8, "big")], [0, 1, 2])
+			    conn.sendall(request)
+
+			    response = b""
+			    while len(response) < 4:
+			        chunk = conn.recv(4 - len(response))
+			        if not chunk:
+			            sys.exit(255)
+			        response += chunk
+			    sys.exit(int.from_bytes(response, "big", signed=True))
+
+
+			def connect(path):
+			    deadline = time.monotonic() + 120
+			    while True:
+			        conn = socket.socket(socket.AF_UNIX, socket.SOCK_STREAM)
+			        try:
+			            conn.connect(path)
+			            return conn
+			        except (FileNotFoundError, ConnectionRefusedError):
+			            conn.close()
+			            if time.monotonic() > deadline:
+			                print("Robot zygote is not available", file=sys.stderr)
+			                sys.exit(255)
+			            time.sleep(0.1)
+
+
+			if __name__ == "__main__":
+			    main(sys.argv[1], sys.argv[2:])
+			""";
+
+	private RobotZygote() { }
+}
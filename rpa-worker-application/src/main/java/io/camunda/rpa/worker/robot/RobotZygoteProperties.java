@@ -0,0 +1,13 @@
+package io.camunda.rpa.worker.robot;
+
+import lombok.Builder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+@Builder(toBuilder = true)
+@ConfigurationProperties("camunda.rpa.robot.zygote")
+record RobotZygoteProperties(
+		boolean enabled, 
+		int poolSize, 
+		List<String> preloadModules) { }
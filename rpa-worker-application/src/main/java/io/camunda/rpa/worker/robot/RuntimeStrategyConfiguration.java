@@ -3,11 +3,17 @@ package io.camunda.rpa.worker.robot;
 import io.camunda.rpa.worker.io.IO;
 import io.camunda.rpa.worker.pexec.ProcessService;
 import io.camunda.rpa.worker.python.PythonInterpreter;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import static reactor.core.scheduler.Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE;
 
 @Configuration
+@Slf4j
 class RuntimeStrategyConfiguration {
 	
 	@Bean
@@ -15,13 +21,40 @@ class RuntimeStrategyConfiguration {
 			ResolvedRobotExecutionStrategyType strategyType,
 			ProcessService processService,
 			ObjectProvider<PythonInterpreter> pythonInterpreter, 
-			IO io) {
+			IO io, 
+			RobotZygoteProperties zygoteProperties, 
+			Scheduler zygoteScheduler) {
 		
 		return switch(strategyType.getType()) {
-			case Python -> new PythonRobotExecutionStrategy(processService, pythonInterpreter.getObject());
+			case Python -> zygoteProperties.enabled() && supportsZygote()
+					? new ZygoteRobotExecutionStrategy(
+							processService, 
+							pythonInterpreter.getObject(), 
+							io, 
+							zygoteProperties, 
+							zygoteScheduler)
+					: new PythonRobotExecutionStrategy(processService, pythonInterpreter.getObject());
 			case Static -> new StaticRobotExecutionStrategy(processService, io);
 			default -> throw new IllegalStateException("Unexpected value: " + strategyType.getType());
 		};
 	}
 	
+	/// Runs the zygotes, and is disposed of along with the context so that zygotes are not restarted after shutdown
+	@Bean(destroyMethod = "dispose")
+	public Scheduler zygoteScheduler(RobotZygoteProperties zygoteProperties) {
+		return Schedulers.newBoundedElastic(
+				Math.max(1, zygoteProperties.poolSize()),
+				DEFAULT_BOUNDED_ELASTIC_QUEUESIZE,
+				"zygote",
+				60,
+				true);
+	}
+	
+	private static boolean supportsZygote() {
+		if( ! System.getProperty("os.name").contains("Windows")) 
+			return true;
+		
+		log.atWarn().log("Robot zygotes are not supported on Windows, Robot will be started for each execution");
+		return false;
+	}
 }
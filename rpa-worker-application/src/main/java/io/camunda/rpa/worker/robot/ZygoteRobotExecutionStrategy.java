@@ -0,0 +1,122 @@
+package io.camunda.rpa.worker.robot;
+
+import io.camunda.rpa.worker.io.IO;
+import io.camunda.rpa.worker.pexec.ExecutionCustomizer;
+import io.camunda.rpa.worker.pexec.ProcessService;
+import io.camunda.rpa.worker.python.PythonInterpreter;
+import io.vavr.control.Try;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+/// Runs Robot in children forked from a pool of warm zygote processes, which have already imported Robot Framework 
+/// and the configured libraries, rather than in a fresh interpreter each time. Executions are shared between the 
+/// zygotes in turn, and a zygote which exits is restarted. 
+///
+/// Each execution is still a process of its own (the zygote client), so the working directory, environment, 
+/// arguments, exit codes and timeout set by the [ExecutionCustomizer] apply just as they do for 
+/// [PythonRobotExecutionStrategy].
+///
+/// The Robot itself is forked from the zygote rather than started by the client, so is not a descendant of the 
+/// execution's process, and its resources cannot be sampled - no resources are reported for executions run this way.
+///
+/// The output of each zygote is captured to a log file in the runtime directory, which is started afresh whenever the 
+/// zygote is restarted.
+@Slf4j
+class ZygoteRobotExecutionStrategy implements RobotExecutionStrategy, DisposableBean {
+	
+	private static final Duration RESTART_DELAY = Duration.ofSeconds(1);
+
+	private final ProcessService processService;
+	private final PythonInterpreter pythonInterpreter;
+	private final IO io;
+	private final Path runtimeDir;
+	private final List<Path> sockets;
+	private final AtomicInteger next = new AtomicInteger();
+	private final Disposable zygotes;
+
+	ZygoteRobotExecutionStrategy(
+			ProcessService processService, 
+			PythonInterpreter pythonInterpreter, 
+			IO io, 
+			RobotZygoteProperties properties, 
+			Scheduler zygoteScheduler) {
+		
+		this.processService = processService;
+		this.pythonInterpreter = pythonInterpreter;
+		this.io = io;
+
+		runtimeDir = io.createTempDirectory("rpa-worker-zygote");
+		io.writeString(runtimeDir.resolve(RobotZygote.SERVER_FILE_NAME), RobotZygote.SERVER_SOURCE);
+		io.writeString(runtimeDir.resolve(RobotZygote.CLIENT_FILE_NAME), RobotZygote.CLIENT_SOURCE);
+
+		sockets = IntStream.range(0, Math.max(1, properties.poolSize()))
+				.mapToObj(i -> runtimeDir.resolve("zygote-%s.sock".formatted(i)))
+				.toList();
+
+		zygotes = Flux.range(0, sockets.size())
+				.flatMap(i -> runZygote(sockets.get(i), runtimeDir.resolve("zygote-%s.log".formatted(i)), properties.preloadModules(), zygoteScheduler))
+				.subscribe();
+	}
+
+	private Flux<ProcessService.ExecutionResult> runZygote(Path socket, Path outputFile, List<String> preloadModules, Scheduler zygoteScheduler) {
+		return Mono.defer(() -> processService.execute(pythonInterpreter.path(), c -> {
+							c.bindArg("zygoteServer", runtimeDir.resolve(RobotZygote.SERVER_FILE_NAME))
+									.bindArg("zygoteSocket", socket)
+									.arg(String.valueOf(processService.killGracePeriod().toMillis() / 1000.0))
+									.captureOutputTo(outputFile)
+									.inheritEnv()
+									.noFail()
+									.scheduleOn(zygoteScheduler);
+
+							if(preloadModules != null) 
+								preloadModules.forEach(c::arg);
+							return c;
+						}))
+				
+				.doOnNext(xr -> log.atWarn()
+						.kv("socket", socket)
+						.kv("exitCode", xr.exitCode())
+						.kv("stderr", xr.stderr())
+						.kv("output", outputFile)
+						.log("Robot zygote exited, restarting"))
+				
+				.repeatWhen(exits -> exits.delayElements(RESTART_DELAY));
+	}
+
+	@Override
+	public Mono<ProcessService.ExecutionResult> executeRobot(UnaryOperator<ExecutionCustomizer> customizer) {
+		Path socket = sockets.get(Math.floorMod(next.getAndIncrement(), sockets.size()));
+		return processService.execute(pythonInterpreter.path(), c -> customizer.apply(c
+				.arg("-S")
+				.bindArg("zygoteClient", runtimeDir.resolve(RobotZygote.CLIENT_FILE_NAME))
+				.bindArg("zygoteSocket", socket)
+		).sampleResources(false));
+	}
+
+	@Override
+	public boolean shouldCheck() {
+		return true;
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		zygotes.dispose();
+		Try.run(() -> io.deleteDirectoryRecursively(runtimeDir))
+				.onFailure(thrown -> log
+						.atError()
+						.setCause(thrown)
+						.kv("dir", runtimeDir)
+						.log("Failed to clean-up Robot zygote directory"));
+	}
+}
@@ -0,0 +1,8 @@
+package io.camunda.rpa.worker.workspace;
+
+import lombok.Builder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Builder(toBuilder = true)
+@ConfigurationProperties("camunda.rpa.workspace.events")
+record WorkspaceEventProperties(boolean enabled, int bufferSize) { }
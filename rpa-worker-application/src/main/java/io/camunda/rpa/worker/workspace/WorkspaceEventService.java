@@ -0,0 +1,76 @@
+package io.camunda.rpa.worker.workspace;
+
+import io.camunda.rpa.worker.robot.RobotExecutionListener;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/// Publishes what is happening in a workspace while a Robot runs in it - the lines of its output, and the suites, 
+/// tasks and keywords it starts and ends - to anyone following the workspace.
+///
+/// Events are not kept: followers only see what happens after they start following, and each has its own bounded
+/// buffer, from which the oldest events are dropped when the follower falls behind. The events of a workspace end
+/// once the Robot execution in it has finished.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WorkspaceEventService implements RobotExecutionListener {
+
+	/// @param type what happened, e.g. `stdout` or `keyword-start`
+	/// @param data the details of the event
+	public record WorkspaceEvent(String type, Object data) { }
+
+	private final WorkspaceEventProperties properties;
+	private final Map<String, Sinks.Many<WorkspaceEvent>> eventsByWorkspace = new ConcurrentHashMap<>();
+
+	public boolean isEnabled() {
+		return properties.enabled();
+	}
+
+	/// Publish an event to those following the workspace, if its Robot execution is still running.
+	///
+	/// @param workspace the workspace
+	/// @param type what happened
+	/// @param data the details of the event
+	public void publish(Workspace workspace, String type, Object data) {
+		Sinks.Many<WorkspaceEvent> events = eventsByWorkspace.get(workspace.id());
+		if(events == null) return;
+
+		events.emitNext(new WorkspaceEvent(type, data), Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+	}
+
+	/// Follow the events of the workspace.
+	///
+	/// @param workspaceId the ID of the workspace
+	/// @return the events of the workspace, until its Robot execution finishes, or empty if there is no execution 
+	/// running in the workspace
+	public Optional<Flux<WorkspaceEvent>> follow(String workspaceId) {
+		return Optional.ofNullable(eventsByWorkspace.get(workspaceId))
+				.map(events -> events.asFlux()
+						.onBackpressureBuffer(properties.bufferSize(), dropped -> log.atDebug()
+								.kv("workspace", workspaceId)
+								.kv("event", dropped.type())
+								.log("Dropped workspace event for slow follower"), BufferOverflowStrategy.DROP_OLDEST));
+	}
+
+	@Override
+	public void beforeScriptExecution(Workspace workspace, Duration timeout) {
+		if( ! isEnabled()) return;
+		eventsByWorkspace.computeIfAbsent(workspace.id(), _ -> Sinks.many().multicast().directBestEffort());
+	}
+
+	@Override
+	public void afterRobotExecution(Workspace workspace) {
+		Sinks.Many<WorkspaceEvent> events = eventsByWorkspace.remove(workspace.id());
+		if(events != null)
+			events.emitComplete(Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+	}
+}
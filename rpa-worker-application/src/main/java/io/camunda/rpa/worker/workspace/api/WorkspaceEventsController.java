@@ -0,0 +1,34 @@
+package io.camunda.rpa.worker.workspace.api;
+
+import io.camunda.rpa.worker.workspace.WorkspaceEventService;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Controller
+@RequestMapping("/workspace")
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+class WorkspaceEventsController {
+	
+	private final WorkspaceEventService workspaceEventService;
+
+	@GetMapping(value = "/{workspaceId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Mono<ResponseEntity<Flux<ServerSentEvent<Object>>>> getWorkspaceEvents(@PathVariable String workspaceId) {
+		return Mono.just(workspaceEventService.follow(workspaceId)
+				.map(events -> ResponseEntity.ok()
+						.contentType(MediaType.TEXT_EVENT_STREAM)
+						.body(events.map(event -> ServerSentEvent.builder()
+								.event(event.type())
+								.data(event.data())
+								.build())))
+				.orElseGet(() -> ResponseEntity.notFound().build()));
+	}
+}
@@ -0,0 +1,233 @@
+package io.camunda.rpa.worker.zeebe;
+
+import io.vavr.control.Try;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/// Tunes the number of jobs the worker runs at once between the configured minimum and
+/// `camunda.rpa.zeebe.max-concurrent-jobs`, using additive-increase/multiplicative-decrease.
+/// The limit is cut back whenever the host is overloaded - the CPU load per available CPU is too high, available
+/// memory is too low, or recent Robot runtimes of any job type have grown well beyond their long-run average - and is 
+/// otherwise grown by one at a time while the worker is making use of it. The runtimes of a job type which has not 
+/// run for a while are forgotten, so that a job type which has stopped arriving cannot hold the limit down.
+@Component
+@Slf4j
+class AdaptiveConcurrencyLimiter {
+
+	private static final Path CGROUP_CPU_MAX = Path.of("/sys/fs/cgroup/cpu.max");
+	private static final Path CGROUP_CPU_STAT = Path.of("/sys/fs/cgroup/cpu.stat");
+	private static final Path CGROUP_MEMORY_MAX = Path.of("/sys/fs/cgroup/memory.max");
+	private static final Path CGROUP_MEMORY_CURRENT = Path.of("/sys/fs/cgroup/memory.current");
+	private static final Path PROC_MEMINFO = Path.of("/proc/meminfo");
+
+	private static final double RECENT_LATENCY_WEIGHT = 0.3;
+	private static final double BASELINE_LATENCY_WEIGHT = 0.05;
+
+	/// @param loadAverage how many CPUs are busy, or a negative value if it is unavailable
+	/// @param cpus the number of CPUs available to the worker, taking into account any cgroup CPU quota
+	/// @param freeMemoryRatio the proportion of the memory available to the worker which is free
+	record HostLoad(double loadAverage, double cpus, double freeMemoryRatio) { }
+
+	/// Samples the load on the CPUs and memory the worker is allowed to use. Within a cgroup which has a CPU quota, 
+	/// the CPU time used by the cgroup since the last sample is compared with the quota, as the system load average 
+	/// counts every process on the host. Otherwise the system load average is compared with the host's CPUs. Memory 
+	/// is what is left under the cgroup memory limit when there is one, else what Linux reports as available (which 
+	/// counts the page cache as free, unlike the JVM's free memory), else what the JVM reports as free.
+	static class HostLoadProbe implements Supplier<HostLoad> {
+
+		private long lastCpuUsageMicros = -1;
+		private long lastSampledNanos;
+
+		@Override
+		public synchronized HostLoad get() {
+			Optional<Double> quota = cgroupCpuQuota();
+			return new HostLoad(
+					quota.isPresent() ? cgroupCpusBusy() : ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage(),
+					quota.orElse((double) Runtime.getRuntime().availableProcessors()),
+					freeMemoryRatio());
+		}
+
+		/// @return the average number of CPUs used by the cgroup since the last sample, or `-1` on the first sample
+		private double cgroupCpusBusy() {
+			long now = System.nanoTime();
+			long usage = Try.of(() -> Files.readAllLines(CGROUP_CPU_STAT))
+					.map(lines -> lines.stream()
+							.filter(line -> line.startsWith("usage_usec "))
+							.map(line -> Long.parseLong(line.substring("usage_usec ".length()).trim()))
+							.findFirst()
+							.orElse(-1L))
+					.getOrElse(-1L);
+
+			double busy = lastCpuUsageMicros >= 0 && usage >= 0 && now > lastSampledNanos
+					? (usage - lastCpuUsageMicros) * 1000.0 / (now - lastSampledNanos)
+					: -1;
+
+			lastCpuUsageMicros = usage;
+			lastSampledNanos = now;
+			return busy;
+		}
+
+		private static Optional<Double> cgroupCpuQuota() {
+			int processors = Runtime.getRuntime().availableProcessors();
+			return Try.of(() -> Files.readString(CGROUP_CPU_MAX).trim().split("\\s+"))
+					.filter(quotaAndPeriod -> quotaAndPeriod.length == 2 && ! quotaAndPeriod[0].equals("max"))
+					.map(quotaAndPeriod -> Double.parseDouble(quotaAndPeriod[0]) / Double.parseDouble(quotaAndPeriod[1]))
+					.map(quota -> Math.min(quota, processors))
+					.toJavaOptional();
+		}
+
+		private static double freeMemoryRatio() {
+			return Try.of(() -> {
+						long max = Long.parseLong(Files.readString(CGROUP_MEMORY_MAX).trim());
+						long current = Long.parseLong(Files.readString(CGROUP_MEMORY_CURRENT).trim());
+						return Math.max(0, max - current) / (double) max;
+					})
+					.orElse(() -> Try.of(() -> {
+						Map<String, Long> meminfo = Files.readAllLines(PROC_MEMINFO).stream()
+								.map(line -> line.split(":\\s*", 2))
+								.filter(parts -> parts.length == 2)
+								.collect(Collectors.toMap(
+										parts -> parts[0], 
+										parts -> Long.parseLong(parts[1].split("\\s+")[0]), 
+										(first, _) -> first));
+						return (double) meminfo.get("MemAvailable") / meminfo.get("MemTotal");
+					}))
+					.getOrElse(() -> ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os 
+							&& os.getTotalMemorySize() > 0
+							? (double) os.getFreeMemorySize() / os.getTotalMemorySize()
+							: 1.0);
+		}
+	}
+
+	/// Recent and long-run average runtimes of one job type, as different job types take very different lengths of 
+	/// time to run
+	private static class Latency {
+		private double recentMillis;
+		private double baselineMillis;
+		private long lastRecordedNanos;
+
+		void record(double millis) {
+			lastRecordedNanos = System.nanoTime();
+			if(baselineMillis == 0) {
+				recentMillis = millis;
+				baselineMillis = millis;
+				return;
+			}
+
+			recentMillis += RECENT_LATENCY_WEIGHT * (millis - recentMillis);
+			baselineMillis += BASELINE_LATENCY_WEIGHT * (millis - baselineMillis);
+		}
+
+		boolean isRising(double tolerance) {
+			return baselineMillis > 0 && recentMillis > baselineMillis * tolerance;
+		}
+
+		boolean isStale(Duration expiry, long now) {
+			return expiry != null && expiry.isPositive() && now - lastRecordedNanos > expiry.toNanos();
+		}
+	}
+
+	private final ZeebePollingProperties pollingProperties;
+	private final ZeebeMetricsService zeebeMetricsService;
+	private final Supplier<HostLoad> hostLoad;
+	private final int minLimit;
+	private final int maxLimit;
+
+	private final Map<String, Latency> latencies = new HashMap<>();
+
+	private int limit;
+
+	@Autowired
+	AdaptiveConcurrencyLimiter(ZeebeProperties zeebeProperties, ZeebePollingProperties pollingProperties, ZeebeMetricsService zeebeMetricsService) {
+		this(zeebeProperties, pollingProperties, zeebeMetricsService, new HostLoadProbe());
+	}
+
+	AdaptiveConcurrencyLimiter(
+			ZeebeProperties zeebeProperties,
+			ZeebePollingProperties pollingProperties,
+			ZeebeMetricsService zeebeMetricsService,
+			Supplier<HostLoad> hostLoad) {
+
+		this.pollingProperties = pollingProperties;
+		this.zeebeMetricsService = zeebeMetricsService;
+		this.hostLoad = hostLoad;
+		this.maxLimit = zeebeProperties.maxConcurrentJobs();
+		this.minLimit = Math.clamp(pollingProperties.adaptiveConcurrencyMinJobs(), 1, maxLimit);
+		this.limit = isEnabled() ? minLimit : maxLimit;
+		
+		if(isEnabled()) zeebeMetricsService.onConcurrencyLimitChanged(limit);
+	}
+
+	boolean isEnabled() {
+		return pollingProperties.adaptiveConcurrencyEnabled();
+	}
+
+	synchronized int limit() {
+		return limit;
+	}
+
+	/// Record how long the Robot processes of a job took to run, which feeds the latency signal for its job type. 
+	/// Anything else the job spends its time on, such as fetching its script or reporting its results, is left out.
+	///
+	/// @param jobType the type of the job
+	/// @param runtime how long the job's Robot processes ran
+	synchronized void onJobFinished(String jobType, Duration runtime) {
+		latencies.computeIfAbsent(jobType, _ -> new Latency()).record(runtime.toMillis());
+	}
+
+	/// Recalculate the limit from the current state of the host.
+	///
+	/// @param inFlight how many jobs are running now
+	/// @return The new limit
+	int adjust(int inFlight) {
+		HostLoad load = hostLoad.get();
+
+		int previous;
+		int next;
+		synchronized (this) {
+			previous = limit;
+			if(isOverloaded(load))
+				limit = Math.max(minLimit, Math.min(limit - 1, (int) (limit * pollingProperties.adaptiveConcurrencyDecreaseRatio())));
+			else if(inFlight * 2 >= limit)
+				limit = Math.min(maxLimit, limit + 1);
+			next = limit;
+		}
+
+		if(next != previous) {
+			log.atDebug()
+					.kv("previous", previous)
+					.kv("limit", next)
+					.kv("load", load)
+					.log("Adjusted concurrent job limit");
+			zeebeMetricsService.onConcurrencyLimitChanged(next);
+		}
+
+		return next;
+	}
+
+	private boolean isOverloaded(HostLoad load) {
+		boolean cpuOverloaded = load.loadAverage() >= 0
+				&& load.cpus() > 0
+				&& load.loadAverage() / load.cpus() > pollingProperties.adaptiveConcurrencyMaxLoadPerCpu();
+
+		boolean memoryShort = load.freeMemoryRatio() < pollingProperties.adaptiveConcurrencyMinFreeMemory();
+
+		long now = System.nanoTime();
+		latencies.values().removeIf(latency -> latency.isStale(pollingProperties.adaptiveConcurrencyLatencyExpiry(), now));
+		boolean latencyRising = latencies.values().stream()
+				.anyMatch(latency -> latency.isRising(pollingProperties.adaptiveConcurrencyLatencyTolerance()));
+
+		return cpuOverloaded || memoryShort || latencyRising;
+	}
+}
@@ -0,0 +1,313 @@
+package io.camunda.rpa.worker.zeebe;
+
+import io.camunda.client.CamundaClient;
+import io.camunda.client.api.command.FinalCommandStep;
+import io.camunda.client.api.response.ActivatedJob;
+import io.camunda.client.spring.configuration.condition.ConditionalOnCamundaClientEnabled;
+import io.camunda.rpa.worker.io.IO;
+import io.vavr.control.Try;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/// An append-only local journal of the jobs the worker has started and the results it has still to report to Zeebe.
+///
+/// Results are recorded before they are sent, and are retried with backoff until Zeebe accepts them (or the job is
+/// found to no longer exist), so that the work of a Robot is not lost when the gateway cannot be reached. When the
+/// worker starts, any results which were never reported are sent again, and jobs which were still running when the
+/// worker stopped are failed straight away (keeping their retries) rather than waiting out their timeout. Each time a
+/// job's timeout is pushed back its new deadline is recorded, and jobs whose latest deadline has already passed are 
+/// left alone, and their results discarded, as Zeebe may have handed them to another worker.
+///
+/// Entries are written in order on a dedicated thread, so that callers never wait on the file, and each is synced to
+/// storage before the next is written - a result is only safe from a crash of the host once it has been written. A
+/// line left incomplete by a crash is skipped when the journal is read. Once enough entries have been written, the
+/// journal is compacted to hold only the jobs which are still running or still to be reported.
+///
+/// When the journal is disabled, results are sent once without being recorded.
+@Component
+@Slf4j
+@ConditionalOnCamundaClientEnabled
+class JobJournal implements ApplicationListener<ZeebeReadyEvent> {
+
+	static final String JOURNAL_FILE_NAME = "jobs.journal";
+
+	private static final String ORPHANED = "The worker stopped while the job was running";
+
+	enum EntryType { STARTED, EXTENDED, RESULT, REPORTED }
+
+	/// @param jobKey the key of the job
+	/// @param type what happened to the job
+	/// @param retries the job's retries when it was started
+	/// @param deadline the job's deadline, as last known when the entry was written
+	/// @param result the result to report, for `RESULT` entries
+	record Entry(long jobKey, EntryType type, int retries, long deadline, Result result) {
+
+		Entry withDeadline(long deadline) {
+			return new Entry(jobKey, type, retries, deadline, result);
+		}
+	}
+
+	/// @param success whether the job is to be completed (or failed)
+	/// @param variables the variables to complete the job with, if any
+	/// @param retries the retries to fail the job with
+	/// @param errorMessage the message to fail the job with
+	record Result(boolean success, Map<String, Object> variables, int retries, String errorMessage) {
+
+		static Result complete(Map<String, Object> variables) {
+			return new Result(true, variables, 0, null);
+		}
+
+		static Result fail(int retries, String errorMessage) {
+			return new Result(false, null, retries, errorMessage);
+		}
+
+		FinalCommandStep<?> toCommand(CamundaClient zeebeClient, long jobKey) {
+			if( ! success)
+				return zeebeClient.newFailCommand(jobKey)
+						.retries(retries)
+						.errorMessage(errorMessage);
+
+			return variables != null
+					? zeebeClient.newCompleteCommand(jobKey).variables(variables)
+					: zeebeClient.newCompleteCommand(jobKey);
+		}
+	}
+
+	private final ZeebeJobProperties jobProperties;
+	private final CamundaClient zeebeClient;
+	private final IO io;
+	private final ObjectMapper objectMapper;
+	private final Path journalFile;
+	private final Scheduler writer;
+
+	private final Set<Long> unreported = ConcurrentHashMap.newKeySet();
+	private final Sinks.Empty<Void> stopped = Sinks.empty();
+	private int writtenSinceCompaction;
+
+	@Autowired
+	JobJournal(ZeebeJobProperties jobProperties, CamundaClient zeebeClient, IO io, ObjectMapper objectMapper) {
+		this(jobProperties, zeebeClient, io, objectMapper, jobProperties.journalEnabled() 
+				? Schedulers.newSingle("job-journal") 
+				: null);
+	}
+
+	JobJournal(ZeebeJobProperties jobProperties, CamundaClient zeebeClient, IO io, ObjectMapper objectMapper, Scheduler writer) {
+		this.jobProperties = jobProperties;
+		this.writer = writer;
+		this.zeebeClient = zeebeClient;
+		this.io = io;
+		this.objectMapper = objectMapper;
+		this.journalFile = jobProperties.journalEnabled()
+				? jobProperties.journalPath().resolve(JOURNAL_FILE_NAME)
+				: null;
+	}
+
+	boolean isEnabled() {
+		return jobProperties.journalEnabled();
+	}
+
+	@Override
+	public void onApplicationEvent(ZeebeReadyEvent ignored) {
+		recover();
+	}
+
+	/// Record that the job has started running.
+	///
+	/// @param job the job
+	void onStarted(ActivatedJob job) {
+		if( ! isEnabled()) return;
+		append(new Entry(job.getKey(), EntryType.STARTED, job.getRetries(), job.getDeadline(), null));
+	}
+
+	/// Record that the job's timeout has been pushed back, so that it is not taken to have expired when the worker is 
+	/// restarted.
+	///
+	/// @param job the job
+	/// @param timeout the job's new timeout, from now
+	void onTimeoutUpdated(ActivatedJob job, Duration timeout) {
+		if( ! isEnabled()) return;
+		append(new Entry(job.getKey(), EntryType.EXTENDED, job.getRetries(), System.currentTimeMillis() + timeout.toMillis(), null));
+	}
+
+	/// Record that the job is no longer running. Unless a result was submitted for it, which will be reported in its
+	/// own time, nothing further needs to be done for the job if the worker is restarted.
+	///
+	/// @param job the job
+	void onFinished(ActivatedJob job) {
+		if( ! isEnabled() || unreported.contains(job.getKey())) return;
+		append(new Entry(job.getKey(), EntryType.REPORTED, job.getRetries(), job.getDeadline(), null));
+	}
+
+	/// Report the result of the job to Zeebe, retrying until it is accepted when the journal is enabled.
+	///
+	/// @param job the job
+	/// @param result the result, as recorded in the journal
+	/// @param command the command which reports the result
+	void submit(ActivatedJob job, Result result, FinalCommandStep<?> command) {
+		if( ! isEnabled()) {
+			command.send();
+			return;
+		}
+
+		unreported.add(job.getKey());
+		append(new Entry(job.getKey(), EntryType.RESULT, job.getRetries(), job.getDeadline(), result));
+		flush(job.getKey(), command);
+	}
+
+	/// Send every result which was never reported, and fail every job which was still running, when the worker was
+	/// last stopped, unless the job's deadline has since passed. The journal is rewritten to hold only what is still to
+	/// be reported.
+	void recover() {
+		if( ! isEnabled()) return;
+
+		Collection<Entry> pending;
+		List<Long> expired;
+		synchronized (this) {
+			if(io.notExists(journalFile)) return;
+
+			Collection<Entry> latest = read().values();
+			long now = System.currentTimeMillis();
+			pending = latest.stream()
+					.filter(entry -> entry.deadline() > now)
+					.map(entry -> entry.type() == EntryType.STARTED
+							? new Entry(entry.jobKey(), EntryType.RESULT, entry.retries(), entry.deadline(), Result.fail(entry.retries(), ORPHANED))
+							: entry)
+					.toList();
+			expired = latest.stream()
+					.filter(entry -> entry.type() == EntryType.RESULT && entry.deadline() <= now)
+					.map(Entry::jobKey)
+					.toList();
+
+			rewrite(pending);
+		}
+
+		if( ! expired.isEmpty())
+			log.atWarn()
+					.kv("jobs", expired)
+					.log("Discarding results recovered from the job journal whose deadline has passed");
+
+		if( ! pending.isEmpty())
+			log.atInfo()
+					.kv("jobs", pending.stream().map(Entry::jobKey).toList())
+					.log("Reporting results recovered from the job journal");
+
+		pending.forEach(entry -> {
+			unreported.add(entry.jobKey());
+			flush(entry.jobKey(), entry.result().toCommand(zeebeClient, entry.jobKey()));
+		});
+	}
+
+	private void flush(long jobKey, FinalCommandStep<?> command) {
+		Mono.defer(() -> Mono.fromCompletionStage(command.send()))
+				.doOnError(ZeebeJobService.isJobGone.negate(), thrown -> log.atWarn()
+						.kv("job", jobKey)
+						.setCause(thrown)
+						.log("Failed to report job result, will retry"))
+				.retryWhen(Retry.backoff(Long.MAX_VALUE, jobProperties.resultRetryBackoff())
+						.maxBackoff(jobProperties.resultRetryMaxBackoff())
+						.filter(ZeebeJobService.isJobGone.negate()))
+				.doOnError(thrown -> log.atWarn()
+						.kv("job", jobKey)
+						.log("Job no longer exists in Zeebe, discarding its result"))
+				.onErrorComplete()
+				.doOnSuccess(_ -> {
+					unreported.remove(jobKey);
+					append(new Entry(jobKey, EntryType.REPORTED, 0, 0, null));
+				})
+				.takeUntilOther(stopped.asMono())
+				.subscribe();
+	}
+
+	private void append(Entry entry) {
+		try {
+			writer.schedule(() -> write(entry));
+		} catch (RejectedExecutionException ignored) {
+			log.atDebug()
+					.kv("job", entry.jobKey())
+					.log("Job journal has been closed, entry will not be written");
+		}
+	}
+
+	private synchronized void write(Entry entry) {
+		try {
+			io.createDirectories(journalFile.getParent());
+			io.writeString(journalFile, objectMapper.writeValueAsString(entry) + "\n",
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+
+			int threshold = jobProperties.journalCompactionThreshold();
+			if(threshold > 0 && ++writtenSinceCompaction >= threshold)
+				rewrite(read().values());
+		} catch (Exception ex) {
+			log.atError()
+					.kv("job", entry.jobKey())
+					.setCause(ex)
+					.log("Failed to write to the job journal");
+		}
+	}
+
+	/// @return The latest entry of every job which is still running or still to be reported, in journal order, with 
+	/// its latest deadline
+	private Map<Long, Entry> read() {
+		Map<Long, Entry> latest = new LinkedHashMap<>();
+		io.readString(journalFile).lines()
+				.filter(line -> ! line.isBlank())
+				.flatMap(line -> Try.of(() -> objectMapper.readValue(line, Entry.class))
+						.onFailure(thrown -> log.atWarn()
+								.setCause(thrown)
+								.log("Skipping unreadable job journal entry"))
+						.toJavaStream())
+				.forEach(entry -> {
+					switch (entry.type()) {
+						case REPORTED -> latest.remove(entry.jobKey());
+						case EXTENDED -> latest.computeIfPresent(entry.jobKey(), (_, previous) -> 
+								previous.withDeadline(Math.max(previous.deadline(), entry.deadline())));
+						default -> latest.merge(entry.jobKey(), entry, (previous, next) ->
+								(previous.type() == EntryType.RESULT ? previous : next)
+										.withDeadline(Math.max(previous.deadline(), next.deadline())));
+					}
+				});
+		return latest;
+	}
+
+	private void rewrite(Collection<Entry> entries) {
+		io.writeString(journalFile, entries.stream()
+				.map(objectMapper::writeValueAsString)
+				.map(line -> line + "\n")
+				.collect(Collectors.joining()),
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.DSYNC);
+		writtenSinceCompaction = 0;
+	}
+
+	/// Results still waiting to be reported stay in the journal, to be sent when the worker is next started.
+	@PreDestroy
+	void shutdown() {
+		stopped.tryEmitEmpty();
+		if(writer == null) return;
+		
+		writer.disposeGracefully()
+				.timeout(Duration.ofSeconds(5))
+				.onErrorComplete()
+				.block();
+	}
+}
@@ -0,0 +1,207 @@
+package io.camunda.rpa.worker.zeebe;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/// Tracks the execution slots available to the {@link ZeebeJobPoller}.
+/// A slot is reserved when a job is taken from the {@link ReadyQueue} to be run, and is released when the job has
+/// finished (or has handed its slot on for post-processing).
+///
+/// Each job type may be limited to a maximum number of slots, may have slots held back for it which other job types
+/// cannot use, and has a weight. When slots are released, waiting job types which have not yet been given their held
+/// back slots are served first, followed by the job type using the fewest slots relative to its weight.
+class JobSlots {
+
+	private static final ZeebePollingProperties.TagLimits NO_LIMITS = new ZeebePollingProperties.TagLimits(0, 0, 1);
+
+	private record Waiter(String jobType, int max, MonoSink<Integer> sink) { }
+
+	private record Grant(Waiter waiter, int reserved) { }
+
+	private int capacity;
+	private final Map<String, ZeebePollingProperties.TagLimits> limits;
+	private final List<Waiter> waiters = new LinkedList<>();
+	private final Map<String, Integer> usedByJobType = new HashMap<>();
+	private final Sinks.Many<Boolean> changes = Sinks.many().multicast().directBestEffort();
+	private int used;
+
+	JobSlots(int capacity) {
+		this(capacity, Collections.emptyMap());
+	}
+
+	JobSlots(int capacity, Map<String, ZeebePollingProperties.TagLimits> limits) {
+		this.capacity = capacity;
+		this.limits = limits;
+	}
+
+	/// Reserve up to `max` slots, waiting until at least one is free.
+	///
+	/// @param jobType the job type the slots will be used for
+	/// @param max the maximum number of slots to reserve
+	/// @return A Mono emitting the number of slots actually reserved, always at least 1
+	Mono<Integer> reserve(String jobType, int max) {
+		return Mono.create(sink -> {
+			Waiter waiter = new Waiter(jobType, max, sink);
+			sink.onCancel(() -> {
+				synchronized (this) {
+					waiters.remove(waiter);
+				}
+			});
+
+			int reserved;
+			synchronized (this) {
+				reserved = doReserve(jobType, max);
+				if(reserved == 0) waiters.add(waiter);
+			}
+
+			if(reserved > 0) {
+				sink.success(reserved);
+				signalChange();
+			}
+		});
+	}
+
+	/// Reserve up to `max` slots, without waiting.
+	///
+	/// @param jobType the job type the slots will be used for
+	/// @param max the maximum number of slots to reserve
+	/// @return The number of slots reserved, which is 0 if none were free
+	int tryReserve(String jobType, int max) {
+		int reserved;
+		synchronized (this) {
+			reserved = doReserve(jobType, max);
+		}
+
+		if(reserved > 0) signalChange();
+		return reserved;
+	}
+
+	/// Release previously reserved slots, handing them on to any waiting reservations.
+	///
+	/// @param jobType the job type the slots were reserved for
+	/// @param count the number of slots to release
+	void release(String jobType, int count) {
+		if(count <= 0) return;
+
+		List<Grant> grants;
+		synchronized (this) {
+			used = Math.max(0, used - count);
+			usedByJobType.computeIfPresent(jobType, (_, u) -> u - count > 0 ? u - count : null);
+			grants = grantWaiters();
+		}
+
+		grants.forEach(g -> g.waiter().sink().success(g.reserved()));
+		signalChange();
+	}
+
+	/// Change the total number of slots. When the capacity shrinks below the number of slots in use, no further slots
+	/// are handed out until enough have been released.
+	///
+	/// @param capacity the new total number of slots
+	void resize(int capacity) {
+		List<Grant> grants;
+		synchronized (this) {
+			if(this.capacity == capacity) return;
+			this.capacity = capacity;
+			grants = grantWaiters();
+		}
+
+		grants.forEach(g -> g.waiter().sink().success(g.reserved()));
+		signalChange();
+	}
+
+	synchronized int capacity() {
+		return capacity;
+	}
+
+	synchronized int used() {
+		return used;
+	}
+
+	synchronized int available() {
+		return Math.max(0, capacity - used);
+	}
+
+	/// @param jobType the job type
+	/// @return How many slots could be reserved right now for the job type, taking into account its own limit and any
+	/// slots held back for other job types
+	synchronized int available(String jobType) {
+		ZeebePollingProperties.TagLimits jobTypeLimits = limitsFor(jobType);
+		int usedByThis = usedBy(jobType);
+
+		int heldForOthers = limits.entrySet().stream()
+				.filter(kv -> ! kv.getKey().equals(jobType))
+				.mapToInt(kv -> Math.max(0, kv.getValue().reservedJobs() - usedBy(kv.getKey())))
+				.sum();
+
+		int free = capacity - used - heldForOthers;
+		int freeForThis = jobTypeLimits.maxConcurrentJobs() > 0
+				? jobTypeLimits.maxConcurrentJobs() - usedByThis
+				: Integer.MAX_VALUE;
+
+		return Math.max(0, Math.min(free, freeForThis));
+	}
+
+	/// @param jobType the job type
+	/// @return A Flux signalling whether any slots are free for the job type, emitting the current state on
+	/// subscription and then again each time it changes
+	Flux<Boolean> hasCapacity(String jobType) {
+		return Flux.merge(changes.asFlux(), Flux.just(true))
+				.map(_ -> available(jobType) > 0)
+				.distinctUntilChanged();
+	}
+
+	/// @return A Mono which completes the next time any slot is reserved or released
+	Mono<Void> nextChange() {
+		return changes.asFlux().next().then();
+	}
+
+	private List<Grant> grantWaiters() {
+		List<Grant> grants = new ArrayList<>();
+		for(Optional<Waiter> next = nextWaiter(); next.isPresent(); next = nextWaiter()) {
+			Waiter waiter = next.get();
+			waiters.remove(waiter);
+			grants.add(new Grant(waiter, doReserve(waiter.jobType(), waiter.max())));
+		}
+		return grants;
+	}
+
+	private Optional<Waiter> nextWaiter() {
+		return waiters.stream()
+				.filter(w -> available(w.jobType()) > 0)
+				.min(Comparator
+						.comparingInt((Waiter w) -> usedBy(w.jobType()) < limitsFor(w.jobType()).reservedJobs() ? 0 : 1)
+						.thenComparingDouble(w -> (double) usedBy(w.jobType()) / Math.max(1, limitsFor(w.jobType()).weight())));
+	}
+
+	private void signalChange() {
+		changes.emitNext(true, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+	}
+
+	private int doReserve(String jobType, int max) {
+		int reserved = Math.min(available(jobType), max);
+		used += reserved;
+		if(reserved > 0) usedByJobType.merge(jobType, reserved, Integer::sum);
+		return reserved;
+	}
+
+	private int usedBy(String jobType) {
+		return usedByJobType.getOrDefault(jobType, 0);
+	}
+
+	private ZeebePollingProperties.TagLimits limitsFor(String jobType) {
+		return limits.getOrDefault(jobType, NO_LIMITS);
+	}
+}
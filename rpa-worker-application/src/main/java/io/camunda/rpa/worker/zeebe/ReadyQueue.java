@@ -0,0 +1,137 @@
+package io.camunda.rpa.worker.zeebe;
+
+import io.camunda.client.api.response.ActivatedJob;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/// Holds activated jobs until a slot is free for them, handing them to free slots in run order - whichever tag or
+/// activation they came from - rather than in the order they arrived.
+///
+/// Jobs may be activated for as many slots as are free, plus up to `size` more which wait here. Space is claimed
+/// before the jobs are activated, so that activations running at the same time cannot overfill the queue.
+class ReadyQueue {
+
+	/// @param jobType the job type the job was activated for
+	/// @param job the job
+	record Entry(String jobType, ActivatedJob job) { }
+
+	private final JobSlots jobSlots;
+	private final int size;
+	private final Comparator<Entry> runOrder;
+	private final List<Entry> queued = new ArrayList<>();
+	private final List<Entry> taking = new ArrayList<>();
+	private final Sinks.Many<Boolean> changes = Sinks.many().multicast().directBestEffort();
+	private int claimed;
+
+	ReadyQueue(JobSlots jobSlots, int size, Comparator<ActivatedJob> runOrder) {
+		this.jobSlots = jobSlots;
+		this.size = Math.max(0, size);
+		this.runOrder = Comparator.comparing(Entry::job, runOrder);
+	}
+
+	/// @param jobType the job type
+	/// @return How many jobs of the job type could be activated right now
+	synchronized int space(String jobType) {
+		return Math.max(0, jobSlots.available(jobType) + size - queued() - claimed);
+	}
+
+	/// @return How many jobs of any type could be activated right now
+	synchronized int space() {
+		return Math.max(0, jobSlots.available() + size - queued() - claimed);
+	}
+
+	/// Claim space for jobs which are about to be activated, without waiting.
+	///
+	/// @param jobType the job type which will be activated
+	/// @param max the most jobs which will be activated
+	/// @return How much space was claimed, which is 0 if there was none
+	synchronized int claim(String jobType, int max) {
+		int claim = Math.min(space(jobType), max);
+		claimed += claim;
+		return claim;
+	}
+
+	/// Queue activated jobs, giving up the space claimed for them.
+	///
+	/// @param jobType the job type the jobs were activated for
+	/// @param claim the space which was claimed for the activation
+	/// @param jobs the jobs which were activated, which may be fewer than were claimed for
+	void offer(String jobType, int claim, List<ActivatedJob> jobs) {
+		synchronized (this) {
+			claimed = Math.max(0, claimed - claim);
+			jobs.forEach(job -> queued.add(new Entry(jobType, job)));
+		}
+		signalChange();
+	}
+
+	/// Take jobs from the queue in run order, for as long as they can be started.
+	///
+	/// The jobs are set aside while they are offered, rather than offered under the queue's lock, as starting a job 
+	/// signals [JobSlots] subscribers which may themselves ask the queue for space. Jobs set aside still count as 
+	/// queued. Only one thread may take at a time.
+	///
+	/// @param start starts the job, or returns `null` if it cannot be started yet - jobs which cannot be started are
+	/// left in the queue, and those after them are still offered
+	/// @return Whatever was returned for each job which was taken
+	<T> List<T> take(Function<Entry, T> start) {
+		List<Entry> offered;
+		synchronized (this) {
+			offered = queued.stream().sorted(runOrder).toList();
+			queued.clear();
+			taking.addAll(offered);
+		}
+
+		List<T> taken = new ArrayList<>();
+		List<Entry> left = new ArrayList<>();
+		try {
+			for(Entry entry : offered) {
+				T started = start.apply(entry);
+				if(started != null)
+					taken.add(started);
+				else
+					left.add(entry);
+			}
+		}
+		finally {
+			synchronized (this) {
+				taking.clear();
+				queued.addAll(left);
+				queued.addAll(offered.subList(taken.size() + left.size(), offered.size()));
+			}
+		}
+
+		if( ! taken.isEmpty()) signalChange();
+		return taken;
+	}
+
+	/// @return Every job in the queue, which is left empty
+	List<ActivatedJob> drain() {
+		List<ActivatedJob> drained;
+		synchronized (this) {
+			drained = queued.stream().map(Entry::job).toList();
+			queued.clear();
+		}
+
+		signalChange();
+		return drained;
+	}
+
+	synchronized int queued() {
+		return queued.size() + taking.size();
+	}
+
+	/// @return A Mono which completes the next time jobs are queued or taken, or claimed space is given up
+	Mono<Void> nextChange() {
+		return changes.asFlux().next().then();
+	}
+
+	private void signalChange() {
+		changes.emitNext(true, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+	}
+}
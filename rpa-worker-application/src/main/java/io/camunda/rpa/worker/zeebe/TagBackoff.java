@@ -0,0 +1,80 @@
+package io.camunda.rpa.worker.zeebe;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/// Tracks how long each job type should be left alone after polling it returned no jobs.
+/// Each consecutive empty poll multiplies the delay for that job type, up to a maximum, and the delay is reset as soon
+/// as a poll returns a job.
+class TagBackoff {
+
+	private record State(int emptyPolls, Instant nextPollAt) { }
+
+	private final Duration initial;
+	private final Duration max;
+	private final double multiplier;
+	private final Clock clock;
+
+	private final Map<String, State> states = new ConcurrentHashMap<>();
+
+	TagBackoff(Duration initial, Duration max, double multiplier) {
+		this(initial, max, multiplier, Clock.systemUTC());
+	}
+
+	TagBackoff(Duration initial, Duration max, double multiplier, Clock clock) {
+		this.initial = initial;
+		this.max = max;
+		this.multiplier = multiplier;
+		this.clock = clock;
+	}
+
+	static TagBackoff disabled() {
+		return new TagBackoff(Duration.ZERO, Duration.ZERO, 1);
+	}
+
+	/// Record that a poll returned no jobs, pushing back the next poll for the job type.
+	///
+	/// @param jobType the job type that was polled
+	/// @param minimum the minimum delay to apply, regardless of how many empty polls there have been
+	void onEmptyPoll(String jobType, Duration minimum) {
+		states.compute(jobType, (_, state) -> {
+			int emptyPolls = state == null ? 1 : state.emptyPolls() + 1;
+			Duration delay = delayFor(emptyPolls);
+			return new State(emptyPolls, clock.instant().plus(delay.compareTo(minimum) < 0 ? minimum : delay));
+		});
+	}
+
+	void onJobs(String jobType) {
+		states.remove(jobType);
+	}
+
+	boolean isEligible(String jobType) {
+		return remaining(jobType).isZero();
+	}
+
+	Duration remaining(String jobType) {
+		State state = states.get(jobType);
+		if(state == null) return Duration.ZERO;
+
+		Duration remaining = Duration.between(clock.instant(), state.nextPollAt());
+		return remaining.isNegative() ? Duration.ZERO : remaining;
+	}
+
+	/// @return How long until the next job type becomes eligible for polling
+	Duration nextEligible() {
+		return states.keySet().stream()
+				.map(this::remaining)
+				.min(Duration::compareTo)
+				.orElse(Duration.ZERO);
+	}
+
+	private Duration delayFor(int emptyPolls) {
+		double delayMillis = initial.toMillis() * Math.pow(multiplier, emptyPolls - 1);
+		return delayMillis >= max.toMillis()
+				? max
+				: Duration.ofMillis((long) delayMillis);
+	}
+}
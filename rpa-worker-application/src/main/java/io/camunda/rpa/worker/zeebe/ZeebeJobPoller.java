@@ -1,13 +1,18 @@
 package io.camunda.rpa.worker.zeebe;
 
 import io.camunda.client.CamundaClient;
+import io.camunda.client.api.CamundaFuture;
+import io.camunda.client.api.command.ActivateJobsCommandStep1;
+import io.camunda.client.api.command.StreamJobsCommandStep1;
 import io.camunda.client.api.response.ActivateJobsResponse;
+import io.camunda.client.api.response.ActivatedJob;
+import io.camunda.client.api.response.StreamJobsResponse;
 import io.camunda.client.spring.configuration.condition.ConditionalOnCamundaClientEnabled;
 import io.camunda.rpa.worker.util.LoopingListIterator;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import io.vavr.control.Try;
 import jakarta.annotation.PreDestroy;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationListener;
@@ -15,49 +20,146 @@ import org.springframework.stereotype.Component;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 @Slf4j
-@RequiredArgsConstructor
 @ConditionalOnCamundaClientEnabled
 class ZeebeJobPoller implements ApplicationListener<ZeebeReadyEvent> {
 
 	static final Duration JOB_POLL_TIME = Duration.ofMillis(200);
 	
 	private static final Supplier<Mono<?>> DEFAULT_DELAY_GENERATOR = () -> Mono.delay(Duration.ofSeconds(10));
+	
+	private static final Duration HAND_BACK_TIMEOUT = Duration.ofSeconds(10);
+	
+	/// Fetched for every job when fetched variables are restricted, along with any configured for the job's tag
+	private static final List<String> REQUIRED_VARIABLES = List.of(
+			ZeebeJobService.RPA_INPUT_VARIABLE_NAME,
+			TaskTestingZeebeResultsProcessor.TASK_TESTING_VARIABLE_NAME);
+	
+	private static final String NO_CAPACITY = "The worker has no free capacity";
+	private static final String SHUTTING_DOWN = "The worker is shutting down";
+	private static final String TOO_CLOSE_TO_DEADLINE = "The job is too close to its deadline to be run";
+
+	static final String PRIORITY_HEADER_NAME = "camunda::priority";
+
+	/// Jobs with a higher priority header run first, then those with the earliest deadline
+	private static final Comparator<ActivatedJob> RUN_ORDER = Comparator
+			.comparingInt(ZeebeJobPoller::priorityOf).reversed()
+			.thenComparingLong(ActivatedJob::getDeadline);
+
+	private enum JobPhase { RUNNING, POST_PROCESSING, FINISHED }
+
+	/// A job taken from the ready queue, to be run if there is no reason to hand it back
+	private record Ready(String jobType, ActivatedJob job, String handBackReason) { }
 
 	private static final Predicate<Throwable> isGrpcShutdownNoise = thrown ->
 			thrown instanceof StatusRuntimeException srex
 					&& srex.getStatus().getCode() == Status.Code.UNAVAILABLE
 					&& srex.getStatus().getDescription().contains("shutdown");
 
+	private static final Predicate<Throwable> isStreamingUnsupported = thrown ->
+			thrown instanceof StatusRuntimeException srex
+					&& srex.getStatus().getCode() == Status.Code.UNIMPLEMENTED;
+
 	private final ZeebeProperties zeebeProperties;
+	private final ZeebePollingProperties pollingProperties;
 	private final CamundaClient zeebeClient;
 	private final ZeebeJobService zeebeJobService;
+	private final AdaptiveConcurrencyLimiter concurrencyLimiter;
 	private final Iterable<String> tagGenerator;
 	private final Supplier<Mono<?>> delayGenerator;
+	private final JobSlots jobSlots;
+	private final JobSlots postProcessingSlots;
+	private final ReadyQueue readyQueue;
+	private final TagBackoff tagBackoff;
+	private final Map<String, List<String>> fetchVariables;
+	private final Sinks.Many<ActivatedJob> streamedJobs = Sinks.many().unicast().onBackpressureBuffer();
+	private final Sinks.Many<Ready> readyJobs = Sinks.many().unicast().onBackpressureBuffer();
+	private final AtomicInteger dispatching = new AtomicInteger();
+	private final Sinks.One<Boolean> draining = Sinks.one();
+	private final Map<Long, ActivatedJob> inFlightJobs = new ConcurrentHashMap<>();
 	
 	private Disposable poller;
 	private final AtomicBoolean shuttingDown = new AtomicBoolean(false);
+	private final AtomicBoolean streamingUnsupported = new AtomicBoolean(false);
+	private final AtomicInteger skippedJobTypes = new AtomicInteger();
 
 	@Autowired
-	public ZeebeJobPoller(ZeebeProperties zeebeProperties, CamundaClient zeebeClient, ZeebeJobService zeebeJobService) {
+	public ZeebeJobPoller(
+			ZeebeProperties zeebeProperties,
+			ZeebePollingProperties pollingProperties,
+			CamundaClient zeebeClient,
+			ZeebeJobService zeebeJobService,
+			AdaptiveConcurrencyLimiter concurrencyLimiter) {
+
 		this(zeebeProperties,
+				pollingProperties,
 				zeebeClient,
 				zeebeJobService,
+				concurrencyLimiter,
 				defaultTagGenerator(zeebeProperties.workerTags(), zeebeProperties.rpaTaskPrefix()),
 				DEFAULT_DELAY_GENERATOR);
 	}
 
+	ZeebeJobPoller(
+			ZeebeProperties zeebeProperties,
+			ZeebePollingProperties pollingProperties,
+			CamundaClient zeebeClient,
+			ZeebeJobService zeebeJobService,
+			AdaptiveConcurrencyLimiter concurrencyLimiter,
+			Iterable<String> tagGenerator,
+			Supplier<Mono<?>> delayGenerator) {
+
+		this.zeebeProperties = zeebeProperties;
+		this.pollingProperties = pollingProperties;
+		this.zeebeClient = zeebeClient;
+		this.zeebeJobService = zeebeJobService;
+		this.concurrencyLimiter = concurrencyLimiter;
+		this.tagGenerator = tagGenerator;
+		this.delayGenerator = delayGenerator;
+		this.jobSlots = new JobSlots(concurrencyLimiter.isEnabled()
+				? concurrencyLimiter.limit()
+				: zeebeProperties.maxConcurrentJobs(), Optional.ofNullable(pollingProperties.tags())
+				.orElse(Collections.emptyMap())
+				.entrySet().stream()
+				.collect(Collectors.toMap(kv -> zeebeProperties.rpaTaskPrefix() + kv.getKey(), Map.Entry::getValue)));
+		this.postProcessingSlots = new JobSlots(pollingProperties.postProcessingMaxJobs());
+		this.readyQueue = new ReadyQueue(jobSlots, pollingProperties.readyQueueSize(), RUN_ORDER);
+		this.tagBackoff = pollingProperties.idleBackoffEnabled()
+				? new TagBackoff(
+						pollingProperties.idleBackoffInitial(),
+						pollingProperties.idleBackoffMax(),
+						pollingProperties.idleBackoffMultiplier())
+				: TagBackoff.disabled();
+		this.fetchVariables = Optional.ofNullable(pollingProperties.fetchVariables())
+				.orElse(Collections.emptyMap())
+				.entrySet().stream()
+				.collect(Collectors.toMap(
+						kv -> zeebeProperties.rpaTaskPrefix() + kv.getKey(),
+						kv -> Stream.concat(REQUIRED_VARIABLES.stream(), kv.getValue().stream()).distinct().toList()));
+	}
+
 	private static Iterable<String> defaultTagGenerator(Set<String> workerTags, String taskPrefix) {
 		return () -> new LoopingListIterator<>(workerTags.stream()
 				.map(t -> taskPrefix + t)
@@ -74,33 +176,58 @@ class ZeebeJobPoller implements ApplicationListener<ZeebeReadyEvent> {
 				.kv("workerTags", zeebeProperties.workerTags())
 				.log("Accepting Zeebe jobs for tags");
 
-		poller = Flux.fromIterable(tagGenerator)
-				.flatMap(jobType -> Mono.defer(() -> Mono.fromCompletionStage(
+		Flux<Void> polling = Flux.fromIterable(tagGenerator)
+				.takeUntilOther(draining.asMono())
+				.flatMap(jobType -> awaitEligible(jobType)
+								.flatMap(_ -> claimSpace(jobType, pollingProperties.batchActivation() ? Integer.MAX_VALUE : 1))
+								.takeUntilOther(draining.asMono())
+								.flatMap(claimed -> activateJobs(jobType, claimed)
+										.doOnNext(jobs -> onPollResult(jobType, jobs))
+										.doOnNext(jobs -> readyQueue.offer(jobType, claimed, jobs))
+										.doOnCancel(() -> readyQueue.offer(jobType, claimed, Collections.emptyList()))
+										.doFinally(_ -> dispatch()))
+								.then()
+								.onErrorComplete(),
 
-										zeebeClient.newActivateJobsCommand()
-												.jobType(jobType)
-												.maxJobsToActivate(1)
-												.requestTimeout(JOB_POLL_TIME)
-												.send()))
+						// A polling lane is only held until its jobs are queued, so there need be no more lanes than 
+						// there are jobs which could be activated at once
+						zeebeProperties.maxConcurrentJobs() + pollingProperties.postProcessingMaxJobs());
 
-								.onErrorReturn(isGrpcShutdownNoise, Collections::emptyList)
+		Flux<Void> running = readyJobs.asFlux()
+				.flatMap(ready -> ready.handBackReason() != null
+						? yieldJob(ready.job(), ready.handBackReason())
+						: runJob(ready.jobType(), ready.job()));
 
-								.doOnError(thrown -> log.atError()
-										.setCause(thrown)
-										.kv("jobType", jobType)
-										.log("Error polling Zeebe for jobs"))
-								.onErrorResume(_ -> 
-										delayGenerator.get().thenReturn(Collections::emptyList))
+		Flux<Void> streaming = pollingProperties.streamingEnabled()
+				? Flux.merge(
+						Flux.fromIterable(zeebeProperties.workerTags())
+								.map(t -> zeebeProperties.rpaTaskPrefix() + t)
+								.flatMap(this::maintainJobStream)
+								.takeUntilOther(draining.asMono()),
 
-								.doOnSubscribe(_ -> log.atTrace()
-										.kv("jobType", jobType)
-										.log("Polling for job"))
+						streamedJobs.asFlux()
+								.flatMap(job -> shuttingDown.get()
+										? yieldJob(job, SHUTTING_DOWN)
+										: readyQueue.claim(job.getType(), 1) > 0
+												? Mono.<Void>fromRunnable(() -> {
+													readyQueue.offer(job.getType(), 1, List.of(job));
+													dispatch();
+												})
+												: yieldJob(job, NO_CAPACITY)))
+				: Flux.empty();
 
-								.flatMapIterable(ActivateJobsResponse::getJobs)
-								.flatMap(zeebeJobService::handleJob)
-								.onErrorComplete(),
+		Flux<Void> limiting = concurrencyLimiter.isEnabled()
+				? Flux.interval(pollingProperties.adaptiveConcurrencyInterval())
+						.doOnNext(_ -> {
+							jobSlots.resize(concurrencyLimiter.adjust(jobSlots.used()));
+							dispatch();
+						})
+						.takeUntilOther(draining.asMono())
+						.then()
+						.flux()
+				: Flux.empty();
 
-						zeebeProperties.maxConcurrentJobs())
+		poller = Flux.merge(polling, running, streaming, limiting)
 				.contextWrite(ctx -> ctx.put("reactor.onErrorDropped.local", 
 						(Consumer<Throwable>)(thrown -> {
 							if( ! shuttingDown.get()) log.atError().setCause(thrown).log("onErrorDropped");
@@ -108,9 +235,284 @@ class ZeebeJobPoller implements ApplicationListener<ZeebeReadyEvent> {
 				.subscribe();
 	}
 	
+	/// Hand queued jobs to free slots, in run order. Jobs which have come too close to their deadline while they were
+	/// queued, or which are still queued once the worker is shutting down, are handed back instead. Only one thread
+	/// dispatches at a time, and it goes round again if it was asked to dispatch while it was busy. If dispatching 
+	/// fails, the next call dispatches afresh rather than finding it still busy.
+	private void dispatch() {
+		if(dispatching.getAndIncrement() != 0) return;
+
+		boolean finished = false;
+		try {
+			do {
+				readyQueue.take(entry -> shuttingDown.get()
+								? new Ready(entry.jobType(), entry.job(), SHUTTING_DOWN)
+								: isTooCloseToDeadline(entry.job())
+										? new Ready(entry.jobType(), entry.job(), TOO_CLOSE_TO_DEADLINE)
+										: jobSlots.tryReserve(entry.jobType(), 1) > 0
+												? new Ready(entry.jobType(), entry.job(), null)
+												: null)
+						.forEach(ready -> readyJobs.emitNext(ready, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1))));
+			} while(dispatching.decrementAndGet() != 0);
+			finished = true;
+		}
+		finally {
+			if( ! finished) dispatching.set(0);
+		}
+	}
+
+	/// Wait until there is space to activate jobs of the job type, and claim it
+	private Mono<Integer> claimSpace(String jobType, int max) {
+		return Mono.fromSupplier(() -> readyQueue.claim(jobType, max))
+				.filter(claimed -> claimed > 0)
+				.repeatWhenEmpty(attempts -> attempts.concatMap(_ -> Mono.firstWithSignal(
+						jobSlots.nextChange(),
+						readyQueue.nextChange(),
+						Mono.delay(JOB_POLL_TIME).then())));
+	}
+
+	/// Once the job's Robot processes have exited, its slot is swapped for a post-processing slot if one is free, so 
+	/// that the next job can start while this one's results are still being processed and reported. Otherwise the job 
+	/// keeps its slot until it has finished.
+	private Mono<Void> runJob(String jobType, ActivatedJob job) {
+		AtomicReference<JobPhase> phase = new AtomicReference<>(JobPhase.RUNNING);
+		
+		Consumer<Duration> robotFinished = runtime -> {
+			concurrencyLimiter.onJobFinished(jobType, runtime);
+			if(postProcessingSlots.tryReserve(jobType, 1) == 0) 
+				return;
+			
+			if(phase.compareAndSet(JobPhase.RUNNING, JobPhase.POST_PROCESSING)) {
+				jobSlots.release(jobType, 1);
+				dispatch();
+			}
+			else
+				postProcessingSlots.release(jobType, 1);
+		};
+		
+		return Mono.defer(() -> zeebeJobService.handleJob(job, robotFinished))
+				.doOnSubscribe(_ -> inFlightJobs.putIfAbsent(job.getKey(), job))
+				.doFinally(_ -> {
+					inFlightJobs.remove(job.getKey(), job);
+					switch (phase.getAndSet(JobPhase.FINISHED)) {
+						case RUNNING -> {
+							jobSlots.release(jobType, 1);
+							dispatch();
+						}
+						case POST_PROCESSING -> postProcessingSlots.release(jobType, 1);
+						case FINISHED -> { }
+					}
+				})
+				.onErrorComplete();
+	}
+
+	/// Jobs which could not be started before Zeebe times them out would only be run twice, so are handed straight 
+	/// back for another worker to pick up instead.
+	private boolean isTooCloseToDeadline(ActivatedJob job) {
+		return Optional.ofNullable(pollingProperties.minTimeToDeadline())
+				.filter(Duration::isPositive)
+				.map(min -> job.getDeadline() - System.currentTimeMillis() < min.toMillis())
+				.orElse(false);
+	}
+
+	private static int priorityOf(ActivatedJob job) {
+		return Optional.ofNullable(job.getCustomHeaders())
+				.map(headers -> headers.get(PRIORITY_HEADER_NAME))
+				.flatMap(priority -> Try.of(() -> Integer.parseInt(priority.trim())).toJavaOptional())
+				.orElse(0);
+	}
+
+	/// Pass the job type on for polling unless it is backing off after empty polls, or there is no space for its jobs 
+	/// while other job types still have some. When every job type has been skipped in turn, 
+	/// waits until the first of them is eligible again or a slot is released.
+	private Mono<String> awaitEligible(String jobType) {
+		if(isEligible(jobType)) {
+			skippedJobTypes.set(0);
+			return Mono.just(jobType);
+		}
+
+		if(skippedJobTypes.incrementAndGet() < Math.max(1, zeebeProperties.workerTags().size()))
+			return Mono.empty();
+
+		skippedJobTypes.set(0);
+		Duration nextEligible = tagBackoff.nextEligible();
+		return Mono.firstWithSignal(
+						jobSlots.nextChange(),
+						readyQueue.nextChange(),
+						Mono.delay(nextEligible.isZero() ? JOB_POLL_TIME : nextEligible).then())
+				.then(Mono.fromSupplier(() -> isEligible(jobType) ? jobType : null));
+	}
+
+	/// When there is no space for jobs at all the job type stays eligible, so that it waits its turn for the next slot 
+	/// to be released along with every other job type.
+	private boolean isEligible(String jobType) {
+		return tagBackoff.isEligible(jobType)
+				&& (readyQueue.space(jobType) > 0 || readyQueue.space() == 0);
+	}
+
+	private void onPollResult(String jobType, List<ActivatedJob> jobs) {
+		if( ! jobs.isEmpty()) {
+			tagBackoff.onJobs(jobType);
+			return;
+		}
+
+		tagBackoff.onEmptyPoll(jobType, pollingProperties.streamingEnabled() && ! streamingUnsupported.get()
+				? pollingProperties.streamingFallbackPollInterval()
+				: Duration.ZERO);
+	}
+
+	private Mono<List<ActivatedJob>> activateJobs(String jobType, int maxJobs) {
+		return Mono.defer(() -> Mono.fromCompletionStage(
+
+								restrictVariables(jobType, zeebeClient.newActivateJobsCommand()
+												.jobType(jobType)
+												.maxJobsToActivate(maxJobs))
+										.requestTimeout(JOB_POLL_TIME)
+										.send()))
+
+				.map(ActivateJobsResponse::getJobs)
+
+				.onErrorReturn(isGrpcShutdownNoise, Collections.<ActivatedJob>emptyList())
+
+				.doOnError(thrown -> log.atError()
+						.setCause(thrown)
+						.kv("jobType", jobType)
+						.log("Error polling Zeebe for jobs"))
+				.onErrorResume(_ ->
+						delayGenerator.get().thenReturn(Collections.<ActivatedJob>emptyList()))
+
+				.doOnSubscribe(_ -> log.atTrace()
+						.kv("jobType", jobType)
+						.kv("maxJobs", maxJobs)
+						.log("Polling for jobs"));
+	}
+	
+	private Flux<Void> maintainJobStream(String jobType) {
+		return jobSlots.hasCapacity(jobType)
+				.switchMap(hasCapacity -> hasCapacity
+						? openJobStream(jobType)
+						: Flux.<Void>empty())
+				.onErrorComplete();
+	}
+
+	private Flux<Void> openJobStream(String jobType) {
+		return Mono.<Void>create(sink -> {
+					CamundaFuture<StreamJobsResponse> stream = restrictVariables(jobType, zeebeClient.newStreamJobsCommand()
+									.jobType(jobType)
+									.consumer(this::acceptStreamedJob))
+							.send();
+
+					stream.whenComplete((_, thrown) -> {
+						if(thrown == null) sink.success();
+						else if( ! (thrown instanceof CancellationException)) sink.error(thrown);
+					});
+					sink.onCancel(() -> stream.cancel(true));
+				})
+
+				.doOnSubscribe(_ -> log.atDebug()
+						.kv("jobType", jobType)
+						.log("Opening job stream"))
+
+				.repeatWhen(completions -> completions.concatMap(c -> delayGenerator.get().thenReturn(c)))
+
+				.retryWhen(Retry.from(signals -> signals.concatMap(signal -> {
+					if(isGrpcShutdownNoise.test(signal.failure()))
+						return Mono.<Retry.RetrySignal>error(signal.failure());
+
+					if(isStreamingUnsupported.test(signal.failure())) {
+						log.atWarn()
+								.kv("jobType", jobType)
+								.log("Job streaming is not supported by the gateway, falling back to polling");
+						streamingUnsupported.set(true);
+						return Mono.<Retry.RetrySignal>error(signal.failure());
+					}
+
+					log.atError()
+							.setCause(signal.failure())
+							.kv("jobType", jobType)
+							.log("Error in Zeebe job stream");
+					return delayGenerator.get().thenReturn(signal);
+				})));
+	}
+
+	/// Only the RPA input variables (and those configured for the job's tag) are needed to run the job, so when fetched
+	/// variables are restricted the rest of the process instance's variables are left behind.
+	private ActivateJobsCommandStep1.ActivateJobsCommandStep3 restrictVariables(String jobType, ActivateJobsCommandStep1.ActivateJobsCommandStep3 command) {
+		return pollingProperties.restrictFetchedVariables()
+				? command.fetchVariables(variablesFor(jobType))
+				: command;
+	}
+
+	private StreamJobsCommandStep1.StreamJobsCommandStep3 restrictVariables(String jobType, StreamJobsCommandStep1.StreamJobsCommandStep3 command) {
+		return pollingProperties.restrictFetchedVariables()
+				? command.fetchVariables(variablesFor(jobType))
+				: command;
+	}
+
+	private List<String> variablesFor(String jobType) {
+		return fetchVariables.getOrDefault(jobType, REQUIRED_VARIABLES);
+	}
+
+	private void acceptStreamedJob(ActivatedJob job) {
+		streamedJobs.emitNext(job, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+	}
+
+	/// Hand a job back to Zeebe without using up any of its retries, so that it can be picked up again straight away.
+	private Mono<Void> yieldJob(ActivatedJob job, String reason) {
+		return Mono.fromCompletionStage(() -> zeebeClient.newFailCommand(job)
+						.retries(job.getRetries())
+						.retryBackoff(Duration.ZERO)
+						.errorMessage(reason)
+						.send())
+
+				.doOnSubscribe(_ -> log.atDebug()
+						.kv("job", job.getKey())
+						.kv("reason", reason)
+						.log("Yielding job"))
+
+				.doOnError(thrown -> log.atError()
+						.setCause(thrown)
+						.kv("job", job.getKey())
+						.log("Failed to yield job"))
+
+				.onErrorComplete()
+				.then();
+	}
+	
+	/// Stop accepting jobs and hand back any which are waiting for a slot, then give in-flight jobs until the drain 
+	/// timeout to finish. Any which are still running after that are cancelled and handed back to Zeebe, so that 
+	/// another worker can pick them up without waiting for them to time out.
 	@PreDestroy
 	void shutdown() {
 		shuttingDown.set(true);
+		draining.tryEmitValue(true);
+		dispatch();
+
+		if( ! inFlightJobs.isEmpty()) {
+			log.atInfo()
+					.kv("inFlightJobs", inFlightJobs.size())
+					.kv("drainTimeout", pollingProperties.drainTimeout())
+					.log("Waiting for in-flight jobs to finish before shutting down");
+
+			Flux.interval(JOB_POLL_TIME)
+					.takeUntil(_ -> inFlightJobs.isEmpty())
+					.take(pollingProperties.drainTimeout())
+					.blockLast();
+		}
+
+		List<ActivatedJob> unfinished = Stream.concat(inFlightJobs.values().stream(), readyQueue.drain().stream()).toList();
 		if(poller != null) poller.dispose();
+		
+		if( ! unfinished.isEmpty()) {
+			log.atWarn()
+					.kv("jobs", unfinished.stream().map(ActivatedJob::getKey).toList())
+					.log("Handing back jobs which did not finish before shutting down");
+
+			Flux.fromIterable(unfinished)
+					.flatMap(job -> yieldJob(job, SHUTTING_DOWN))
+					.then()
+					.timeout(HAND_BACK_TIMEOUT, Mono.empty())
+					.block();
+		}
 	}
 }
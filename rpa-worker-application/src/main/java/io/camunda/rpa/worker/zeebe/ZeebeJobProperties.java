@@ -0,0 +1,22 @@
+package io.camunda.rpa.worker.zeebe;
+
+import lombok.Builder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+
+@ConfigurationProperties("camunda.rpa.zeebe.job")
+@Builder(toBuilder = true)
+record ZeebeJobProperties(
+		boolean heartbeatEnabled,
+		Duration heartbeatInterval,
+		Duration heartbeatTimeout,
+		boolean completeWithVariables,
+		boolean journalEnabled,
+		Path journalPath,
+		int journalCompactionThreshold,
+		Duration resultRetryBackoff,
+		Duration resultRetryMaxBackoff,
+		Set<String> batchTags) { }
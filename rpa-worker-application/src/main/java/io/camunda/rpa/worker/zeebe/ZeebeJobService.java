@@ -1,12 +1,13 @@
 package io.camunda.rpa.worker.zeebe;
 
 import io.camunda.client.CamundaClient;
-import io.camunda.client.api.command.FailJobCommandStep1;
+import io.camunda.client.api.command.ClientHttpException;
 import io.camunda.client.api.response.ActivatedJob;
 import io.camunda.client.spring.configuration.condition.ConditionalOnCamundaClientEnabled;
 import io.camunda.rpa.worker.files.FilesService;
 import io.camunda.rpa.worker.pexec.ProcessTimeoutException;
 import io.camunda.rpa.worker.robot.ExecutionResults;
+import io.camunda.rpa.worker.robot.ExecutionResultsProcessor;
 import io.camunda.rpa.worker.robot.RobotExecutionListener;
 import io.camunda.rpa.worker.robot.RobotService;
 import io.camunda.rpa.worker.script.RobotScript;
@@ -14,12 +15,19 @@ import io.camunda.rpa.worker.script.ScriptRepository;
 import io.camunda.rpa.worker.workspace.Workspace;
 import io.camunda.rpa.worker.workspace.WorkspaceCleanupService;
 import io.camunda.rpa.worker.workspace.WorkspaceService;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.vavr.control.Try;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.publisher.Timed;
+import reactor.util.function.Tuple3;
 import tools.jackson.core.type.TypeReference;
 import tools.jackson.databind.ObjectMapper;
 
@@ -29,9 +37,15 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -46,6 +60,13 @@ public class ZeebeJobService {
 	static final String MAIN_SCRIPT_LINK_NAME = "RPAScript";
 	static final String BEFORE_SCRIPT_LINK_NAME = "Before";
 	static final String AFTER_SCRIPT_LINK_NAME = "After";
+	static final String RPA_INPUT_VARIABLE_NAME = "camundaRpaTaskInput";
+
+	/// The job has been completed, failed or cancelled elsewhere - for example because its process instance was 
+	/// cancelled
+	static final Predicate<Throwable> isJobGone = thrown -> Stream.iterate(thrown, Objects::nonNull, Throwable::getCause)
+			.anyMatch(t -> (t instanceof StatusRuntimeException srex && srex.getStatus().getCode() == Status.Code.NOT_FOUND)
+					|| (t instanceof ClientHttpException chex && chex.code() == HttpStatus.NOT_FOUND.value()));
 
 	private final CamundaClient zeebeClient;
 	private final RobotService robotService;
@@ -56,10 +77,43 @@ public class ZeebeJobService {
 	private final WorkspaceService workspaceService;
 	private final FilesService filesService;
 	private final TaskTestingReportRenderer reportRenderer;
+	private final ZeebeJobProperties jobProperties;
+	private final ZeebeProperties zeebeProperties;
+	private final JobJournal jobJournal;
 	
 	private final Set<Long> detachedJobs = new ConcurrentSkipListSet<>();
 
+	/// Zeebe can hand a job to the worker again if its timeout lapses while it is still running, which must not start 
+	/// a second Robot for the same job
+	private final Map<RunningJobKey, ActivatedJob> runningJobs = new ConcurrentHashMap<>();
+
+	private record RunningJobKey(long jobKey, long processInstanceKey) { }
+
 	public Mono<Void> handleJob(ActivatedJob job) {
+		return handleJob(job, _ -> {});
+	}
+
+	/// @param job the job to run
+	/// @param robotFinished called once the Robot processes for the job have exited, while its results are still 
+	/// being processed and reported, with how long they ran for
+	public Mono<Void> handleJob(ActivatedJob job, Consumer<Duration> robotFinished) {
+		RunningJobKey key = new RunningJobKey(job.getKey(), job.getProcessInstanceKey());
+		return Mono.defer(() -> {
+			if(runningJobs.putIfAbsent(key, job) != null) {
+				log.atWarn()
+						.kv("task", job.getType())
+						.kv("job", job.getKey())
+						.log("Received Job from Zeebe which is already running, ignoring");
+				zeebeMetricsService.onZeebeJobDuplicate(job.getType());
+				return Mono.empty();
+			}
+
+			return doHandleJob(job, robotFinished)
+					.doFinally(_ -> runningJobs.remove(key, job));
+		});
+	}
+
+	private Mono<Void> doHandleJob(ActivatedJob job, Consumer<Duration> robotFinished) {
 		log.atInfo()
 				.kv("task", job.getType())
 				.kv("job", job.getKey())
@@ -67,7 +121,7 @@ public class ZeebeJobService {
 		
 		zeebeMetricsService.onZeebeJobReceived(job.getType());
 
-		Flux<RobotScript> before = getScriptKeys(job, BEFORE_SCRIPT_LINK_NAME).concatMap(scriptRepository::getById);
+		Flux<RobotScript> before = getScriptKeys(job, BEFORE_SCRIPT_LINK_NAME).flatMapSequential(scriptRepository::getById);
 		Mono<RobotScript> main = getScriptKeys(job, MAIN_SCRIPT_LINK_NAME)
 				.single()
 				.onErrorMap(thrown ->
@@ -76,48 +130,50 @@ public class ZeebeJobService {
 						thrown -> new IllegalStateException(
 								"Failed to find exactly 1 LinkedResource providing the main script", thrown))
 				.flatMap(scriptRepository::getById);
-		Flux<RobotScript> after = getScriptKeys(job, AFTER_SCRIPT_LINK_NAME).concatMap(scriptRepository::getById);
+		Flux<RobotScript> after = getScriptKeys(job, AFTER_SCRIPT_LINK_NAME).flatMapSequential(scriptRepository::getById);
 		
 		Map<String, Object> inputVariables = getVariables(job);
+		Sinks.One<Boolean> jobGone = Sinks.one();
 
 		return Flux.zip(before.collectList(), main, after.collectList())
+				.timed()
+				.doOnNext(fetched -> log.atDebug()
+						.kv("job", job.getKey())
+						.kv("fetchScripts", fetched.elapsed())
+						.log("Fetched scripts for Job"))
+				.map(Timed::get)
 				.flatMap(scriptSet ->
 
-						robotService.execute(
-										scriptSet.getT2(),
-										scriptSet.getT1(),
-										scriptSet.getT3(),
-										inputVariables,
-										Optional.ofNullable(job.getCustomHeaders().get(TIMEOUT_HEADER_NAME))
-												.map(Duration::parse)
-												.orElse(null),
-										Collections.singletonList(executionListenerFor(job)),
-										Collections.singletonList(new TaskTestingZeebeResultsProcessor(workspaceService, filesService, inputVariables, job, reportRenderer)),
-										Map.of(ZEEBE_JOB_WORKSPACE_PROPERTY, job), 
-										null)
-
-								.flatMap(xr -> Mono.fromCompletionStage(zeebeClient
-												.newSetVariablesCommand(job.getProcessInstanceKey())
-												.variables(outputVariables89Compat(xr.outputVariables()))
-												.send())
-										.thenReturn(xr))
+						withHeartbeat(job, jobGone, execute(job, scriptSet, inputVariables, jobGone, robotFinished)
+										.takeUntilOther(jobGone.asMono()))
+
+								.flatMap(xr -> completesWithVariables(job, xr)
+										? Mono.just(xr)
+										: Mono.fromCompletionStage(zeebeClient
+														.newSetVariablesCommand(job.getProcessInstanceKey())
+														.variables(outputVariables89Compat(xr.outputVariables()))
+														.send())
+												.thenReturn(xr)
+												.onErrorResume(isJobGone, thrown -> Mono.<ExecutionResults>empty()
+														.doOnSubscribe(_ -> abandon(job, jobGone))))
 								
 								.filter(_ -> ! detachedJobs.remove(job.getKey()))
 
-								.doOnNext(xr -> (switch (xr.result()) {
-									case PASS -> zeebeClient
-											.newCompleteCommand(job);
+								.doOnNext(xr -> {
+									switch (xr.result()) {
+										case PASS -> completeJob(job, xr);
 
-									case FAIL -> failJob(job,
-											xr.outputVariables(), 
-											"There were task failures", 
-											xr.fullLogString());
+										case FAIL -> failJob(job,
+												xr.outputVariables(), 
+												"There were task failures", 
+												xr.fullLogString());
 
-									case ERROR -> failJob(job,
-											xr.outputVariables(),
-											"There were task errors",
-											xr.fullLogString());
-								}).send())
+										case ERROR -> failJob(job,
+												xr.outputVariables(),
+												"There were task errors",
+												xr.fullLogString());
+									}
+								})
 
 								.doOnNext(xr -> {
 									switch (xr.result()) {
@@ -125,6 +181,9 @@ public class ZeebeJobService {
 										case FAIL -> zeebeMetricsService.onZeebeJobFail(job.getType(), "ROBOT_TASKFAIL");
 										case ERROR -> zeebeMetricsService.onZeebeJobFail(job.getType(), "ROBOT_ERROR");
 									}
+									
+									if(xr.resources() != null)
+										zeebeMetricsService.onRobotResources(job.getType(), scriptSet.getT2().id(), xr.resources());
 								})
 
 								.doOnNext(xr -> log.atInfo()
@@ -138,8 +197,7 @@ public class ZeebeJobService {
 								.doOnSubscribe(_ -> failJob(job,
 										Collections.emptyMap(),
 										"The execution timed out",
-										thrown.getStderr(), thrown.getStdout())
-										.send())
+										thrown.getStderr(), thrown.getStdout()))
 
 								.doOnSubscribe(_ -> log.atWarn()
 										.kv("job", job)
@@ -156,17 +214,65 @@ public class ZeebeJobService {
 
 				.doOnError(thrown -> failJob(job,
 						Collections.emptyMap(),
-						thrown.getMessage())
-						.send())
+						thrown.getMessage()))
 				
 				.doOnError(_ -> zeebeMetricsService.onZeebeJobError(job.getType()))
 
 				.onErrorComplete()
+				.doOnSubscribe(_ -> jobJournal.onStarted(job))
+				.doFinally(_ -> jobJournal.onFinished(job))
+				.doFinally(_ -> zeebeMetricsService.onZeebeJobFinished())
 				.contextWrite(ctx -> ctx.put(ActivatedJob.class, job))
 				.then();
 	}
 
-	private RobotExecutionListener executionListenerFor(ActivatedJob job) {
+	private Mono<ExecutionResults> execute(
+			ActivatedJob job,
+			Tuple3<List<RobotScript>, RobotScript, List<RobotScript>> scriptSet,
+			Map<String, Object> inputVariables,
+			Sinks.One<Boolean> jobGone,
+			Consumer<Duration> robotFinished) {
+
+		Duration timeout = Optional.ofNullable(job.getCustomHeaders().get(TIMEOUT_HEADER_NAME))
+				.map(Duration::parse)
+				.orElse(null);
+		List<RobotExecutionListener> executionListeners = Collections.singletonList(executionListenerFor(job, jobGone, robotFinished));
+		List<ExecutionResultsProcessor> resultsProcessors = Collections.singletonList(new TaskTestingZeebeResultsProcessor(workspaceService, filesService, inputVariables, job, reportRenderer));
+		Map<String, Object> workspaceProperties = Map.of(ZEEBE_JOB_WORKSPACE_PROPERTY, job);
+
+		if(isBatched(job, scriptSet))
+			return robotService.executeBatched(
+					"%s/%s".formatted(job.getType(), scriptSet.getT2().id()),
+					scriptSet.getT2(),
+					inputVariables,
+					timeout,
+					executionListeners,
+					resultsProcessors,
+					workspaceProperties);
+
+		return robotService.execute(
+				scriptSet.getT2(),
+				scriptSet.getT1(),
+				scriptSet.getT3(),
+				inputVariables,
+				timeout,
+				executionListeners,
+				resultsProcessors,
+				workspaceProperties,
+				null);
+	}
+
+	/// Jobs of batched tags share a Robot process with other jobs running the same script, unless they have before or 
+	/// after scripts
+	private boolean isBatched(ActivatedJob job, Tuple3<List<RobotScript>, RobotScript, List<RobotScript>> scriptSet) {
+		return scriptSet.getT1().isEmpty()
+				&& scriptSet.getT3().isEmpty()
+				&& Optional.ofNullable(jobProperties.batchTags()).orElse(Collections.emptySet()).stream()
+						.anyMatch(tag -> job.getType().equals(zeebeProperties.rpaTaskPrefix() + tag));
+	}
+
+	private RobotExecutionListener executionListenerFor(ActivatedJob job, Sinks.One<Boolean> jobGone, Consumer<Duration> robotFinished) {
+		AtomicLong robotStarted = new AtomicLong();
 		return new RobotExecutionListener() {
 			@SuppressWarnings("ReactiveStreamsUnusedPublisher")
 			@Override
@@ -174,15 +280,84 @@ public class ZeebeJobService {
 				workspaceCleanupService.deleteWorkspace(workspace);
 			}
 
+			@Override
+			public boolean deletesWorkspace() {
+				return true;
+			}
+
 			@Override
 			public void beforeScriptExecution(Workspace workspace, Duration timeout) {
-				zeebeClient.newUpdateJobCommand(job)
-						.updateTimeout(timeout)
-						.send();
+				robotStarted.compareAndSet(0, System.nanoTime());
+				updateTimeout(job, jobGone, jobProperties.heartbeatEnabled() ? jobProperties.heartbeatTimeout() : timeout)
+						.subscribe();
+			}
+
+			@Override
+			public void afterScriptsExecuted(Workspace workspace) {
+				long started = robotStarted.get();
+				robotFinished.accept(started != 0 ? Duration.ofNanos(System.nanoTime() - started) : Duration.ZERO);
 			}
 		};
 	}
 
+	/// When heartbeats are enabled, keeps pushing back the job's timeout by the (short) heartbeat timeout for as long as
+	/// the execution is running, so that the jobs of a worker which has died are retried quickly.
+	private <T> Mono<T> withHeartbeat(ActivatedJob job, Sinks.One<Boolean> jobGone, Mono<T> execution) {
+		if( ! jobProperties.heartbeatEnabled())
+			return execution;
+
+		return Mono.using(
+				() -> Flux.interval(jobProperties.heartbeatInterval())
+						.concatMap(_ -> updateTimeout(job, jobGone, jobProperties.heartbeatTimeout()))
+						.subscribe(),
+				_ -> execution,
+				Disposable::dispose);
+	}
+
+	/// Push back the job's timeout. If Zeebe reports that the job no longer exists, the execution is abandoned so that
+	/// the robot is stopped and its slot freed straight away.
+	private Mono<Void> updateTimeout(ActivatedJob job, Sinks.One<Boolean> jobGone, Duration timeout) {
+		return Mono.fromCompletionStage(() -> zeebeClient.newUpdateJobCommand(job)
+						.updateTimeout(timeout)
+						.send())
+
+				.doOnSuccess(_ -> jobJournal.onTimeoutUpdated(job, timeout))
+
+				.doOnSubscribe(_ -> log.atTrace()
+						.kv("job", job.getKey())
+						.kv("timeout", timeout)
+						.log("Updating job timeout"))
+
+				.doOnError(isJobGone, _ -> abandon(job, jobGone))
+
+				.doOnError(isJobGone.negate(), thrown -> log.atWarn()
+						.kv("job", job.getKey())
+						.setCause(thrown)
+						.log("Failed to update job timeout"))
+
+				.onErrorComplete()
+				.then();
+	}
+
+	/// Successful jobs can be completed along with their output variables in a single command, rather than setting the
+	/// variables first. Detached jobs are not completed by the worker, so their variables are always set separately.
+	private boolean completesWithVariables(ActivatedJob job, ExecutionResults xr) {
+		return jobProperties.completeWithVariables()
+				&& xr.result() == ExecutionResults.Result.PASS
+				&& ! detachedJobs.contains(job.getKey());
+	}
+
+	private void abandon(ActivatedJob job, Sinks.One<Boolean> jobGone) {
+		if( ! jobGone.tryEmitValue(true).isSuccess())
+			return;
+
+		log.atWarn()
+				.kv("task", job.getType())
+				.kv("job", job.getKey())
+				.log("Job no longer exists in Zeebe, abandoning execution");
+		zeebeMetricsService.onZeebeJobAbandoned(job.getType());
+	}
+
 	private Flux<String> getScriptKeys(ActivatedJob job, String linkName) {
 		List<ZeebeLinkedResource> linkedResources = Optional.ofNullable(
 						job.getCustomHeaders().get(LINKED_RESOURCES_HEADER_NAME))
@@ -203,15 +378,30 @@ public class ZeebeJobService {
 
 	@SuppressWarnings("unchecked")
 	private Map<String, Object> getVariables(ActivatedJob job) {
-		return Optional.ofNullable(((Map<String, Object>) job.getVariablesAsMap().get("camundaRpaTaskInput")))
-				.orElse(job.getVariablesAsMap());
+		Map<String, Object> variables = job.getVariablesAsMap();
+		return Optional.ofNullable(((Map<String, Object>) variables.get(RPA_INPUT_VARIABLE_NAME)))
+				.orElse(variables);
+	}
+	
+	private void completeJob(ActivatedJob job, ExecutionResults xr) {
+		if(jobProperties.completeWithVariables())
+			jobJournal.submit(job,
+					JobJournal.Result.complete(xr.outputVariables()),
+					zeebeClient.newCompleteCommand(job).variables(xr.outputVariables()));
+		else
+			jobJournal.submit(job,
+					JobJournal.Result.complete(null),
+					zeebeClient.newCompleteCommand(job));
 	}
 	
-	private FailJobCommandStep1.FailJobCommandStep2 failJob(ActivatedJob job, Map<String, Object> variables, String... errorMessage) {
-		return zeebeClient
-				.newFailCommand(job)
-				.retries(job.getRetries() - 1)
-				.errorMessage(String.join("\n\n", errorMessage));
+	private void failJob(ActivatedJob job, Map<String, Object> variables, String... errorMessage) {
+		String message = String.join("\n\n", errorMessage);
+		jobJournal.submit(job,
+				JobJournal.Result.fail(job.getRetries() - 1, message),
+				zeebeClient
+						.newFailCommand(job)
+						.retries(job.getRetries() - 1)
+						.errorMessage(message));
 	}
 	
 	public void pushDetached(long jobKey) {
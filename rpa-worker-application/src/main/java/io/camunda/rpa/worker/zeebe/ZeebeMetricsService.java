@@ -1,8 +1,11 @@
 package io.camunda.rpa.worker.zeebe;
 
+import io.camunda.rpa.worker.robot.ExecutionResults;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
@@ -26,21 +29,31 @@ class ZeebeMetricsService {
 	private final Map<String, Timer> jobTypeTimers = new ConcurrentHashMap<>();
 
 	private final AtomicInteger zeebeJobsActive = new AtomicInteger();
+	private final AtomicInteger concurrencyLimit = new AtomicInteger();
 	
 	@PostConstruct
 	ZeebeMetricsService init() {
+		concurrencyLimit.set(zeebeProperties.maxConcurrentJobs());
+		
 		Gauge.builder(METRIC_PREFIX + "job.active", zeebeJobsActive::get)
 				.register(meterRegistry);
 
 		Gauge.builder(METRIC_PREFIX + "job.capacity.total", zeebeProperties::maxConcurrentJobs)
 				.register(meterRegistry);
 
+		Gauge.builder(METRIC_PREFIX + "job.capacity.limit", concurrencyLimit::get)
+				.register(meterRegistry);
+
 		Gauge.builder(METRIC_PREFIX + "job.capacity.available",
-						() -> zeebeProperties.maxConcurrentJobs() - zeebeJobsActive.get())
+						() -> Math.max(0, concurrencyLimit.get() - zeebeJobsActive.get()))
 				.register(meterRegistry);
 		
 		return this;
 	}
+	
+	public void onConcurrencyLimitChanged(int limit) {
+		concurrencyLimit.set(limit);
+	}
 
 	public void onZeebeJobReceived(String type) {
 		zeebeJobsActive.incrementAndGet();
@@ -84,21 +97,62 @@ class ZeebeMetricsService {
 				_ -> Counter.builder(METRIC_PREFIX + "job.error")
 						.tag("type", type)
 						.register(meterRegistry));
+
+		jobTypeCounters.computeIfAbsent(type + "/result/ABANDONED",
+				_ -> Counter.builder(METRIC_PREFIX + "job.abandoned")
+						.tag("type", type)
+						.register(meterRegistry));
 	}
 	
-	public void onZeebeJobSuccess(String type, Duration duration) {
+	/// A job may be abandoned as well as failed or completed, so it stops counting as active only once it has 
+	/// finished, whatever its outcome
+	public void onZeebeJobFinished() {
 		zeebeJobsActive.decrementAndGet();
+	}
+	
+	public void onZeebeJobSuccess(String type, Duration duration) {
 		jobTypeTimers.get(type).record(duration);
 		jobTypeCounters.get(type + "/result/SUCCESS").increment();
 	}
 
 	public void onZeebeJobFail(String type, String code) {
-		zeebeJobsActive.decrementAndGet();
 		jobTypeCounters.get(type + "/result/%s".formatted(code)).increment();
 	}
 	
 	public void onZeebeJobError(String type) {
-		zeebeJobsActive.decrementAndGet();
 		jobTypeCounters.get(type + "/result/ERROR").increment();
 	}
+
+	public void onZeebeJobAbandoned(String type) {
+		jobTypeCounters.get(type + "/result/ABANDONED").increment();
+	}
+
+	/// Records the resources used by the Robots which ran for a job - its before, main and after scripts together - 
+	/// tagged with its main script, as distributions so that the jobs which need the most can be picked out
+	public void onRobotResources(String type, String mainScript, ExecutionResults.ResourceUsage usage) {
+		Tags tags = Tags.of("type", type, "mainScript", mainScript);
+		
+		recordDistribution("job.robot.cpu", "seconds", tags, usage.cpuTime().toNanos() / 1_000_000_000d);
+		recordDistribution("job.robot.memory.peak", "bytes", tags, usage.peakMemoryBytes());
+		recordDistribution("job.robot.io.read", "bytes", tags, usage.bytesRead());
+		recordDistribution("job.robot.io.written", "bytes", tags, usage.bytesWritten());
+		recordDistribution("job.robot.processes", null, tags, usage.childProcesses());
+	}
+	
+	private void recordDistribution(String name, String baseUnit, Tags tags, double amount) {
+		DistributionSummary.builder(METRIC_PREFIX + name)
+				.baseUnit(baseUnit)
+				.publishPercentiles(0.5, 0.95)
+				.tags(tags)
+				.register(meterRegistry)
+				.record(amount);
+	}
+
+	public void onZeebeJobDuplicate(String type) {
+		jobTypeCounters.computeIfAbsent(type + "/duplicate",
+						_ -> Counter.builder(METRIC_PREFIX + "job.duplicate")
+								.tag("type", type)
+								.register(meterRegistry))
+				.increment();
+	}
 }
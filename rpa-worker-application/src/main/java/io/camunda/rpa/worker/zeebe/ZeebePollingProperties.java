@@ -0,0 +1,41 @@
+package io.camunda.rpa.worker.zeebe;
+
+import lombok.Builder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties("camunda.rpa.zeebe.polling")
+@Builder(toBuilder = true)
+record ZeebePollingProperties(
+		boolean batchActivation,
+		boolean streamingEnabled,
+		Duration streamingFallbackPollInterval,
+		boolean idleBackoffEnabled,
+		Duration idleBackoffInitial,
+		Duration idleBackoffMax,
+		double idleBackoffMultiplier,
+		Map<String, TagLimits> tags,
+		boolean adaptiveConcurrencyEnabled,
+		int adaptiveConcurrencyMinJobs,
+		Duration adaptiveConcurrencyInterval,
+		double adaptiveConcurrencyMaxLoadPerCpu,
+		double adaptiveConcurrencyMinFreeMemory,
+		double adaptiveConcurrencyLatencyTolerance,
+		Duration adaptiveConcurrencyLatencyExpiry,
+		double adaptiveConcurrencyDecreaseRatio,
+		Duration drainTimeout,
+		boolean restrictFetchedVariables,
+		Map<String, List<String>> fetchVariables,
+		int postProcessingMaxJobs,
+		Duration minTimeToDeadline,
+		int readyQueueSize) {
+
+	/// @param maxConcurrentJobs the most jobs of this tag which may run at once, or 0 for no limit other than the
+	/// worker's own
+	/// @param reservedJobs how many of the worker's slots are held back for jobs of this tag
+	/// @param weight this tag's share of the worker's slots relative to other tags when they are competing for them
+	record TagLimits(int maxConcurrentJobs, int reservedJobs, int weight) { }
+}
@@ -0,0 +1,212 @@
+package io.camunda.rpa.worker.browser
+
+import io.camunda.rpa.worker.PublisherUtils
+import io.camunda.rpa.worker.io.IO
+import io.camunda.rpa.worker.pexec.ExecutionCustomizer
+import io.camunda.rpa.worker.pexec.ProcessService
+import io.camunda.rpa.worker.robot.PreparedScript
+import io.camunda.rpa.worker.workspace.Workspace
+import org.springframework.web.reactive.function.client.WebClient
+import reactor.core.publisher.Mono
+import reactor.core.publisher.Sinks
+import spock.lang.Specification
+
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.function.Consumer
+import java.util.function.UnaryOperator
+
+class BrowserServerPoolSpec extends Specification implements PublisherUtils {
+
+	ProcessService processService = Mock()
+	Path userDataDir = Paths.get("/path/to/browser-data/")
+	IO io = Mock() {
+		createTempDirectory(_) >> userDataDir
+		run(_) >> { Runnable fn -> Mono.fromRunnable(fn) }
+	}
+	WebClient webClient = Stub()
+	CdpClient cdpClient = Mock()
+	Path executable = Paths.get("/path/to/chromium")
+
+	BrowserPoolProperties properties = BrowserPoolProperties.builder()
+			.enabled(true)
+			.executable(executable)
+			.size(2)
+			.maxUses(2)
+			.healthCheckInterval(Duration.ofHours(1))
+			.build()
+
+	Workspace workspace1 = new Workspace("workspace1", Paths.get("/path/to/workspace1/"))
+	Workspace workspace2 = new Workspace("workspace2", Paths.get("/path/to/workspace2/"))
+	Workspace workspace3 = new Workspace("workspace3", Paths.get("/path/to/workspace3/"))
+	PreparedScript script = new PreparedScript("main", null)
+
+	void "Contributes nothing when disabled"() {
+		when:
+		BrowserServerPool pool = new BrowserServerPool(properties.toBuilder().enabled(false).build(), processService, io, webClient, cdpClient)
+		Map<String, String> envVars = block pool.getEnvironmentVariables(workspace1, script)
+
+		then:
+		0 * processService._
+		envVars == [:]
+	}
+
+	void "Disables the pool when no browser executable is configured"() {
+		when:
+		BrowserServerPool pool = new BrowserServerPool(properties.toBuilder().executable(null).build(), processService, io, webClient, cdpClient)
+		Map<String, String> envVars = block pool.getEnvironmentVariables(workspace1, script)
+		pool.destroy()
+
+		then:
+		0 * processService._
+		envVars == [:]
+	}
+
+	void "Hands each workspace the least busy browser"() {
+		when:
+		BrowserServerPool pool = new BrowserServerPool(properties, processService, io, webClient, cdpClient)
+
+		then:
+		2 * processService.execute(executable, _) >> Mono.never()
+
+		when:
+		Map<String, String> first = block pool.getEnvironmentVariables(workspace1, script)
+		Map<String, String> again = block pool.getEnvironmentVariables(workspace1, script)
+		Map<String, String> second = block pool.getEnvironmentVariables(workspace2, script)
+
+		then:
+		first[BrowserServerPool.CDP_URL_ENV_NAME].startsWith("http://127.0.0.1:")
+		first[BrowserServerPool.CDP_URL_ENV_NAME] == "http://" + first[BrowserServerPool.DEBUGGER_ADDRESS_ENV_NAME]
+		again == first
+		second[BrowserServerPool.CDP_URL_ENV_NAME] != first[BrowserServerPool.CDP_URL_ENV_NAME]
+
+		cleanup:
+		pool?.destroy()
+	}
+
+	void "Recycles a browser once it has been used the maximum number of times"() {
+		given:
+		processService.execute(executable, _) >> Mono.never()
+		BrowserServerPool pool = new BrowserServerPool(properties.toBuilder().size(1).maxUses(1).build(), processService, io, webClient, cdpClient)
+
+		when:
+		Map<String, String> first = block pool.getEnvironmentVariables(workspace1, script)
+		Map<String, String> whileRetiring = block pool.getEnvironmentVariables(workspace2, script)
+
+		then:
+		first[BrowserServerPool.CDP_URL_ENV_NAME]
+		whileRetiring == [:]
+
+		when:
+		pool.afterRobotExecution(workspace1)
+
+		then:
+		1 * processService.execute(executable, _) >> Mono.never()
+
+		and:
+		block(pool.getEnvironmentVariables(workspace3, script))[BrowserServerPool.CDP_URL_ENV_NAME]
+
+		cleanup:
+		pool?.destroy()
+	}
+
+	void "Opens a context of its own in the browser for each execution, and closes it afterwards"() {
+		given:
+		processService.execute(executable, _) >> Mono.never()
+		BrowserServerPool pool = new BrowserServerPool(properties.toBuilder().size(1).maxUses(0).isolateContexts(true).build(), processService, io, webClient, cdpClient)
+
+		when:
+		Map<String, String> envVars = block pool.getEnvironmentVariables(workspace1, script)
+		Map<String, String> again = block pool.getEnvironmentVariables(workspace1, script)
+
+		then:
+		1 * cdpClient.createContext({ it.startsWith("http://127.0.0.1:") }) >> Mono.just(new CdpClient.BrowserContext("context-1", "target-1"))
+
+		and:
+		envVars[BrowserServerPool.CONTEXT_ID_ENV_NAME] == "context-1"
+		envVars[BrowserServerPool.TARGET_URL_ENV_NAME] == "ws://${envVars[BrowserServerPool.DEBUGGER_ADDRESS_ENV_NAME]}/devtools/page/target-1".toString()
+		again == envVars
+
+		when:
+		pool.afterRobotExecution(workspace1)
+
+		then:
+		1 * cdpClient.disposeContext(envVars[BrowserServerPool.CDP_URL_ENV_NAME], "context-1") >> Mono.empty()
+
+		cleanup:
+		pool?.destroy()
+	}
+
+	void "Shares the browser's default context when a context cannot be opened"() {
+		given:
+		processService.execute(executable, _) >> Mono.never()
+		cdpClient.createContext(_) >> Mono.error(new IllegalStateException("Not supported"))
+		BrowserServerPool pool = new BrowserServerPool(properties.toBuilder().isolateContexts(true).build(), processService, io, webClient, cdpClient)
+
+		when:
+		Map<String, String> envVars = block pool.getEnvironmentVariables(workspace1, script)
+
+		then:
+		envVars.keySet() == [BrowserServerPool.CDP_URL_ENV_NAME, BrowserServerPool.DEBUGGER_ADDRESS_ENV_NAME] as Set
+
+		cleanup:
+		pool?.destroy()
+	}
+
+	void "Stops handing out a browser whose process has exited"() {
+		given:
+		Sinks.One<ProcessService.ExecutionResult> exited = Sinks.one()
+		processService.execute(executable, _) >> exited.asMono()
+		BrowserServerPool pool = new BrowserServerPool(properties.toBuilder().size(1).build(), processService, io, webClient, cdpClient)
+
+		when:
+		exited.tryEmitValue(new ProcessService.ExecutionResult(1, "", "crashed", Duration.ZERO))
+
+		then:
+		1 * io.deleteDirectoryRecursively(userDataDir)
+
+		and:
+		block(pool.getEnvironmentVariables(workspace1, script)) == [:]
+
+		cleanup:
+		pool?.destroy()
+	}
+
+	void "Deletes the data directory of a browser only once it has exited"() {
+		given:
+		CompletableFuture<ProcessHandle> exit = new CompletableFuture<>()
+		ProcessHandle handle = Stub() {
+			onExit() >> exit
+		}
+		ExecutionCustomizer ec = Mock()
+		ec.onStart(_) >> { Consumer<ProcessHandle> listener -> listener.accept(handle); ec }
+		ec./.*/(*_) >> ec
+
+		and:
+		processService.execute(executable, _) >> { _, UnaryOperator<ExecutionCustomizer> fn ->
+			fn.apply(ec)
+			return Mono.never()
+		}
+		BrowserServerPool pool = new BrowserServerPool(properties.toBuilder().size(1).maxUses(1).build(), processService, io, webClient, cdpClient)
+		block pool.getEnvironmentVariables(workspace1, script)
+
+		when:
+		pool.afterRobotExecution(workspace1)
+
+		then:
+		1 * ec.captureOutputTo(userDataDir.resolve("browser.log")) >> ec
+		0 * io.deleteDirectoryRecursively(_)
+
+		when:
+		exit.complete(handle)
+
+		then:
+		1 * io.deleteDirectoryRecursively(userDataDir)
+
+		cleanup:
+		exit.complete(handle)
+		pool?.destroy()
+	}
+}
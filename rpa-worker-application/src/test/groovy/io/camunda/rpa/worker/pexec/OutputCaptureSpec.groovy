@@ -0,0 +1,86 @@
+package io.camunda.rpa.worker.pexec
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class OutputCaptureSpec extends Specification {
+
+	Path outputFile = Files.createTempFile("output", ".log")
+
+	void cleanup() {
+		Files.deleteIfExists(outputFile)
+	}
+
+	void "Keeps all of the output in memory when not capturing to a file"() {
+		given:
+		OutputCapture capture = new OutputCapture()
+
+		when:
+		(1..1000).each { capture.stdout("line ${it}") }
+		capture.stderr("error")
+
+		then:
+		capture.outString.lines().count() == 1000
+		capture.errString == "error"
+		! capture.truncated
+	}
+
+	void "Writes all of the output to the file, keeping only whole lines of its tail in memory"() {
+		given:
+		OutputCapture capture = new OutputCapture(outputFile, 32, null)
+
+		when:
+		(1..100).each { capture.stdout("out ${it}") }
+		capture.stderr("err 1")
+		capture.close()
+
+		then:
+		capture.truncated
+		capture.outString.length() <= 32
+		capture.outString.lines().toList().last() == "out 100"
+		capture.outString.lines().allMatch { it.startsWith("out ") }
+		capture.errString == "err 1"
+
+		and:
+		List<String> written = Files.readAllLines(outputFile)
+		written.size() == 101
+		written.first() == "[STDOUT] out 1"
+		written.last() == "[STDERR] err 1"
+	}
+
+	void "Is not truncated when the output fits in the tail"() {
+		given:
+		OutputCapture capture = new OutputCapture(outputFile, 1024, null)
+
+		when:
+		capture.stdout("out")
+		capture.close()
+
+		then:
+		capture.outString == "out"
+		! capture.truncated
+		Files.readAllLines(outputFile) == ["[STDOUT] out"]
+	}
+
+	void "Leaves out the lines the listener does not keep"() {
+		given:
+		List<String> heard = []
+		OutputCapture capture = new OutputCapture(outputFile, 1024, { stream, line ->
+			heard << "${stream}: ${line}".toString()
+			return ! line.startsWith("event")
+		})
+
+		when:
+		capture.stdout("out")
+		capture.stderr("event")
+		capture.stderr("err")
+		capture.close()
+
+		then:
+		heard == ["stdout: out", "stderr: event", "stderr: err"]
+		capture.errString == "err"
+		Files.readAllLines(outputFile) == ["[STDOUT] out", "[STDERR] err"]
+	}
+}
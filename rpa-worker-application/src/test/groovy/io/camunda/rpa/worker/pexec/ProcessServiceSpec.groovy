@@ -4,16 +4,24 @@ import io.camunda.rpa.worker.PublisherUtils
 import org.apache.commons.exec.CommandLine
 import org.apache.commons.exec.DefaultExecutor
 import org.apache.commons.exec.ExecuteException
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.util.unit.DataSize
+import reactor.core.Exceptions
 import reactor.core.scheduler.Schedulers
+import spock.lang.IgnoreIf
 import spock.lang.Specification
 import spock.lang.Subject
 import spock.lang.Timeout
+import spock.util.concurrent.PollingConditions
 
+import java.nio.file.Files
 import java.nio.file.Path
 import java.nio.file.Paths
 import java.time.Duration
 import java.util.concurrent.CountDownLatch
 import java.util.concurrent.TimeUnit
+import java.util.stream.Stream
 
 class ProcessServiceSpec extends Specification implements PublisherUtils {
 	
@@ -22,8 +30,14 @@ class ProcessServiceSpec extends Specification implements PublisherUtils {
 		get() >> defaultExecutor
 	}
 	
+	MeterRegistry meterRegistry = new SimpleMeterRegistry()
+	
 	@Subject
-	ProcessService service = new ProcessService(Schedulers.single(), { executorBuilder })
+	ProcessService service = new ProcessService(
+			Schedulers.single(), 
+			{ executorBuilder }, 
+			ProcessProperties.builder().killGracePeriod(Duration.ofMillis(100)).build(), 
+			meterRegistry)
 	
 	void setupSpec() {
 		CommandLine.metaClass.equals = { CommandLine other ->
@@ -166,6 +180,7 @@ class ProcessServiceSpec extends Specification implements PublisherUtils {
 
 		then:
 		1 * process.toHandle() >> Mock(ProcessHandle) {
+			descendants() >> { Stream.empty() }
 			1 * destroy() >> {
 				processWasKilled.countDown()
 				return true
@@ -176,4 +191,264 @@ class ProcessServiceSpec extends Specification implements PublisherUtils {
 		thrown(ProcessTimeoutException)
 	}
 
+	@Timeout(3)
+	void "Destroys the process and its descendants when the execution is cancelled"() {
+		given:
+		Process process = Mock()
+		CountDownLatch executionStarted = new CountDownLatch(1)
+		CountDownLatch processWasKilled = new CountDownLatch(1)
+		defaultExecutor.setWatchdog(_) >> { ExecuteWatchdog2 w -> w.start(process) }
+		defaultExecutor.execute(_, _) >> {
+			executionStarted.countDown()
+			processWasKilled.await(3_500, TimeUnit.MILLISECONDS)
+			return 1
+		}
+
+		and:
+		ProcessHandle child = Mock()
+		ProcessHandle handle = Mock() {
+			descendants() >> { [child].stream() }
+		}
+
+		when:
+		service.execute("someExe", c -> c
+				.scheduleOn(Schedulers.boundedElastic()))
+				.subscribe()
+				.tap { executionStarted.await() }
+				.dispose()
+
+		then:
+		1 * process.toHandle() >> handle
+		1 * child.destroy()
+		1 * handle.destroy() >> {
+			processWasKilled.countDown()
+			return true
+		}
+	}
+
+	@Timeout(3)
+	void "Forcibly kills the processes which are still running after the grace period, and records them as reaped"() {
+		given:
+		Process process = Mock()
+		CountDownLatch executionStarted = new CountDownLatch(1)
+		CountDownLatch processWasKilled = new CountDownLatch(1)
+		defaultExecutor.setWatchdog(_) >> { ExecuteWatchdog2 w -> w.start(process) }
+		defaultExecutor.execute(_, _) >> {
+			executionStarted.countDown()
+			processWasKilled.await(3_500, TimeUnit.MILLISECONDS)
+			return 1
+		}
+
+		and:
+		ProcessHandle exitingChild = Mock() {
+			isAlive() >> false
+		}
+		ProcessHandle strayChild = Mock() {
+			isAlive() >> true
+		}
+		ProcessHandle handle = Mock() {
+			descendants() >> { [exitingChild, strayChild].stream() }
+			isAlive() >> false
+		}
+		process.toHandle() >> handle
+
+		and:
+		PollingConditions conditions = new PollingConditions(timeout: 2)
+
+		when:
+		service.execute("someExe", c -> c
+				.scheduleOn(Schedulers.boundedElastic()))
+				.subscribe()
+				.tap { executionStarted.await() }
+				.dispose()
+		processWasKilled.countDown()
+		conditions.eventually {
+			assert meterRegistry.get(ProcessService.METRIC_PREFIX + "reaped").tag("mode", "forced").counter().count() == 1
+		}
+		
+		then:
+		meterRegistry.get(ProcessService.METRIC_PREFIX + "reaped").tag("mode", "graceful").counter().count() == 1
+		
+		and:
+		1 * exitingChild.destroy()
+		1 * strayChild.destroy()
+		1 * strayChild.destroyForcibly()
+		0 * exitingChild.destroyForcibly()
+		0 * handle.destroyForcibly()
+	}
+
+	@IgnoreIf({ os.windows })
+	void "Executes processes natively when configured to"() {
+		given:
+		ProcessService nativeService = nativeProcessService()
+
+		when:
+		ProcessService.ExecutionResult result = block nativeService.execute("sh", c -> c
+				.arg("-c")
+				.arg('echo "$1 $ENV_VAR"; echo stderr-content >&2; exit 3')
+				.arg("sh")
+				.bindArg("pathBoundArg", Paths.get("/some/arg/value"))
+				.env("ENV_VAR", "env-var-value")
+				.allowExitCodes([3] as int[]))
+
+		then:
+		with(result) {
+			exitCode() == 3
+			stdout() == "/some/arg/value env-var-value"
+			stderr() == "stderr-content"
+		}
+		
+		and:
+		0 * executorBuilder._
+	}
+
+	@IgnoreIf({ os.windows })
+	void "Fails natively executed processes which exit unexpectedly only when required"() {
+		given:
+		ProcessService nativeService = nativeProcessService()
+
+		when:
+		ProcessService.ExecutionResult result = block nativeService.execute("sh", c -> c
+				.arg("-c")
+				.arg("exit 2")
+				.silent())
+
+		then:
+		result.exitCode() == 2
+
+		when:
+		block nativeService.execute("sh", c -> c
+				.arg("-c")
+				.arg("exit 2")
+				.silent()
+				.required())
+
+		then:
+		Exception thrown = thrown()
+		Exceptions.unwrap(thrown) instanceof ExecuteException
+		(Exceptions.unwrap(thrown) as ExecuteException).exitValue == 2
+	}
+
+	@Timeout(5)
+	@IgnoreIf({ os.windows })
+	void "Applies timeout to natively executed processes, destroying them and throwing when exceeded"() {
+		given:
+		ProcessService nativeService = nativeProcessService()
+
+		when:
+		block nativeService.execute("sh", c -> c
+				.arg("-c")
+				.arg("echo started; exec sleep 30")
+				.silent()
+				.timeout(Duration.ofMillis(500)))
+
+		then:
+		ProcessTimeoutException thrown = thrown(ProcessTimeoutException)
+		thrown.stdout == "started"
+	}
+
+	@IgnoreIf({ os.windows })
+	void "Captures output to a file, keeping only its tail in the result"() {
+		given:
+		ProcessService nativeService = nativeProcessService()
+		Path outputFile = Files.createTempFile("output", ".log")
+
+		when:
+		ProcessService.ExecutionResult result = block nativeService.execute("sh", c -> c
+				.arg("-c")
+				.arg('for i in $(seq 1 100); do echo "line $i"; done; echo error >&2')
+				.captureOutputTo(outputFile))
+
+		then:
+		result.outputFile() == outputFile
+		result.truncated()
+		result.stdout().length() <= 64
+		result.stdout().endsWith("line 100")
+		result.stderr() == "error"
+
+		and:
+		Files.readAllLines(outputFile).findAll { it.startsWith("[STDOUT] ") }.size() == 100
+		Files.readAllLines(outputFile).contains("[STDERR] error")
+
+		cleanup:
+		Files.deleteIfExists(outputFile)
+	}
+
+	@IgnoreIf({ os.windows })
+	void "Reports the resources used by the process and its descendants, including those which have exited"() {
+		when:
+		ProcessService.ExecutionResult result = block samplingProcessService().execute("sh", c -> c
+				.arg("-c")
+				.arg("sleep 0.1 & sleep 0.5 & wait")
+				.sampleResources(true))
+
+		then:
+		result.resources() != null
+		result.resources().cpuTime() >= Duration.ZERO
+		result.resources().childProcesses() == 2
+	}
+
+	@IgnoreIf({ os.windows })
+	void "Does not report resources when they are not requested"() {
+		when:
+		ProcessService.ExecutionResult result = block samplingProcessService().execute("sh", c -> c
+				.arg("-c")
+				.arg("exit 0"))
+
+		then:
+		result.resources() == null
+	}
+
+	@IgnoreIf({ os.windows })
+	void "Does not report resources when they are not sampled"() {
+		when:
+		ProcessService.ExecutionResult result = block nativeProcessService().execute("sh", c -> c
+				.arg("-c")
+				.arg("exit 0")
+				.sampleResources(true))
+
+		then:
+		result.resources() == null
+	}
+
+	@IgnoreIf({ os.windows })
+	void "Tells the start listener of the process once it has started"() {
+		given:
+		List<ProcessHandle> started = []
+
+		when:
+		ProcessService.ExecutionResult result = block nativeProcessService().execute("sh", c -> c
+				.arg("-c")
+				.arg("exit 0")
+				.onStart { started << it })
+
+		then:
+		result.exitCode() == 0
+		started.size() == 1
+		started.first().pid() > 0
+	}
+
+	private ProcessService nativeProcessService() {
+		return new ProcessService(
+				Schedulers.boundedElastic(),
+				{ executorBuilder },
+				ProcessProperties.builder()
+						.killGracePeriod(Duration.ofMillis(100))
+						.engine(ProcessProperties.Engine.Native)
+						.outputTailSize(DataSize.ofBytes(64))
+						.build(),
+				meterRegistry)
+	}
+
+	private ProcessService samplingProcessService() {
+		return new ProcessService(
+				Schedulers.boundedElastic(),
+				{ executorBuilder },
+				ProcessProperties.builder()
+						.killGracePeriod(Duration.ofMillis(100))
+						.engine(ProcessProperties.Engine.Native)
+						.resourceSampleInterval(Duration.ofMillis(10))
+						.build(),
+				meterRegistry)
+	}
 }
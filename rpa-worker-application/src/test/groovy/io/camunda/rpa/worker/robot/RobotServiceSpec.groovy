@@ -2,10 +2,13 @@ package io.camunda.rpa.worker.robot
 
 import io.camunda.rpa.worker.PublisherUtils
 import io.camunda.rpa.worker.io.IO
+import io.camunda.rpa.worker.io.IoCheckedFunction
 import io.camunda.rpa.worker.pexec.ExecutionCustomizer
+import io.camunda.rpa.worker.pexec.ProcessResources
 import io.camunda.rpa.worker.pexec.ProcessService
 import io.camunda.rpa.worker.script.RobotScript
 import io.camunda.rpa.worker.workspace.Workspace
+import io.camunda.rpa.worker.workspace.WorkspaceEventService
 import io.camunda.rpa.worker.workspace.WorkspaceService
 import io.camunda.rpa.worker.workspace.WorkspaceVariablesManager
 import org.springframework.beans.factory.ObjectProvider
@@ -18,6 +21,7 @@ import tools.jackson.databind.ObjectMapper
 import java.nio.file.Path
 import java.nio.file.Paths
 import java.time.Duration
+import java.util.function.Function
 import java.util.function.Supplier
 import java.util.function.UnaryOperator
 import java.util.stream.Stream
@@ -26,16 +30,21 @@ class RobotServiceSpec extends Specification implements PublisherUtils {
 
 	IO io = Mock() {
 		supply(_) >> { Supplier fn -> Mono.fromSupplier(fn) }
+		run(_) >> { Runnable fn -> Mono.fromRunnable(fn) }
 	}
 	ObjectMapper objectMapper = new ObjectMapper()
 	RobotExecutionStrategy robotExecutionStrategy = Mock()
 	WorkspaceVariablesManager workspaceVariablesManager = Mock()
-	RobotProperties robotProperties = new RobotProperties(Duration.ofSeconds(3), true)
+	RobotProperties robotProperties = new RobotProperties(Duration.ofSeconds(3), true, 2, Duration.ofSeconds(5), false)
 	WorkspaceService workspaceService = Mock()
 	
 	EnvironmentVariablesContributor envVarContributor1 = Mock(EnvironmentVariablesContributor)
 	EnvironmentVariablesContributor envVarContributor2 = Mock(EnvironmentVariablesContributor)
 	ObjectProvider<EnvironmentVariablesContributor> envVarContributors = Stub()
+	WorkspaceEventService workspaceEventService = Stub()
+	RobotSessionService robotSessionService = Stub() {
+		withSession(_, _, _) >> { String _, RobotExecutionStrategy fallback, Function<RobotExecutionStrategy, Mono> fn -> fn.apply(fallback) }
+	}
 
 	@Subject
 	RobotService service = new RobotService(
@@ -46,7 +55,9 @@ class RobotServiceSpec extends Specification implements PublisherUtils {
 			Schedulers.single(), 
 			envVarContributors, 
 			workspaceVariablesManager, 
-			robotExecutionStrategy)
+			robotExecutionStrategy, 
+			robotSessionService, 
+			workspaceEventService)
 	
 	RobotExecutionListener executionListener = Mock()
 
@@ -94,7 +105,9 @@ class RobotServiceSpec extends Specification implements PublisherUtils {
 
 		and:
 		1 * executionCustomizer.workDir(workDir) >> executionCustomizer
+		1 * executionCustomizer.captureOutputTo(workDir.resolve("output/main.console.log")) >> executionCustomizer
 		1 * executionCustomizer.allowExitCodes(RobotService.ROBOT_TASK_FAILURE_EXIT_CODES) >> executionCustomizer
+		1 * executionCustomizer.sampleResources(true) >> executionCustomizer
 		
 		1 * executionCustomizer.inheritEnv() >> executionCustomizer
 		1 * executionCustomizer.env([ENV_VAR_ONE: 'envVarOneValue', ENV_VAR_TWO: 'envVarTwoValue']) >> executionCustomizer
@@ -125,6 +138,7 @@ class RobotServiceSpec extends Specification implements PublisherUtils {
 		r.duration() == Duration.ofSeconds(3)
 		
 		and:
+		1 * executionListener.afterScriptsExecuted(workspace)
 		1 * executionListener.afterRobotExecution(workspace)
 		1 * workspaceVariablesManager.getVariables(workspace.id()) >> [:]
 		1 * workspaceVariablesManager.afterRobotExecution(workspace)
@@ -301,6 +315,44 @@ class RobotServiceSpec extends Specification implements PublisherUtils {
 		]
 	}
 
+	void "Prepares the environment for every script before running the first"() {
+		given:
+		RobotScript before = RobotScript.builder().id("before-script").body("before-script-body").build()
+		RobotScript script = RobotScript.builder().id("some-script").body("some-script-body").build()
+
+		and:
+		Path workDir = Paths.get("/path/to/workDir/")
+		Workspace workspace = new Workspace("workspace123456", workDir)
+		workspaceService.createWorkspace(null, [:]) >> workspace
+		envVarContributors.stream() >> { Stream.of(envVarContributor1) }
+		ExecutionCustomizer executionCustomizer = Mock() {
+			_ >> it
+		}
+		robotExecutionStrategy.executeRobot(_) >> { UnaryOperator<ExecutionCustomizer> customizer ->
+			customizer.apply(executionCustomizer)
+			return Mono.just(new ProcessService.ExecutionResult(RobotService.ROBOT_EXIT_SUCCESS, "stdout-content", "stderr-content", Duration.ofSeconds(1)))
+		}
+
+		when:
+		ExecutionResults result = block service.execute(script, [before], [], [:], null, [executionListener], [], [:], null)
+
+		then:
+		1 * io.writeString(workDir.resolve("pre_0_before-script.robot"), "before-script-body", _)
+		1 * io.writeString(workDir.resolve("main.robot"), "some-script-body", _)
+		1 * io.write(workDir.resolve("variables.json"), _, [])
+		1 * envVarContributor1.getEnvironmentVariables(workspace, { it.executionKey() == "pre_0_before-script" }) >> Mono.just([ENV_VAR: 'before'])
+		1 * envVarContributor1.getEnvironmentVariables(workspace, { it.executionKey() == "main" }) >> Mono.just([ENV_VAR: 'main'])
+
+		then:
+		1 * executionCustomizer.env([ENV_VAR: 'before']) >> executionCustomizer
+
+		then:
+		1 * executionCustomizer.env([ENV_VAR: 'main']) >> executionCustomizer
+
+		and:
+		result.result() == ExecutionResults.Result.PASS
+	}
+
 	void "Stops execution and returns correct aggregate results for pre/post script failure"() {
 		given:
 		RobotScript before1 = RobotScript.builder().id("some-script").body("some-script-body").build()
@@ -462,6 +514,100 @@ class RobotServiceSpec extends Specification implements PublisherUtils {
 		0 * io.writeString({ it.toString().contains("five.resource") }, _)
 	}
 
+	void "Notes where to find the full output when only its tail was kept"() {
+		given:
+		RobotScript script = RobotScript.builder().id("some-script").body("some-script-body").build()
+
+		and:
+		Path workDir = Paths.get("/path/to/workDir/")
+		Workspace workspace = new Workspace("workspace123456", workDir)
+		workspaceService.createWorkspace(null, [:]) >> workspace
+		workspaceVariablesManager.getVariables(workspace.id()) >> [:]
+
+		and:
+		robotExecutionStrategy.executeRobot(_) >> { _ ->
+			return Mono.just(new ProcessService.ExecutionResult(
+					RobotService.ROBOT_EXIT_SUCCESS,
+					"stdout-tail",
+					"stderr-tail",
+					Duration.ZERO,
+					workDir.resolve("output/main.console.log"),
+					true))
+		}
+
+		when:
+		ExecutionResults result = block service.execute(script, [:], null, [], [], null)
+
+		then:
+		result.results().values().first().output() == """\
+[OUTPUT] Only the end of the output is shown, the full output is in ${workDir.resolve("output/main.console.log")}
+[STDOUT] stdout-tail
+[STDERR] stderr-tail"""
+	}
+
+	void "Leaves out where to find the full output when the workspace will be deleted"() {
+		given:
+		RobotScript script = RobotScript.builder().id("some-script").body("some-script-body").build()
+		RobotExecutionListener deletingListener = Mock() {
+			deletesWorkspace() >> true
+		}
+
+		and:
+		Path workDir = Paths.get("/path/to/workDir/")
+		Workspace workspace = new Workspace("workspace123456", workDir)
+		workspaceService.createWorkspace(null, [:]) >> workspace
+		workspaceVariablesManager.getVariables(workspace.id()) >> [:]
+
+		and:
+		robotExecutionStrategy.executeRobot(_) >> { _ ->
+			return Mono.just(new ProcessService.ExecutionResult(
+					RobotService.ROBOT_EXIT_SUCCESS,
+					"stdout-tail",
+					"stderr-tail",
+					Duration.ZERO,
+					workDir.resolve("output/main.console.log"),
+					true))
+		}
+
+		when:
+		ExecutionResults result = block service.execute(script, [:], null, [deletingListener], [], null)
+
+		then:
+		result.results().values().first().output() == """\
+[OUTPUT] Only the end of the output is shown
+[STDOUT] stdout-tail
+[STDERR] stderr-tail"""
+	}
+
+	void "Reports the resources used by the Robot process"() {
+		given:
+		RobotScript script = RobotScript.builder().id("some-script").body("some-script-body").build()
+
+		and:
+		Path workDir = Paths.get("/path/to/workDir/")
+		Workspace workspace = new Workspace("workspace123456", workDir)
+		workspaceService.createWorkspace(null, [:]) >> workspace
+		workspaceVariablesManager.getVariables(workspace.id()) >> [:]
+
+		and:
+		robotExecutionStrategy.executeRobot(_) >> { _ ->
+			return Mono.just(new ProcessService.ExecutionResult(
+					RobotService.ROBOT_EXIT_SUCCESS,
+					"",
+					"",
+					Duration.ZERO,
+					null,
+					false,
+					new ProcessResources(Duration.ofSeconds(2), 1024, 10, 20, 3)))
+		}
+
+		when:
+		ExecutionResults result = block service.execute(script, [:], null, [], [], null)
+
+		then:
+		result.resources() == new ExecutionResults.ResourceUsage(Duration.ofSeconds(2), 1024, 10, 20, 3)
+	}
+
 	void "Enhances ExecutionResults from result processors when present"() {
 		given:
 		RobotScript script = RobotScript.builder().id("some-script").body("some-script-body").build()
@@ -503,4 +649,412 @@ class RobotServiceSpec extends Specification implements PublisherUtils {
 		and:
 		result.outputVariables() == expectedMergedVars
 	}
+
+	void "Runs batched executions of the same script in one Robot process"() {
+		given:
+		RobotScript script = RobotScript.builder().id("some-script").body("some-script-body").build()
+		ExecutionCustomizer executionCustomizer = Mock() {
+			_ >> it
+		}
+
+		and:
+		Workspace workspace1 = new Workspace("workspace1", Paths.get("/path/to/workspace1/"))
+		Workspace workspace2 = new Workspace("workspace2", Paths.get("/path/to/workspace2/"))
+		workspaceService.createWorkspace(null, [:]) >>> [workspace1, workspace2]
+
+		and:
+		envVarContributors.stream() >> { Stream.of(envVarContributor1) }
+		envVarContributor1.getEnvironmentVariables(_, _) >> { Workspace workspace, _ -> 
+			Mono.just([SHARED: 'shared-value', SECRET: "secret-of-${workspace.id()}".toString()]) 
+		}
+
+		and:
+		io.notExists(_) >> false
+		io.withReader(workspace1.path().resolve("output/batch/output.xml"), _) >> { Path _, IoCheckedFunction fn ->
+			fn.apply(new StringReader("""\
+<robot>
+	<suite name="Main &amp; Main">
+		<suite name="Main" source="/path/to/workspace1/main.robot"><status status="PASS" elapsed="1.000"/></suite>
+		<suite name="Main" source="/path/to/workspace2/main.robot"><status status="FAIL" elapsed="2.000"/></suite>
+		<status status="FAIL"/>
+	</suite>
+</robot>"""))
+		}
+		
+		and:
+		String stdout = """\
+preamble
+${RobotSequenceListener.SCRIPT_PREFIX}/path/to/workspace1/main.robot
+first-output
+${RobotBatchListener.SCRIPT_END_PREFIX}/path/to/workspace1/main.robot
+${RobotSequenceListener.SCRIPT_PREFIX}/path/to/workspace2/main.robot
+second-output
+${RobotBatchListener.SCRIPT_END_PREFIX}/path/to/workspace2/main.robot
+summary"""
+
+		when:
+		Mono<ExecutionResults> first = service.executeBatched("batch", script, [var: 'one'], null, [executionListener], [], [:])
+		Mono<ExecutionResults> second = service.executeBatched("batch", script, [var: 'two'], null, [executionListener], [], [:])
+		List<ExecutionResults> results = block Mono.zip(first, second).map { [it.t1, it.t2] }
+
+		then:
+		1 * robotExecutionStrategy.executeRobot(_) >> { UnaryOperator<ExecutionCustomizer> customizer ->
+			customizer.apply(executionCustomizer)
+			return Mono.just(new ProcessService.ExecutionResult(1, stdout, "", Duration.ofSeconds(3)))
+		}
+
+		and:
+		1 * io.writeString(workspace1.path().resolve(RobotBatchListener.FILE_NAME), RobotBatchListener.SOURCE, _)
+		1 * executionCustomizer.env([SHARED: 'shared-value']) >> executionCustomizer
+		1 * executionCustomizer.bindArg("script0", workspace1.path().resolve("main.robot")) >> executionCustomizer
+		1 * executionCustomizer.bindArg("script1", workspace2.path().resolve("main.robot")) >> executionCustomizer
+		1 * executionCustomizer.timeout({ Duration it -> it.isPositive() && it <= robotProperties.defaultTimeout() }) >> executionCustomizer
+
+		and:
+		1 * executionListener.beforeScriptExecution(workspace1, robotProperties.defaultTimeout())
+		1 * executionListener.beforeScriptExecution(workspace2, robotProperties.defaultTimeout())
+		1 * executionListener.afterRobotExecution(workspace1)
+		1 * executionListener.afterRobotExecution(workspace2)
+
+		and:
+		results*.workspace() == [workspace1, workspace2]
+		results*.result() == [ExecutionResults.Result.PASS, ExecutionResults.Result.FAIL]
+		results.collect { it.results()["main"].output() } == ["[STDOUT] first-output", "[STDOUT] second-output"]
+		results.collect { it.results()["main"].duration() } == [Duration.ofSeconds(1), Duration.ofSeconds(2)]
+	}
+
+	void "Leaves executions which are cancelled before their batch has started out of it"() {
+		given:
+		RobotScript script = RobotScript.builder().id("some-script").body("some-script-body").build()
+		ExecutionCustomizer executionCustomizer = Mock() {
+			_ >> it
+		}
+
+		and:
+		Workspace workspace1 = new Workspace("workspace1", Paths.get("/path/to/workspace1/"))
+		Workspace workspace2 = new Workspace("workspace2", Paths.get("/path/to/workspace2/"))
+		io.notExists(_) >> true
+
+		when:
+		service.executeBatched("batch", script, [var: 'cancelled'], null, [executionListener], [], [:])
+				.subscribe()
+				.dispose()
+		Mono<ExecutionResults> second = service.executeBatched("batch", script, [var: 'two'], null, [executionListener], [], [:])
+		Mono<ExecutionResults> third = service.executeBatched("batch", script, [var: 'three'], null, [executionListener], [], [:])
+		List<ExecutionResults> results = block Mono.zip(second, third).map { [it.t1, it.t2] }
+
+		then:
+		2 * workspaceService.createWorkspace(null, [:]) >>> [workspace1, workspace2]
+		1 * robotExecutionStrategy.executeRobot(_) >> { UnaryOperator<ExecutionCustomizer> customizer ->
+			customizer.apply(executionCustomizer)
+			return Mono.just(new ProcessService.ExecutionResult(0, "stdout-content", "stderr-content", Duration.ofSeconds(3)))
+		}
+
+		and:
+		1 * io.write(workspace1.path().resolve("variables.json"), objectMapper.writeValueAsBytes([var: 'two']), [])
+		1 * io.write(workspace2.path().resolve("variables.json"), objectMapper.writeValueAsBytes([var: 'three']), [])
+		0 * io.write(_, objectMapper.writeValueAsBytes([var: 'cancelled']), _)
+
+		and:
+		results*.workspace() == [workspace1, workspace2]
+	}
+
+	void "Fails only the executions of a batch whose environment could not be prepared"() {
+		given:
+		RobotScript script = RobotScript.builder().id("some-script").body("some-script-body").build()
+		ExecutionCustomizer executionCustomizer = Mock() {
+			_ >> it
+		}
+
+		and:
+		Workspace workspace1 = new Workspace("workspace1", Paths.get("/path/to/workspace1/"))
+		io.notExists(_) >> true
+
+		when:
+		Mono<ExecutionResults> first = service.executeBatched("batch", script, [var: 'one'], null, [executionListener], [], [:])
+		Mono<ExecutionResults> second = service.executeBatched("batch", script, [var: 'two'], null, [executionListener], [], [:])
+		List<Object> results = block Mono.zip(
+				first.map { it as Object },
+				second.map { it as Object }.onErrorResume { Mono.just(it) })
+				.map { [it.t1, it.t2] }
+
+		then:
+		2 * workspaceService.createWorkspace(null, [:]) >>> [workspace1] >> { throw new IllegalStateException("No space") }
+		1 * robotExecutionStrategy.executeRobot(_) >> { UnaryOperator<ExecutionCustomizer> customizer ->
+			customizer.apply(executionCustomizer)
+			return Mono.just(new ProcessService.ExecutionResult(0, "stdout-content", "stderr-content", Duration.ofSeconds(3)))
+		}
+
+		and:
+		1 * executionListener.afterRobotExecution(workspace1)
+
+		and:
+		(results[0] as ExecutionResults).workspace() == workspace1
+		results[1] instanceof RobotErrorException
+	}
+
+	void "Runs before, main, and after scripts in one Robot process and stops reporting at the first failure"() {
+		given:
+		RobotScript before = RobotScript.builder().id("before-script").body("before-script-body").build()
+		RobotScript script = RobotScript.builder().id("some-script").body("some-script-body").build()
+		RobotScript after = RobotScript.builder().id("after-script").body("after-script-body").build()
+
+		and:
+		@Subject
+		RobotService singleProcessService = new RobotService(
+				io,
+				objectMapper,
+				new RobotProperties(Duration.ofSeconds(3), true, 2, Duration.ofSeconds(5), true),
+				workspaceService,
+				Schedulers.single(),
+				envVarContributors,
+				workspaceVariablesManager,
+				robotExecutionStrategy,
+				robotSessionService,
+				workspaceEventService)
+
+		and:
+		Path workDir = Paths.get("/path/to/workDir/")
+		Workspace workspace = new Workspace("workspace123456", workDir)
+		workspaceService.createWorkspace(null, [:]) >> workspace
+		ExecutionCustomizer executionCustomizer = Mock() {
+			_ >> it
+		}
+
+		and:
+		envVarContributors.stream() >> { Stream.of(envVarContributor1) }
+		envVarContributor1.getEnvironmentVariables(_, _) >> { _, PreparedScript s -> 
+			Mono.just([SHARED: 'shared-value', SCRIPT: s.executionKey()]) 
+		}
+
+		and:
+		io.notExists(_) >> false
+		io.withReader(workDir.resolve("output/main/output.xml"), _) >> { Path _, IoCheckedFunction fn ->
+			fn.apply(new StringReader("""\
+<robot>
+	<suite name="Pre 0 Before-Script &amp; Main &amp; Post 0 After-Script">
+		<suite name="Pre 0 Before-Script" source="/path/to/workDir/pre_0_before-script.robot"><status status="PASS" elapsed="1.000"/></suite>
+		<suite name="Main" source="/path/to/workDir/main.robot"><status status="FAIL" elapsed="2.000"/></suite>
+		<suite name="Post 0 After-Script" source="/path/to/workDir/post_0_after-script.robot"><status status="SKIP" elapsed="0.000"/></suite>
+		<status status="FAIL"/>
+	</suite>
+</robot>"""))
+		}
+
+		when:
+		ExecutionResults result = block singleProcessService.execute(script, [before], [after], [:], null, [executionListener], [], [:], null)
+
+		then:
+		1 * robotExecutionStrategy.executeRobot(_) >> { UnaryOperator<ExecutionCustomizer> customizer ->
+			customizer.apply(executionCustomizer)
+			return Mono.just(new ProcessService.ExecutionResult(1, "stdout-content", "stderr-content", Duration.ofSeconds(4)))
+		}
+
+		and:
+		1 * io.writeString(workDir.resolve(RobotSequenceListener.FILE_NAME), RobotSequenceListener.SOURCE, _)
+		1 * io.write(workDir.resolve("sequence.json"), { byte[] it -> objectMapper.readValue(it, List) == [
+				[suite: workDir.resolve("pre_0_before-script.robot").toAbsolutePath().toString(), environment: [SHARED: 'shared-value', SCRIPT: 'pre_0_before-script']],
+				[suite: workDir.resolve("main.robot").toAbsolutePath().toString(), environment: [SHARED: 'shared-value', SCRIPT: 'main']],
+				[suite: workDir.resolve("post_0_after-script.robot").toAbsolutePath().toString(), environment: [SHARED: 'shared-value', SCRIPT: 'post_0_after-script']]] }, _)
+		1 * executionCustomizer.env([SHARED: 'shared-value']) >> executionCustomizer
+		1 * executionCustomizer.bindArg("outputDir", workDir.resolve("output/main/")) >> executionCustomizer
+		1 * executionCustomizer.bindArg("script_pre_0_before-script", workDir.resolve("pre_0_before-script.robot")) >> executionCustomizer
+		1 * executionCustomizer.bindArg("script_main", workDir.resolve("main.robot")) >> executionCustomizer
+		1 * executionCustomizer.bindArg("script_post_0_after-script", workDir.resolve("post_0_after-script.robot")) >> executionCustomizer
+		1 * executionCustomizer.timeout(Duration.ofSeconds(3)) >> executionCustomizer
+		1 * executionListener.beforeScriptExecution(workspace, Duration.ofSeconds(3))
+
+		and:
+		result.results().keySet().toList() == ["pre_0_before-script", "main"]
+		result.results()["pre_0_before-script"].result() == ExecutionResults.Result.PASS
+		result.results()["main"].result() == ExecutionResults.Result.FAIL
+		result.result() == ExecutionResults.Result.FAIL
+		result.duration() == Duration.ofSeconds(3)
+	}
+
+	void "Splits the output of scripts run in one Robot process between them"() {
+		given:
+		RobotScript before = RobotScript.builder().id("before-script").body("before-script-body").build()
+		RobotScript script = RobotScript.builder().id("some-script").body("some-script-body").build()
+		RobotScript after = RobotScript.builder().id("after-script").body("after-script-body").build()
+
+		and:
+		@Subject
+		RobotService singleProcessService = new RobotService(
+				io,
+				objectMapper,
+				new RobotProperties(Duration.ofSeconds(3), true, 2, Duration.ofSeconds(5), true),
+				workspaceService,
+				Schedulers.single(),
+				envVarContributors,
+				workspaceVariablesManager,
+				robotExecutionStrategy,
+				robotSessionService,
+				workspaceEventService)
+
+		and:
+		Path workDir = Paths.get("/path/to/workDir/")
+		Workspace workspace = new Workspace("workspace123456", workDir)
+		workspaceService.createWorkspace(null, [:]) >> workspace
+		workspaceVariablesManager.getVariables(workspace.id()) >> [:]
+		io.notExists(_) >> true
+
+		and:
+		String marker = RobotSequenceListener.SCRIPT_PREFIX
+		robotExecutionStrategy.executeRobot(_) >> { _ ->
+			return Mono.just(new ProcessService.ExecutionResult(
+					RobotService.ROBOT_EXIT_SUCCESS,
+					"""\
+preamble
+${marker}/path/to/workDir/pre_0_before-script.robot
+before-out
+${marker}/path/to/workDir/main.robot
+main-out
+${marker}/path/to/workDir/post_0_after-script.robot
+after-out
+summary""".toString(),
+					"${marker}/path/to/workDir/pre_0_before-script.robot\n${marker}/path/to/workDir/main.robot\nmain-err".toString(),
+					Duration.ZERO))
+		}
+
+		when:
+		ExecutionResults result = block singleProcessService.execute(script, [before], [after], [:], null, [], [], [:], null)
+
+		then:
+		result.results()["pre_0_before-script"].output() == "[STDOUT] preamble\n[STDOUT] before-out"
+		result.results()["main"].output() == "[STDOUT] main-out\n[STDERR] main-err"
+		result.results()["post_0_after-script"].output() == "[STDOUT] after-out\n[STDOUT] summary"
+	}
+
+	void "Publishes the output and progress of Robot to those following the workspace when workspace events are enabled"() {
+		given:
+		RobotScript script = RobotScript.builder().id("some-script").body("some-script-body").build()
+		WorkspaceEventService enabledEventService = Mock() {
+			isEnabled() >> true
+		}
+
+		and:
+		@Subject
+		RobotService eventsService = new RobotService(
+				io,
+				objectMapper,
+				robotProperties,
+				workspaceService,
+				Schedulers.single(),
+				envVarContributors,
+				workspaceVariablesManager,
+				robotExecutionStrategy,
+				robotSessionService,
+				enabledEventService)
+
+		and:
+		Path workDir = Paths.get("/path/to/workDir/")
+		Workspace workspace = new Workspace("workspace123456", workDir)
+		workspaceService.createWorkspace(null, [:]) >> workspace
+		workspaceVariablesManager.getVariables(workspace.id()) >> [:]
+		ExecutionCustomizer executionCustomizer = Mock() {
+			_ >> it
+		}
+		ExecutionCustomizer.OutputListener outputListener = null
+
+		and:
+		robotExecutionStrategy.executeRobot(_) >> { UnaryOperator<ExecutionCustomizer> customizer ->
+			customizer.apply(executionCustomizer)
+			return Mono.just(new ProcessService.ExecutionResult(RobotService.ROBOT_EXIT_SUCCESS, "", "", Duration.ZERO))
+		}
+
+		when:
+		block eventsService.execute(script, [:], null, [], [], null)
+		boolean outputKept = outputListener.onLine("stdout", "Some output")
+		boolean eventKept = outputListener.onLine("stderr", RobotEventsListener.EVENT_PREFIX + '{"type": "keyword-start", "name": "BuiltIn.Log"}')
+
+		then:
+		1 * io.writeString(workDir.resolve(RobotEventsListener.FILE_NAME), RobotEventsListener.SOURCE, _)
+		1 * executionCustomizer.arg("--listener") >> executionCustomizer
+		1 * executionCustomizer.bindArg("eventsListener", workDir.resolve(RobotEventsListener.FILE_NAME)) >> executionCustomizer
+		1 * executionCustomizer.onOutput(_) >> { ExecutionCustomizer.OutputListener l ->
+			outputListener = l
+			return executionCustomizer
+		}
+
+		and:
+		1 * enabledEventService.beforeScriptExecution(workspace, _)
+		1 * enabledEventService.publish(workspace, "stdout", "Some output")
+		1 * enabledEventService.publish(workspace, "keyword-start", [type: "keyword-start", name: "BuiltIn.Log"])
+		1 * enabledEventService.afterRobotExecution(workspace)
+
+		and:
+		outputKept
+		! eventKept
+	}
+
+	void "Publishes the events and output of each member of a batch only to its own workspace"() {
+		given:
+		RobotScript script = RobotScript.builder().id("some-script").body("some-script-body").build()
+		WorkspaceEventService enabledEventService = Mock() {
+			isEnabled() >> true
+		}
+
+		and:
+		@Subject
+		RobotService eventsService = new RobotService(
+				io,
+				objectMapper,
+				robotProperties,
+				workspaceService,
+				Schedulers.single(),
+				envVarContributors,
+				workspaceVariablesManager,
+				robotExecutionStrategy,
+				robotSessionService,
+				enabledEventService)
+
+		and:
+		Workspace workspace1 = new Workspace("workspace1", Paths.get("/path/to/workspace1/"))
+		Workspace workspace2 = new Workspace("workspace2", Paths.get("/path/to/workspace2/"))
+		workspaceService.createWorkspace(null, [:]) >>> [workspace1, workspace2]
+		io.notExists(_) >> true
+		ExecutionCustomizer executionCustomizer = Mock() {
+			_ >> it
+		}
+		ExecutionCustomizer.OutputListener outputListener = null
+
+		and:
+		robotExecutionStrategy.executeRobot(_) >> { UnaryOperator<ExecutionCustomizer> customizer ->
+			customizer.apply(executionCustomizer)
+			return Mono.just(new ProcessService.ExecutionResult(RobotService.ROBOT_EXIT_SUCCESS, "", "", Duration.ZERO))
+		}
+
+		when:
+		block Mono.zip(
+				eventsService.executeBatched("batch", script, [:], null, [], [], [:]),
+				eventsService.executeBatched("batch", script, [:], null, [], [], [:]))
+		[
+				["stderr", RobotEventsListener.EVENT_PREFIX + '{"type": "suite-start", "source": "/path/to/workspace1/main.robot"}'],
+				["stdout", "Member one output"],
+				["stderr", RobotEventsListener.EVENT_PREFIX + '{"type": "suite-end", "source": "/path/to/workspace1/main.robot"}'],
+				["stderr", RobotEventsListener.EVENT_PREFIX + '{"type": "suite-start", "source": "/path/to/workspace2/main.robot"}'],
+				["stdout", "Member two output"],
+				["stderr", RobotEventsListener.EVENT_PREFIX + '{"type": "suite-end", "source": "/path/to/workspace2/main.robot"}'],
+				["stdout", "Summary"]
+		].each { outputListener.onLine(it[0], it[1]) }
+
+		then:
+		1 * executionCustomizer.onOutput(_) >> { ExecutionCustomizer.OutputListener l ->
+			outputListener = l
+			return executionCustomizer
+		}
+
+		and:
+		1 * enabledEventService.publish(workspace1, "suite-start", _)
+		1 * enabledEventService.publish(workspace1, "suite-end", _)
+		1 * enabledEventService.publish(workspace2, "suite-start", _)
+		1 * enabledEventService.publish(workspace2, "suite-end", _)
+		1 * enabledEventService.publish(workspace1, "stdout", "Member one output")
+		0 * enabledEventService.publish(workspace2, "stdout", "Member one output")
+		1 * enabledEventService.publish(workspace2, "stdout", "Member two output")
+		0 * enabledEventService.publish(workspace1, "stdout", "Member two output")
+		1 * enabledEventService.publish(workspace1, "stdout", "Summary")
+		1 * enabledEventService.publish(workspace2, "stdout", "Summary")
+	}
 }
@@ -0,0 +1,120 @@
+package io.camunda.rpa.worker.robot
+
+import io.camunda.rpa.worker.PublisherUtils
+import io.camunda.rpa.worker.io.IO
+import io.camunda.rpa.worker.pexec.ProcessService
+import io.camunda.rpa.worker.python.PythonInterpreter
+import io.camunda.rpa.worker.python.PythonRuntimeProperties
+import org.springframework.beans.factory.ObjectProvider
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+import java.nio.file.Paths
+import java.time.Duration
+
+class RobotSessionServiceSpec extends Specification implements PublisherUtils {
+
+	ProcessService processService = Mock() {
+		execute(_, _) >> Mono.never()
+		killGracePeriod() >> Duration.ofSeconds(5)
+	}
+	ObjectProvider<PythonInterpreter> pythonInterpreter = Stub() {
+		getObject() >> new PythonInterpreter(Paths.get("/path/to/python"))
+	}
+	IO io = Stub() {
+		createTempDirectory(_) >> Paths.get("/path/to/session/")
+	}
+	ResolvedRobotExecutionStrategyType strategyType = { PythonRuntimeProperties.PythonRuntimeEnvironment.Python }
+	RobotExecutionStrategy fallback = Stub()
+
+	RobotSessionProperties properties = RobotSessionProperties.builder()
+			.enabled(true)
+			.maxSessions(1)
+			.idleTimeout(Duration.ofMinutes(15))
+			.build()
+	
+	RobotSessionService service = new RobotSessionService(properties, strategyType, processService, pythonInterpreter, io)
+	
+	void cleanup() {
+		service.destroy()
+	}
+
+	void "Runs without a session when there is no affinity key or sessions are disabled"() {
+		given:
+		RobotSessionService disabledService = new RobotSessionService(
+				properties.toBuilder().enabled(false).build(), strategyType, processService, pythonInterpreter, io)
+
+		expect:
+		block(service.withSession(null, fallback, strategy -> Mono.just(strategy))).is(fallback)
+		block(disabledService.withSession("key", fallback, strategy -> Mono.just(strategy))).is(fallback)
+	}
+
+	void "Reuses the session for the same affinity key"() {
+		when:
+		RobotExecutionStrategy first = block service.withSession("key", fallback, strategy -> Mono.just(strategy))
+		RobotExecutionStrategy second = block service.withSession("key", fallback, strategy -> Mono.just(strategy))
+
+		then:
+		first instanceof ZygoteRobotExecutionStrategy
+		second.is(first)
+	}
+
+	void "Replaces the least recently used idle session when the maximum number of sessions are running"() {
+		when:
+		RobotExecutionStrategy first = block service.withSession("key1", fallback, strategy -> Mono.just(strategy))
+		RobotExecutionStrategy second = block service.withSession("key2", fallback, strategy -> Mono.just(strategy))
+
+		then:
+		second instanceof ZygoteRobotExecutionStrategy
+		! second.is(first)
+	}
+
+	void "Runs without a session when every session is busy"() {
+		when:
+		RobotExecutionStrategy second = block service.withSession("key1", fallback, _ -> 
+				service.withSession("key2", fallback, strategy -> Mono.just(strategy)))
+
+		then:
+		second.is(fallback)
+	}
+
+	void "Stops replaced sessions without holding the session lock"() {
+		given:
+		RobotSessionService stoppingService = null
+		List<Boolean> lockHeld = []
+		IO stoppingIo = Stub() {
+			createTempDirectory(_) >> Paths.get("/path/to/session/")
+			deleteDirectoryRecursively(_) >> { lockHeld << Thread.holdsLock(stoppingService.@sessions) }
+		}
+		stoppingService = new RobotSessionService(properties, strategyType, processService, pythonInterpreter, stoppingIo)
+
+		when:
+		block stoppingService.withSession("key1", fallback, strategy -> Mono.just(strategy))
+		block stoppingService.withSession("key2", fallback, strategy -> Mono.just(strategy))
+		stoppingService.destroy()
+
+		then:
+		lockHeld == [false, false]
+	}
+
+	void "Acquires sessions off the calling thread"() {
+		given:
+		Thread caller = Thread.currentThread()
+		Thread acquiredOn = null
+		IO threadIo = Stub() {
+			createTempDirectory(_) >> { 
+				acquiredOn = Thread.currentThread()
+				return Paths.get("/path/to/session/")
+			}
+		}
+		RobotSessionService threadService = new RobotSessionService(properties, strategyType, processService, pythonInterpreter, threadIo)
+
+		when:
+		block threadService.withSession("key", fallback, strategy -> Mono.just(strategy))
+		threadService.destroy()
+
+		then:
+		acquiredOn != null
+		! acquiredOn.is(caller)
+	}
+}
@@ -0,0 +1,91 @@
+package io.camunda.rpa.worker.robot
+
+import io.camunda.rpa.worker.io.IO
+import io.camunda.rpa.worker.pexec.ExecutionCustomizer
+import io.camunda.rpa.worker.pexec.ProcessService
+import io.camunda.rpa.worker.python.PythonInterpreter
+import reactor.core.publisher.Mono
+import reactor.core.scheduler.Schedulers
+import spock.lang.Specification
+
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.time.Duration
+import java.util.function.UnaryOperator
+
+class ZygoteRobotExecutionStrategySpec extends Specification {
+	
+	ProcessService processService = Mock() {
+		killGracePeriod() >> Duration.ofMillis(2500)
+	}
+	PythonInterpreter pythonInterpreter = new PythonInterpreter(Paths.get("/path/to/python"))
+	Path runtimeDir = Paths.get("/path/to/zygote/")
+	IO io = Mock() {
+		createTempDirectory("rpa-worker-zygote") >> runtimeDir
+	}
+	RobotZygoteProperties properties = RobotZygoteProperties.builder()
+			.enabled(true)
+			.poolSize(2)
+			.preloadModules(["Browser"])
+			.build()
+	
+	void "Starts a pool of zygotes which preload the configured modules"() {
+		given:
+		ExecutionCustomizer ec = Mock(ExecutionCustomizer) {
+			_ >> it
+		}
+
+		when:
+		new ZygoteRobotExecutionStrategy(processService, pythonInterpreter, io, properties, Schedulers.immediate())
+		
+		then:
+		1 * io.writeString(runtimeDir.resolve(RobotZygote.SERVER_FILE_NAME), RobotZygote.SERVER_SOURCE, _)
+		1 * io.writeString(runtimeDir.resolve(RobotZygote.CLIENT_FILE_NAME), RobotZygote.CLIENT_SOURCE, _)
+		
+		and:
+		2 * processService.execute(pythonInterpreter.path(), _) >> { _, UnaryOperator<ExecutionCustomizer> fn ->
+			fn.apply(ec)
+			return Mono.never()
+		}
+		1 * ec.bindArg("zygoteSocket", runtimeDir.resolve("zygote-0.sock")) >> ec
+		1 * ec.bindArg("zygoteSocket", runtimeDir.resolve("zygote-1.sock")) >> ec
+		1 * ec.captureOutputTo(runtimeDir.resolve("zygote-0.log")) >> ec
+		1 * ec.captureOutputTo(runtimeDir.resolve("zygote-1.log")) >> ec
+		2 * ec.arg("2.5") >> ec
+		2 * ec.arg("Browser") >> ec
+	}
+	
+	void "Executes Robot through the zygotes in turn"() {
+		given:
+		processService.execute(pythonInterpreter.path(), _) >> Mono.never()
+		ZygoteRobotExecutionStrategy strategy = new ZygoteRobotExecutionStrategy(processService, pythonInterpreter, io, properties, Schedulers.immediate())
+		
+		and:
+		ExecutionCustomizer ec = Mock(ExecutionCustomizer) {
+			_ >> it
+		}
+		Mono<ProcessService.ExecutionResult> result = Stub()
+
+		when:
+		Mono<ProcessService.ExecutionResult> r1 = strategy.executeRobot(c -> c.arg("--rpa"))
+		Mono<ProcessService.ExecutionResult> r2 = strategy.executeRobot(c -> c.arg("--rpa"))
+		
+		then:
+		2 * processService.execute(pythonInterpreter.path(), _) >> { _, UnaryOperator<ExecutionCustomizer> fn ->
+			fn.apply(ec)
+			return result
+		}
+		
+		and:
+		2 * ec.arg("-S") >> ec
+		2 * ec.bindArg("zygoteClient", runtimeDir.resolve(RobotZygote.CLIENT_FILE_NAME)) >> ec
+		1 * ec.bindArg("zygoteSocket", runtimeDir.resolve("zygote-0.sock")) >> ec
+		1 * ec.bindArg("zygoteSocket", runtimeDir.resolve("zygote-1.sock")) >> ec
+		2 * ec.arg("--rpa") >> ec
+		2 * ec.sampleResources(false) >> ec
+		
+		and:
+		r1 == result
+		r2 == result
+	}
+}
@@ -0,0 +1,82 @@
+package io.camunda.rpa.worker.workspace
+
+import org.reactivestreams.Subscription
+import reactor.core.publisher.BaseSubscriber
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.nio.file.Paths
+import java.time.Duration
+
+class WorkspaceEventServiceSpec extends Specification {
+
+	Workspace workspace = new Workspace("workspace123", Paths.get("/path/to/workspace123"))
+
+	@Subject
+	WorkspaceEventService service = new WorkspaceEventService(WorkspaceEventProperties.builder()
+			.enabled(true)
+			.bufferSize(2)
+			.build())
+
+	void "Streams the events of a running execution to its followers until it finishes"() {
+		given:
+		service.beforeScriptExecution(workspace, Duration.ofMinutes(1))
+		List<WorkspaceEventService.WorkspaceEvent> received = []
+		boolean completed = false
+
+		when:
+		service.publish(workspace, "stdout", "Before following")
+		service.follow(workspace.id()).orElseThrow().subscribe({ received << it }, { }, { completed = true })
+		service.publish(workspace, "stdout", "Some output")
+		service.publish(workspace, "keyword-start", [name: "BuiltIn.Log"])
+		service.afterRobotExecution(workspace)
+
+		then:
+		received == [
+				new WorkspaceEventService.WorkspaceEvent("stdout", "Some output"),
+				new WorkspaceEventService.WorkspaceEvent("keyword-start", [name: "BuiltIn.Log"])]
+		completed
+		
+		and:
+		service.follow(workspace.id()).isEmpty()
+	}
+	
+	void "Drops the oldest events for followers which fall behind"() {
+		given:
+		service.beforeScriptExecution(workspace, Duration.ofMinutes(1))
+		List<WorkspaceEventService.WorkspaceEvent> received = []
+		BaseSubscriber<WorkspaceEventService.WorkspaceEvent> slowFollower = new BaseSubscriber<WorkspaceEventService.WorkspaceEvent>() {
+			@Override
+			protected void hookOnSubscribe(Subscription subscription) { }
+
+			@Override
+			protected void hookOnNext(WorkspaceEventService.WorkspaceEvent event) {
+				received << event
+			}
+		}
+
+		when:
+		service.follow(workspace.id()).orElseThrow().subscribe(slowFollower)
+		(1..5).each { service.publish(workspace, "stdout", "line ${it}".toString()) }
+		service.afterRobotExecution(workspace)
+		slowFollower.request(Long.MAX_VALUE)
+
+		then:
+		received == [
+				new WorkspaceEventService.WorkspaceEvent("stdout", "line 4"),
+				new WorkspaceEventService.WorkspaceEvent("stdout", "line 5")]
+	}
+
+	void "Does not stream events when disabled"() {
+		given:
+		WorkspaceEventService disabled = new WorkspaceEventService(WorkspaceEventProperties.builder()
+				.enabled(false)
+				.build())
+
+		when:
+		disabled.beforeScriptExecution(workspace, Duration.ofMinutes(1))
+
+		then:
+		disabled.follow(workspace.id()).isEmpty()
+	}
+}
@@ -0,0 +1,49 @@
+package io.camunda.rpa.worker.workspace.api
+
+import io.camunda.rpa.worker.PublisherUtils
+import io.camunda.rpa.worker.workspace.WorkspaceEventService
+import org.springframework.http.HttpStatus
+import org.springframework.http.ResponseEntity
+import org.springframework.http.codec.ServerSentEvent
+import reactor.core.publisher.Flux
+import spock.lang.Specification
+import spock.lang.Subject
+
+class WorkspaceEventsControllerSpec extends Specification implements PublisherUtils {
+	
+	WorkspaceEventService workspaceEventService = Mock()
+	
+	@Subject
+	WorkspaceEventsController controller = new WorkspaceEventsController(workspaceEventService)
+
+	void "Returns not found when there is no execution running in the Workspace"() {
+		when:
+		ResponseEntity<Flux<ServerSentEvent<Object>>> r = block controller.getWorkspaceEvents("abc123")
+		
+		then:
+		1 * workspaceEventService.follow("abc123") >> Optional.empty()
+		
+		and:
+		r.statusCode == HttpStatus.NOT_FOUND
+	}
+
+	void "Streams the events of the Workspace as server-sent events"() {
+		when:
+		ResponseEntity<Flux<ServerSentEvent<Object>>> r = block controller.getWorkspaceEvents("abc123")
+
+		then:
+		1 * workspaceEventService.follow("abc123") >> Optional.of(Flux.just(
+				new WorkspaceEventService.WorkspaceEvent("stdout", "Some output"),
+				new WorkspaceEventService.WorkspaceEvent("keyword-start", [name: "BuiltIn.Log"])))
+
+		and:
+		r.statusCode == HttpStatus.OK
+		
+		when:
+		List<ServerSentEvent<Object>> events = block r.body
+		
+		then:
+		events*.event() == ["stdout", "keyword-start"]
+		events*.data() == ["Some output", [name: "BuiltIn.Log"]]
+	}
+}
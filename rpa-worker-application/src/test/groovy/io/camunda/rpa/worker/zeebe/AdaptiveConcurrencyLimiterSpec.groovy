@@ -0,0 +1,133 @@
+package io.camunda.rpa.worker.zeebe
+
+import spock.lang.Specification
+
+import java.time.Duration
+
+class AdaptiveConcurrencyLimiterSpec extends Specification {
+
+	ZeebeProperties zeebeProperties = ZeebeProperties.builder()
+			.maxConcurrentJobs(4)
+			.build()
+
+	ZeebePollingProperties pollingProperties = ZeebePollingProperties.builder()
+			.adaptiveConcurrencyEnabled(true)
+			.adaptiveConcurrencyMinJobs(1)
+			.adaptiveConcurrencyMaxLoadPerCpu(1.0)
+			.adaptiveConcurrencyMinFreeMemory(0.1)
+			.adaptiveConcurrencyLatencyTolerance(2.0)
+			.adaptiveConcurrencyDecreaseRatio(0.5)
+			.build()
+
+	ZeebeMetricsService zeebeMetricsService = Mock()
+
+	AdaptiveConcurrencyLimiter.HostLoad hostLoad = new AdaptiveConcurrencyLimiter.HostLoad(0.5, 2, 0.5)
+
+	AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(zeebeProperties, pollingProperties, zeebeMetricsService, { hostLoad })
+
+	void "Uses the static maximum when disabled"() {
+		when:
+		AdaptiveConcurrencyLimiter disabled = new AdaptiveConcurrencyLimiter(
+				zeebeProperties,
+				pollingProperties.toBuilder().adaptiveConcurrencyEnabled(false).build(),
+				zeebeMetricsService,
+				{ hostLoad })
+
+		then:
+		! disabled.isEnabled()
+		disabled.limit() == 4
+	}
+
+	void "Grows the limit one at a time while it is in use, up to the maximum"() {
+		expect:
+		limiter.limit() == 1
+
+		when:
+		limiter.adjust(1)
+		limiter.adjust(2)
+		limiter.adjust(3)
+		int limit = limiter.adjust(4)
+
+		then:
+		limit == 4
+		1 * zeebeMetricsService.onConcurrencyLimitChanged(2)
+		1 * zeebeMetricsService.onConcurrencyLimitChanged(3)
+		1 * zeebeMetricsService.onConcurrencyLimitChanged(4)
+	}
+
+	void "Does not grow the limit while it is not in use"() {
+		given:
+		limiter.adjust(1)
+		limiter.adjust(2)
+
+		expect:
+		limiter.adjust(0) == 3
+	}
+
+	void "Cuts the limit back when the host is overloaded"(AdaptiveConcurrencyLimiter.HostLoad overloaded) {
+		given:
+		3.times { limiter.adjust(it + 1) }
+
+		when:
+		hostLoad = overloaded
+		int limit = limiter.adjust(4)
+
+		then:
+		limit == 2
+
+		where:
+		overloaded << [
+				new AdaptiveConcurrencyLimiter.HostLoad(3.0, 2, 0.5),
+				new AdaptiveConcurrencyLimiter.HostLoad(0.5, 2, 0.05)]
+	}
+
+	void "Cuts the limit back when job runtimes grow beyond their long-run average"() {
+		given:
+		3.times { limiter.adjust(it + 1) }
+		limiter.onJobFinished("job-type", Duration.ofSeconds(10))
+
+		when:
+		5.times { limiter.onJobFinished("job-type", Duration.ofSeconds(60)) }
+
+		then:
+		limiter.adjust(4) == 2
+	}
+
+	void "Does not mistake a slower job type for rising runtimes"() {
+		given:
+		3.times { limiter.adjust(it + 1) }
+		5.times { limiter.onJobFinished("quick-job", Duration.ofSeconds(10)) }
+
+		when:
+		5.times { limiter.onJobFinished("slow-job", Duration.ofSeconds(60)) }
+
+		then:
+		limiter.adjust(4) == 4
+	}
+
+	void "Forgets the runtimes of job types which have stopped running"() {
+		given:
+		AdaptiveConcurrencyLimiter expiring = new AdaptiveConcurrencyLimiter(
+				zeebeProperties,
+				pollingProperties.toBuilder().adaptiveConcurrencyLatencyExpiry(Duration.ofMillis(50)).build(),
+				zeebeMetricsService,
+				{ hostLoad })
+		3.times { expiring.adjust(it + 1) }
+		expiring.onJobFinished("job-type", Duration.ofSeconds(10))
+		5.times { expiring.onJobFinished("job-type", Duration.ofSeconds(60)) }
+
+		when:
+		Thread.sleep(100)
+
+		then:
+		expiring.adjust(4) == 4
+	}
+
+	void "Never cuts the limit below the minimum"() {
+		given:
+		hostLoad = new AdaptiveConcurrencyLimiter.HostLoad(10.0, 1, 0.5)
+
+		expect:
+		limiter.adjust(1) == 1
+	}
+}
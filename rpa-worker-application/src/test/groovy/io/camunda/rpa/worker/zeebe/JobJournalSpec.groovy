@@ -0,0 +1,250 @@
+package io.camunda.rpa.worker.zeebe
+
+import io.camunda.client.CamundaClient
+import io.camunda.client.api.command.CompleteJobCommandStep1
+import io.camunda.client.api.command.FailJobCommandStep1
+import io.camunda.client.api.response.ActivatedJob
+import io.camunda.client.impl.CamundaClientFutureImpl
+import io.camunda.rpa.worker.io.DefaultIO
+import io.camunda.rpa.worker.io.IO
+import io.grpc.Status
+import io.grpc.StatusRuntimeException
+import reactor.core.scheduler.Schedulers
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+import tools.jackson.databind.ObjectMapper
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.time.Duration
+
+class JobJournalSpec extends Specification {
+
+	Path journalPath = Files.createTempDirectory("journal")
+	IO io = new DefaultIO(Schedulers.immediate())
+	ObjectMapper objectMapper = new ObjectMapper()
+	CamundaClient zeebeClient = Mock()
+
+	ZeebeJobProperties jobProperties = ZeebeJobProperties.builder()
+			.journalEnabled(true)
+			.journalPath(journalPath)
+			.resultRetryBackoff(Duration.ofMillis(10))
+			.resultRetryMaxBackoff(Duration.ofMillis(50))
+			.build()
+
+	ActivatedJob job = Stub() {
+		getKey() >> 123L
+		getRetries() >> 3
+		getDeadline() >> System.currentTimeMillis() + 60_000
+	}
+
+	void cleanup() {
+		journalPath.toFile().deleteDir()
+	}
+
+	void "Sends results once without recording them when disabled"() {
+		given:
+		JobJournal journal = new JobJournal(jobProperties.toBuilder().journalEnabled(false).build(), zeebeClient, io, objectMapper, Schedulers.immediate())
+		CompleteJobCommandStep1 command = Mock()
+
+		when:
+		journal.onStarted(job)
+		journal.submit(job, JobJournal.Result.complete(null), command)
+		journal.onFinished(job)
+
+		then:
+		1 * command.send()
+
+		and:
+		Files.notExists(journalPath.resolve(JobJournal.JOURNAL_FILE_NAME))
+	}
+
+	void "Retries sending results until they are accepted"() {
+		given:
+		JobJournal journal = new JobJournal(jobProperties, zeebeClient, io, objectMapper, Schedulers.immediate())
+		CompleteJobCommandStep1 command = Mock()
+		PollingConditions conditions = new PollingConditions(timeout: 2)
+
+		when:
+		journal.onStarted(job)
+		journal.submit(job, JobJournal.Result.complete(null), command)
+		journal.onFinished(job)
+		conditions.eventually {
+			assert entries()*.type() == [JobJournal.EntryType.STARTED, JobJournal.EntryType.RESULT, JobJournal.EntryType.REPORTED]
+		}
+
+		then:
+		3 * command.send() >>> [
+				new CamundaClientFutureImpl<>().tap { completeExceptionally(new StatusRuntimeException(Status.UNAVAILABLE)) },
+				new CamundaClientFutureImpl<>().tap { completeExceptionally(new StatusRuntimeException(Status.UNAVAILABLE)) },
+				new CamundaClientFutureImpl<>().tap { complete(null) }]
+	}
+
+	void "Gives up sending results for jobs which no longer exist"() {
+		given:
+		JobJournal journal = new JobJournal(jobProperties, zeebeClient, io, objectMapper, Schedulers.immediate())
+		CompleteJobCommandStep1 command = Mock()
+
+		when:
+		journal.submit(job, JobJournal.Result.complete(null), command)
+
+		then:
+		1 * command.send() >> new CamundaClientFutureImpl<>().tap { completeExceptionally(new StatusRuntimeException(Status.NOT_FOUND)) }
+
+		and:
+		entries()*.type() == [JobJournal.EntryType.RESULT, JobJournal.EntryType.REPORTED]
+	}
+
+	void "Reports unsent results and fails orphaned jobs on recovery"() {
+		given:
+		long deadline = System.currentTimeMillis() + 60_000
+		journal([
+				new JobJournal.Entry(1L, JobJournal.EntryType.STARTED, 3, deadline, null),
+				new JobJournal.Entry(1L, JobJournal.EntryType.RESULT, 3, deadline, JobJournal.Result.complete([foo: 'bar'])),
+				new JobJournal.Entry(2L, JobJournal.EntryType.STARTED, 5, deadline, null),
+				new JobJournal.Entry(3L, JobJournal.EntryType.STARTED, 1, deadline, null),
+				new JobJournal.Entry(3L, JobJournal.EntryType.REPORTED, 1, deadline, null),
+				new JobJournal.Entry(4L, JobJournal.EntryType.STARTED, 1, System.currentTimeMillis() - 1_000, null)])
+
+		and:
+		JobJournal journal = new JobJournal(jobProperties, zeebeClient, io, objectMapper, Schedulers.immediate())
+
+		when:
+		journal.recover()
+
+		then:
+		1 * zeebeClient.newCompleteCommand(1L) >> Mock(CompleteJobCommandStep1) {
+			1 * variables([foo: 'bar']) >> Mock(CompleteJobCommandStep1) {
+				1 * send() >> new CamundaClientFutureImpl<>().tap { complete(null) }
+			}
+		}
+		1 * zeebeClient.newFailCommand(2L) >> Mock(FailJobCommandStep1) {
+			1 * retries(5) >> Mock(FailJobCommandStep1.FailJobCommandStep2) {
+				1 * errorMessage(_) >> it
+				1 * send() >> new CamundaClientFutureImpl<>().tap { complete(null) }
+			}
+		}
+		0 * zeebeClient._
+
+		and:
+		entries()*.jobKey() == [1L, 2L, 1L, 2L]
+		entries()*.type() == [JobJournal.EntryType.RESULT, JobJournal.EntryType.RESULT, JobJournal.EntryType.REPORTED, JobJournal.EntryType.REPORTED]
+	}
+
+	void "Discards results whose deadline has passed on recovery"() {
+		given:
+		journal([
+				new JobJournal.Entry(1L, JobJournal.EntryType.STARTED, 3, System.currentTimeMillis() - 1_000, null),
+				new JobJournal.Entry(1L, JobJournal.EntryType.RESULT, 3, System.currentTimeMillis() - 1_000, JobJournal.Result.complete([foo: 'bar']))])
+
+		and:
+		JobJournal journal = new JobJournal(jobProperties, zeebeClient, io, objectMapper, Schedulers.immediate())
+
+		when:
+		journal.recover()
+
+		then:
+		0 * zeebeClient._
+
+		and:
+		entries().isEmpty()
+	}
+
+	void "Reports results of jobs whose timeout was pushed back past their first deadline on recovery"() {
+		given:
+		long firstDeadline = System.currentTimeMillis() - 1_000
+		journal([
+				new JobJournal.Entry(1L, JobJournal.EntryType.STARTED, 3, firstDeadline, null),
+				new JobJournal.Entry(1L, JobJournal.EntryType.EXTENDED, 3, System.currentTimeMillis() + 60_000, null),
+				new JobJournal.Entry(1L, JobJournal.EntryType.RESULT, 3, firstDeadline, JobJournal.Result.complete(null)),
+				new JobJournal.Entry(2L, JobJournal.EntryType.STARTED, 5, firstDeadline, null),
+				new JobJournal.Entry(2L, JobJournal.EntryType.EXTENDED, 5, System.currentTimeMillis() + 60_000, null)])
+
+		and:
+		JobJournal journal = new JobJournal(jobProperties, zeebeClient, io, objectMapper, Schedulers.immediate())
+
+		when:
+		journal.recover()
+
+		then:
+		1 * zeebeClient.newCompleteCommand(1L) >> Mock(CompleteJobCommandStep1) {
+			1 * send() >> new CamundaClientFutureImpl<>().tap { complete(null) }
+		}
+		1 * zeebeClient.newFailCommand(2L) >> Mock(FailJobCommandStep1) {
+			1 * retries(5) >> Mock(FailJobCommandStep1.FailJobCommandStep2) {
+				1 * errorMessage(_) >> it
+				1 * send() >> new CamundaClientFutureImpl<>().tap { complete(null) }
+			}
+		}
+	}
+
+	void "Records the new deadline of a job when its timeout is pushed back"() {
+		given:
+		JobJournal journal = new JobJournal(jobProperties, zeebeClient, io, objectMapper, Schedulers.immediate())
+		long before = System.currentTimeMillis()
+
+		when:
+		journal.onStarted(job)
+		journal.onTimeoutUpdated(job, Duration.ofMinutes(10))
+
+		then:
+		entries()*.type() == [JobJournal.EntryType.STARTED, JobJournal.EntryType.EXTENDED]
+		entries().last().deadline() >= before + Duration.ofMinutes(10).toMillis()
+	}
+
+	void "Skips entries which cannot be read on recovery"() {
+		given:
+		long deadline = System.currentTimeMillis() + 60_000
+		journal([new JobJournal.Entry(1L, JobJournal.EntryType.RESULT, 3, deadline, JobJournal.Result.complete(null))])
+		Files.writeString(journalPath.resolve(JobJournal.JOURNAL_FILE_NAME), '{"jobKey":2,"type":"RES', StandardOpenOption.APPEND)
+
+		and:
+		JobJournal journal = new JobJournal(jobProperties, zeebeClient, io, objectMapper, Schedulers.immediate())
+
+		when:
+		journal.recover()
+
+		then:
+		1 * zeebeClient.newCompleteCommand(1L) >> Mock(CompleteJobCommandStep1) {
+			1 * send() >> new CamundaClientFutureImpl<>().tap { complete(null) }
+		}
+		0 * zeebeClient._
+	}
+
+	void "Compacts the journal once enough entries have been written"() {
+		given:
+		JobJournal journal = new JobJournal(jobProperties.toBuilder().journalCompactionThreshold(4).build(), zeebeClient, io, objectMapper, Schedulers.immediate())
+		ActivatedJob otherJob = Stub() {
+			getKey() >> 456L
+			getRetries() >> 3
+			getDeadline() >> System.currentTimeMillis() + 60_000
+		}
+
+		when:
+		journal.onStarted(job)
+		journal.onFinished(job)
+		journal.onStarted(otherJob)
+
+		then:
+		entries()*.jobKey() == [123L, 123L, 456L]
+
+		when:
+		journal.onStarted(job)
+
+		then:
+		entries()*.jobKey() == [456L, 123L]
+		entries()*.type() == [JobJournal.EntryType.STARTED, JobJournal.EntryType.STARTED]
+	}
+
+	private void journal(List<JobJournal.Entry> entries) {
+		Files.writeString(journalPath.resolve(JobJournal.JOURNAL_FILE_NAME),
+				entries.collect { objectMapper.writeValueAsString(it) + "\n" }.join(""))
+	}
+
+	private List<JobJournal.Entry> entries() {
+		return Files.readAllLines(journalPath.resolve(JobJournal.JOURNAL_FILE_NAME))
+				.findAll { ! it.isBlank() }
+				.collect { objectMapper.readValue(it, JobJournal.Entry) }
+	}
+}
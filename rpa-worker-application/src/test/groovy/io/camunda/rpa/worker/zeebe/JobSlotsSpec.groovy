@@ -0,0 +1,137 @@
+package io.camunda.rpa.worker.zeebe
+
+import io.camunda.rpa.worker.PublisherUtils
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+import spock.lang.Subject
+
+class JobSlotsSpec extends Specification implements PublisherUtils {
+
+	@Subject
+	JobSlots slots = new JobSlots(3)
+
+	void "Reserves up to the requested number of free slots"() {
+		expect:
+		block(slots.reserve("type", 2)) == 2
+		slots.available() == 1
+
+		and:
+		block(slots.reserve("type", 5)) == 1
+		slots.available() == 0
+	}
+
+	void "Waits for a slot to be released when none are free"() {
+		given:
+		block(slots.reserve("type", 3))
+
+		when:
+		Mono<Integer> waiting = slots.reserve("type", 2).cache()
+		waiting.subscribe()
+
+		then:
+		! waiting.toFuture().isDone()
+
+		when:
+		slots.release("type", 1)
+
+		then:
+		block(waiting) == 1
+		slots.available() == 0
+	}
+
+	void "Does not hand released slots to cancelled reservations"() {
+		given:
+		block(slots.reserve("type", 3))
+
+		when:
+		slots.reserve("type", 1).subscribe().dispose()
+		slots.release("type", 2)
+
+		then:
+		slots.available() == 2
+	}
+
+	void "Hands out newly added slots when resized"() {
+		given:
+		block(slots.reserve("type", 3))
+		Mono<Integer> waiting = slots.reserve("type", 2).cache()
+		waiting.subscribe()
+
+		when:
+		slots.resize(4)
+
+		then:
+		block(waiting) == 1
+		slots.capacity() == 4
+	}
+
+	void "Stops handing out slots when resized below the slots in use"() {
+		given:
+		block(slots.reserve("type", 3))
+
+		when:
+		slots.resize(1)
+		slots.release("type", 1)
+
+		then:
+		slots.available() == 0
+		slots.tryReserve("type", 1) == 0
+
+		when:
+		slots.release("type", 1)
+
+		then:
+		slots.tryReserve("type", 1) == 1
+	}
+
+	void "Limits the slots used by a job type"() {
+		given:
+		JobSlots limitedSlots = new JobSlots(3, [
+				"limited": new ZeebePollingProperties.TagLimits(1, 0, 1)])
+
+		expect:
+		limitedSlots.tryReserve("limited", 3) == 1
+		limitedSlots.available("limited") == 0
+		limitedSlots.available("other") == 2
+	}
+
+	void "Holds back reserved slots for their job type"() {
+		given:
+		JobSlots reservedSlots = new JobSlots(3, [
+				"reserved": new ZeebePollingProperties.TagLimits(0, 2, 1)])
+
+		expect:
+		reservedSlots.tryReserve("other", 3) == 1
+		reservedSlots.available("other") == 0
+		reservedSlots.available("reserved") == 2
+
+		and:
+		reservedSlots.tryReserve("reserved", 1) == 1
+		reservedSlots.available("other") == 0
+		reservedSlots.available("reserved") == 1
+	}
+
+	void "Hands released slots to waiting job types in proportion to their weight"() {
+		given:
+		JobSlots weightedSlots = new JobSlots(4, [
+				"heavy": new ZeebePollingProperties.TagLimits(0, 0, 3),
+				"light": new ZeebePollingProperties.TagLimits(0, 0, 1)])
+
+		and:
+		weightedSlots.tryReserve("heavy", 2)
+		weightedSlots.tryReserve("light", 2)
+
+		and:
+		Mono<Integer> lightWaiting = weightedSlots.reserve("light", 1).cache()
+		Mono<Integer> heavyWaiting = weightedSlots.reserve("heavy", 1).cache()
+		lightWaiting.subscribe()
+		heavyWaiting.subscribe()
+
+		when:
+		weightedSlots.release("light", 1)
+
+		then:
+		block(heavyWaiting) == 1
+		! lightWaiting.toFuture().isDone()
+	}
+}
@@ -0,0 +1,109 @@
+package io.camunda.rpa.worker.zeebe
+
+import io.camunda.client.api.response.ActivatedJob
+import spock.lang.Specification
+import spock.lang.Subject
+
+class ReadyQueueSpec extends Specification {
+
+	JobSlots slots = new JobSlots(1)
+
+	@Subject
+	ReadyQueue queue = new ReadyQueue(slots, 2, Comparator.comparingLong(ActivatedJob::getDeadline))
+
+	void "Has space for a job for each free slot and each place in the queue"() {
+		expect:
+		queue.space("type") == 3
+
+		when:
+		int claimed = queue.claim("type", 5)
+
+		then:
+		claimed == 3
+		queue.space("type") == 0
+	}
+
+	void "Gives up claimed space which was not used once the jobs are queued"() {
+		given:
+		int claimed = queue.claim("type", 3)
+
+		when:
+		queue.offer("type", claimed, [aJob(1)])
+
+		then:
+		queue.queued() == 1
+		queue.space("type") == 2
+	}
+
+	void "Takes jobs in run order for as long as they can be started"() {
+		given:
+		ActivatedJob late = aJob(3)
+		ActivatedJob early = aJob(1)
+		ActivatedJob middle = aJob(2)
+		queue.offer("type", 0, [late, early, middle])
+
+		when:
+		List<ActivatedJob> taken = queue.take { entry -> slots.tryReserve(entry.jobType(), 1) > 0 ? entry.job() : null }
+
+		then:
+		taken == [early]
+		queue.queued() == 2
+
+		when:
+		slots.release("type", 1)
+		taken = queue.take { entry -> slots.tryReserve(entry.jobType(), 1) > 0 ? entry.job() : null }
+
+		then:
+		taken == [middle]
+	}
+
+	void "Starts jobs without holding the lock of the queue, while still counting them as queued"() {
+		given:
+		queue.offer("type", 0, [aJob(1)])
+		List<Boolean> lockHeld = []
+		List<Integer> queuedWhileStarting = []
+
+		when:
+		queue.take { entry ->
+			lockHeld << Thread.holdsLock(queue)
+			queuedWhileStarting << queue.queued()
+			return entry.job()
+		}
+
+		then:
+		lockHeld == [false]
+		queuedWhileStarting == [1]
+		queue.queued() == 0
+	}
+
+	void "Keeps the jobs which were not started when starting a job fails"() {
+		given:
+		ActivatedJob early = aJob(1)
+		ActivatedJob late = aJob(2)
+		queue.offer("type", 0, [late, early])
+
+		when:
+		queue.take { _ -> throw new IllegalStateException("Failed to start") }
+
+		then:
+		thrown(IllegalStateException)
+		queue.queued() == 2
+		queue.drain() as Set == [early, late] as Set
+	}
+
+	void "Empties the queue when drained"() {
+		given:
+		ActivatedJob job = aJob(1)
+		queue.offer("type", 0, [job])
+
+		expect:
+		queue.drain() == [job]
+		queue.queued() == 0
+	}
+
+	private ActivatedJob aJob(long deadline) {
+		return Stub(ActivatedJob) {
+			getDeadline() >> deadline
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package io.camunda.rpa.worker.zeebe
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+
+class TagBackoffSpec extends Specification {
+
+	Instant now = Instant.parse("2025-01-01T00:00:00Z")
+	Clock clock = Stub() {
+		instant() >> { now }
+	}
+
+	@Subject
+	TagBackoff backoff = new TagBackoff(Duration.ofSeconds(1), Duration.ofSeconds(5), 2, clock)
+
+	void "Job types are eligible until they have an empty poll"() {
+		expect:
+		backoff.isEligible("type-one")
+
+		when:
+		backoff.onEmptyPoll("type-one", Duration.ZERO)
+
+		then:
+		! backoff.isEligible("type-one")
+		backoff.isEligible("type-two")
+		backoff.remaining("type-one") == Duration.ofSeconds(1)
+	}
+
+	void "Backs off further with each consecutive empty poll, up to the maximum"() {
+		expect:
+		[1, 2, 4, 5, 5].every { expectedSeconds ->
+			backoff.onEmptyPoll("type-one", Duration.ZERO)
+			return backoff.remaining("type-one") == Duration.ofSeconds(expectedSeconds)
+		}
+	}
+
+	void "Applies minimum delay"() {
+		when:
+		backoff.onEmptyPoll("type-one", Duration.ofSeconds(3))
+
+		then:
+		backoff.remaining("type-one") == Duration.ofSeconds(3)
+	}
+
+	void "Resets when a poll returns jobs"() {
+		given:
+		3.times { backoff.onEmptyPoll("type-one", Duration.ZERO) }
+
+		when:
+		backoff.onJobs("type-one")
+
+		then:
+		backoff.isEligible("type-one")
+
+		when:
+		backoff.onEmptyPoll("type-one", Duration.ZERO)
+
+		then:
+		backoff.remaining("type-one") == Duration.ofSeconds(1)
+	}
+
+	void "Becomes eligible again once the delay has passed"() {
+		given:
+		backoff.onEmptyPoll("type-one", Duration.ZERO)
+		backoff.onEmptyPoll("type-two", Duration.ZERO)
+		backoff.onEmptyPoll("type-two", Duration.ZERO)
+
+		expect:
+		backoff.nextEligible() == Duration.ofSeconds(1)
+
+		when:
+		now = now.plusSeconds(1)
+
+		then:
+		backoff.isEligible("type-one")
+		! backoff.isEligible("type-two")
+	}
+}
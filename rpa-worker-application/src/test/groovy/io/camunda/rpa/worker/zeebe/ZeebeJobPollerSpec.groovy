@@ -3,17 +3,22 @@ package io.camunda.rpa.worker.zeebe
 import io.camunda.client.CamundaClient
 import io.camunda.client.api.CamundaFuture
 import io.camunda.client.api.command.ActivateJobsCommandStep1
+import io.camunda.client.api.command.FailJobCommandStep1
 import io.camunda.client.api.command.FinalCommandStep
+import io.camunda.client.api.command.StreamJobsCommandStep1
 import io.camunda.client.api.response.ActivateJobsResponse
 import io.camunda.client.api.response.ActivatedJob
+import io.camunda.client.impl.CamundaClientFutureImpl
 import reactor.core.publisher.Mono
 import reactor.core.publisher.Sinks
 import reactor.core.scheduler.Schedulers
 import spock.lang.Specification
 import spock.lang.Subject
 
+import java.time.Duration
 import java.util.concurrent.CountDownLatch
 import java.util.function.BiFunction
+import java.util.function.Consumer
 
 class ZeebeJobPollerSpec extends Specification {
 	
@@ -26,11 +31,20 @@ class ZeebeJobPollerSpec extends Specification {
 			.workerTags(["tag-one", "tag-two"].toSet())
 			.maxConcurrentJobs(1)
 			.build()
+	
+	ZeebePollingProperties pollingProperties = ZeebePollingProperties.builder()
+			.batchActivation(false)
+			.streamingEnabled(false)
+			.streamingFallbackPollInterval(Duration.ofSeconds(10))
+			.idleBackoffEnabled(false)
+			.drainTimeout(Duration.ZERO)
+			.build()
 
 	CamundaClient zeebeClient = Stub() {
 		newActivateJobsCommand() >> { activate1 }
 	}
 	ZeebeJobService zeebeJobService = Mock()
+	AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(zeebeProperties, pollingProperties, Stub(ZeebeMetricsService))
 	
 	List<String> pollQueue
 	Iterable<String> tagGenerator = Stub() {
@@ -41,7 +55,7 @@ class ZeebeJobPollerSpec extends Specification {
 	Sinks.One<?> failDelayGeneratorSink
 
 	@Subject
-	ZeebeJobPoller jobPoller = new ZeebeJobPoller(zeebeProperties, zeebeClient, zeebeJobService, tagGenerator, { 
+	ZeebeJobPoller jobPoller = new ZeebeJobPoller(zeebeProperties, pollingProperties, zeebeClient, zeebeJobService, concurrencyLimiter, tagGenerator, { 
 		failDelayGeneratorSink = Sinks.one()
 		return failDelayGeneratorSink.asMono()
 	})
@@ -78,7 +92,7 @@ class ZeebeJobPollerSpec extends Specification {
 		jobPoller.init()
 		
 		then:
-		1 * zeebeJobService.handleJob(job) >> Mono.empty()
+		1 * zeebeJobService.handleJob(job, _) >> Mono.empty()
 	}
 
 	void "Polls up to job limit"() {
@@ -97,15 +111,15 @@ class ZeebeJobPollerSpec extends Specification {
 		jobPoller.init()
 
 		then:
-		1 * zeebeJobService.handleJob(job1) >> Mono.fromRunnable { job1Latch.await() }.subscribeOn(Schedulers.boundedElastic())
-		0 * zeebeJobService.handleJob(job2) 
+		1 * zeebeJobService.handleJob(job1, _) >> Mono.fromRunnable { job1Latch.await() }.subscribeOn(Schedulers.boundedElastic())
+		0 * zeebeJobService.handleJob(job2, _) 
 		
 		when:
 		job1Latch.countDown()
 		job2Latch.await()
 		
 		then:
-		1 * zeebeJobService.handleJob(job2) >> {
+		1 * zeebeJobService.handleJob(job2, _) >> {
 			job2Latch.countDown()
 			return Mono.empty() 
 		}
@@ -129,16 +143,18 @@ class ZeebeJobPollerSpec extends Specification {
 		@Subject
 		ZeebeJobPoller concurrentPoller = new ZeebeJobPoller(
 				zeebeProperties.toBuilder().maxConcurrentJobs(2).build(),
+				pollingProperties,
 				zeebeClient,
-				zeebeJobService)
+				zeebeJobService,
+				concurrencyLimiter)
 
 		when:
 		concurrentPoller.init()
 
 		then:
-		1 * zeebeJobService.handleJob(job1) >> Mono.fromRunnable { job1Latch.await() }.subscribeOn(Schedulers.boundedElastic())
-		1 * zeebeJobService.handleJob(job2) >> Mono.fromRunnable { job2Latch.await() }.subscribeOn(Schedulers.boundedElastic())
-		0 * zeebeJobService.handleJob(job3)
+		1 * zeebeJobService.handleJob(job1, _) >> Mono.fromRunnable { job1Latch.await() }.subscribeOn(Schedulers.boundedElastic())
+		1 * zeebeJobService.handleJob(job2, _) >> Mono.fromRunnable { job2Latch.await() }.subscribeOn(Schedulers.boundedElastic())
+		0 * zeebeJobService.handleJob(job3, _)
 
 		when:
 		job1Latch.countDown()
@@ -146,7 +162,7 @@ class ZeebeJobPollerSpec extends Specification {
 		job3Latch.await()
 
 		then:
-		1 * zeebeJobService.handleJob(job3) >> {
+		1 * zeebeJobService.handleJob(job3, _) >> {
 			job3Latch.countDown()
 			return Mono.empty()
 		}
@@ -170,17 +186,481 @@ class ZeebeJobPollerSpec extends Specification {
 		
 		then:
 		1 * activate1.jobType(TASK_PREFIX + "tag-two") >> activateJobClientCall(job)
-		1 * zeebeJobService.handleJob(job) >> { Mono.error(new RuntimeException("Error in handler!")) }
+		1 * zeebeJobService.handleJob(job, _) >> { Mono.error(new RuntimeException("Error in handler!")) }
 
 		then:
 		1 * activate1.jobType(TASK_PREFIX + "tag-one") >> activateJobClientCall()
 	}
 
+	void "Activates as many jobs as there are free slots in batch mode"() {
+		given:
+		ActivatedJob job1 = Stub()
+		ActivatedJob job2 = Stub()
+		ActivatedJob job3 = Stub()
+
+		and:
+		pollQueue = ["tag-one", "tag-two"]
+
+		and:
+		@Subject
+		ZeebeJobPoller batchPoller = new ZeebeJobPoller(
+				zeebeProperties.toBuilder().maxConcurrentJobs(3).build(),
+				pollingProperties.toBuilder().batchActivation(true).build(),
+				zeebeClient,
+				zeebeJobService,
+				concurrencyLimiter,
+				tagGenerator,
+				{ Mono.never() })
+
+		when:
+		batchPoller.init()
+
+		then:
+		1 * activate1.jobType(TASK_PREFIX + "tag-one") >> activateJobsClientCall(3, [job1, job2])
+
+		then:
+		1 * activate1.jobType(TASK_PREFIX + "tag-two") >> activateJobsClientCall(1, [job3])
+		1 * zeebeJobService.handleJob(job1, _) >> Mono.never()
+		1 * zeebeJobService.handleJob(job2, _) >> Mono.never()
+		1 * zeebeJobService.handleJob(job3, _) >> Mono.never()
+	}
+
+	void "Runs activated jobs by priority and then earliest deadline"() {
+		given:
+		long now = System.currentTimeMillis()
+		ActivatedJob late = Stub() {
+			getDeadline() >> now + 60_000
+		}
+		ActivatedJob early = Stub() {
+			getDeadline() >> now + 30_000
+		}
+		ActivatedJob urgent = Stub() {
+			getDeadline() >> now + 90_000
+			getCustomHeaders() >> [(ZeebeJobPoller.PRIORITY_HEADER_NAME): "10"]
+		}
+
+		and:
+		pollQueue = ["tag-one"]
+		activate1.jobType(TASK_PREFIX + "tag-one") >> activateJobsClientCall(3, [late, early, urgent])
+
+		and:
+		@Subject
+		ZeebeJobPoller batchPoller = new ZeebeJobPoller(
+				zeebeProperties.toBuilder().maxConcurrentJobs(3).build(),
+				pollingProperties.toBuilder().batchActivation(true).build(),
+				zeebeClient,
+				zeebeJobService,
+				concurrencyLimiter,
+				tagGenerator,
+				{ Mono.never() })
+
+		when:
+		batchPoller.init()
+
+		then:
+		1 * zeebeJobService.handleJob(urgent, _) >> Mono.never()
+
+		then:
+		1 * zeebeJobService.handleJob(early, _) >> Mono.never()
+
+		then:
+		1 * zeebeJobService.handleJob(late, _) >> Mono.never()
+	}
+
+	void "Hands waiting jobs of every tag to the next free slot by priority"() {
+		given:
+		ActivatedJob first = Stub()
+		ActivatedJob ordinary = Stub() {
+			getDeadline() >> System.currentTimeMillis() + 30_000
+		}
+		ActivatedJob urgent = Stub() {
+			getDeadline() >> System.currentTimeMillis() + 60_000
+			getCustomHeaders() >> [(ZeebeJobPoller.PRIORITY_HEADER_NAME): "10"]
+		}
+		CountDownLatch firstLatch = new CountDownLatch(1)
+		CountDownLatch urgentLatch = new CountDownLatch(1)
+
+		and:
+		pollQueue = ["tag-one", "tag-two", "tag-one"]
+		activate1.jobType(TASK_PREFIX + "tag-one") >>> [activateJobClientCall(first), activateJobClientCall(urgent)]
+		activate1.jobType(TASK_PREFIX + "tag-two") >> activateJobClientCall(ordinary)
+
+		and:
+		@Subject
+		ZeebeJobPoller queueingPoller = new ZeebeJobPoller(
+				zeebeProperties,
+				pollingProperties.toBuilder().readyQueueSize(2).build(),
+				zeebeClient,
+				zeebeJobService,
+				concurrencyLimiter,
+				tagGenerator,
+				{ Mono.never() })
+
+		when:
+		queueingPoller.init()
+
+		then:
+		1 * zeebeJobService.handleJob(first, _) >> Mono.fromRunnable { firstLatch.await() }.subscribeOn(Schedulers.boundedElastic())
+		0 * zeebeJobService.handleJob(_, _)
+
+		when:
+		firstLatch.countDown()
+		urgentLatch.await()
+
+		then:
+		1 * zeebeJobService.handleJob(urgent, _) >> {
+			urgentLatch.countDown()
+			return Mono.never()
+		}
+		0 * zeebeJobService.handleJob(ordinary, _)
+	}
+
+	void "Hands back jobs which are too close to their deadline"() {
+		given:
+		ActivatedJob job = Stub() {
+			getDeadline() >> System.currentTimeMillis() + 1_000
+			getRetries() >> 3
+		}
+
+		and:
+		zeebeClient.newFailCommand(job) >> Mock(FailJobCommandStep1) {
+			1 * retries(3) >> Mock(FailJobCommandStep1.FailJobCommandStep2) {
+				1 * retryBackoff(Duration.ZERO) >> it
+				1 * errorMessage(_) >> it
+				1 * send() >> new CamundaClientFutureImpl<>().tap { complete(null) }
+			}
+		}
+
+		and:
+		pollQueue = ["tag-one"]
+		activate1.jobType(TASK_PREFIX + "tag-one") >> activateJobClientCall(job)
+
+		and:
+		@Subject
+		ZeebeJobPoller deadlinePoller = new ZeebeJobPoller(
+				zeebeProperties,
+				pollingProperties.toBuilder().minTimeToDeadline(Duration.ofMinutes(1)).build(),
+				zeebeClient,
+				zeebeJobService,
+				concurrencyLimiter,
+				tagGenerator,
+				{ Mono.never() })
+
+		when:
+		deadlinePoller.init()
+
+		then:
+		0 * zeebeJobService.handleJob(job, _)
+	}
+
+	void "Skips polling idle tags while they are backing off"() {
+		given:
+		ActivatedJob job = Stub()
+
+		and:
+		pollQueue = ["tag-one", "tag-two", "tag-one", "tag-two"]
+
+		and:
+		@Subject
+		ZeebeJobPoller backoffPoller = new ZeebeJobPoller(
+				zeebeProperties,
+				pollingProperties.toBuilder()
+						.idleBackoffEnabled(true)
+						.idleBackoffInitial(Duration.ofMinutes(1))
+						.idleBackoffMax(Duration.ofMinutes(5))
+						.idleBackoffMultiplier(2)
+						.build(),
+				zeebeClient,
+				zeebeJobService,
+				concurrencyLimiter,
+				tagGenerator,
+				{ Mono.never() })
+
+		when:
+		backoffPoller.init()
+
+		then:
+		1 * activate1.jobType(TASK_PREFIX + "tag-one") >> activateJobClientCall()
+
+		then:
+		1 * activate1.jobType(TASK_PREFIX + "tag-two") >> activateJobClientCall(job)
+		1 * zeebeJobService.handleJob(job, _) >> Mono.empty()
+
+		then:
+		1 * activate1.jobType(TASK_PREFIX + "tag-two") >> activateJobClientCall()
+		0 * activate1._
+	}
+
+	void "Skips tags which have used up their own limit while other tags have free slots"() {
+		given:
+		ActivatedJob job1 = Stub()
+		ActivatedJob job2 = Stub()
+
+		and:
+		pollQueue = ["tag-one", "tag-one", "tag-two"]
+
+		and:
+		@Subject
+		ZeebeJobPoller limitedPoller = new ZeebeJobPoller(
+				zeebeProperties.toBuilder().maxConcurrentJobs(2).build(),
+				pollingProperties.toBuilder()
+						.tags(["tag-one": new ZeebePollingProperties.TagLimits(1, 0, 1)])
+						.build(),
+				zeebeClient,
+				zeebeJobService,
+				concurrencyLimiter,
+				tagGenerator,
+				{ Mono.never() })
+
+		when:
+		limitedPoller.init()
+
+		then:
+		1 * activate1.jobType(TASK_PREFIX + "tag-one") >> activateJobClientCall(job1)
+		1 * zeebeJobService.handleJob(job1, _) >> Mono.never()
+
+		then:
+		1 * activate1.jobType(TASK_PREFIX + "tag-two") >> activateJobClientCall(job2)
+		1 * zeebeJobService.handleJob(job2, _) >> Mono.never()
+		0 * activate1._
+	}
+
+	void "Frees the slot for the next job once the Robot has finished while results are post-processed"() {
+		given:
+		ActivatedJob job1 = Stub()
+		ActivatedJob job2 = Stub()
+		ActivatedJob job3 = Stub()
+
+		and:
+		pollQueue = ["tag-one", "tag-one", "tag-one"]
+
+		and:
+		@Subject
+		ZeebeJobPoller postProcessingPoller = new ZeebeJobPoller(
+				zeebeProperties,
+				pollingProperties.toBuilder().postProcessingMaxJobs(1).build(),
+				zeebeClient,
+				zeebeJobService,
+				concurrencyLimiter,
+				tagGenerator,
+				{ Mono.never() })
+
+		when:
+		postProcessingPoller.init()
+
+		then:
+		1 * activate1.jobType(TASK_PREFIX + "tag-one") >> activateJobClientCall(job1)
+		1 * zeebeJobService.handleJob(job1, _) >> { ActivatedJob activated, Consumer<Duration> robotFinished ->
+			robotFinished.accept(Duration.ofSeconds(1))
+			return Mono.never()
+		}
+
+		then:
+		1 * activate1.jobType(TASK_PREFIX + "tag-one") >> activateJobClientCall(job2)
+		1 * zeebeJobService.handleJob(job2, _) >> { ActivatedJob activated, Consumer<Duration> robotFinished ->
+			robotFinished.accept(Duration.ofSeconds(1))
+			return Mono.never()
+		}
+		
+		and:
+		0 * activate1._
+		0 * zeebeJobService.handleJob(job3, _)
+	}
+
+	void "Fetches only the variables needed to run the job when restricted"() {
+		given:
+		pollQueue = ["tag-one", "tag-two"]
+
+		and:
+		@Subject
+		ZeebeJobPoller restrictedPoller = new ZeebeJobPoller(
+				zeebeProperties,
+				pollingProperties.toBuilder()
+						.restrictFetchedVariables(true)
+						.fetchVariables(["tag-two": ["otherVar"]])
+						.build(),
+				zeebeClient,
+				zeebeJobService,
+				concurrencyLimiter,
+				tagGenerator,
+				{ Mono.never() })
+
+		when:
+		restrictedPoller.init()
+
+		then:
+		1 * activate1.jobType(TASK_PREFIX + "tag-one") >> activateJobsClientCall(1, [], 
+				[ZeebeJobService.RPA_INPUT_VARIABLE_NAME, TaskTestingZeebeResultsProcessor.TASK_TESTING_VARIABLE_NAME])
+
+		then:
+		1 * activate1.jobType(TASK_PREFIX + "tag-two") >> activateJobsClientCall(1, [],
+				[ZeebeJobService.RPA_INPUT_VARIABLE_NAME, TaskTestingZeebeResultsProcessor.TASK_TESTING_VARIABLE_NAME, "otherVar"])
+	}
+
+	void "Opens a job stream for each tag and runs streamed jobs when streaming is enabled"() {
+		given:
+		Map<String, Consumer<ActivatedJob>> streams = stubJobStreams()
+		ActivatedJob job = Stub()
+
+		and:
+		pollQueue = []
+
+		and:
+		@Subject
+		ZeebeJobPoller streamingPoller = new ZeebeJobPoller(
+				zeebeProperties,
+				pollingProperties.toBuilder().streamingEnabled(true).build(),
+				zeebeClient,
+				zeebeJobService,
+				concurrencyLimiter,
+				tagGenerator,
+				{ Mono.never() })
+
+		when:
+		streamingPoller.init()
+
+		then:
+		streams.keySet() == [TASK_PREFIX + "tag-one", TASK_PREFIX + "tag-two"].toSet()
+
+		when:
+		streams[TASK_PREFIX + "tag-two"].accept(job)
+
+		then:
+		1 * zeebeJobService.handleJob(job, _) >> Mono.never()
+	}
+
+	void "Yields streamed jobs back to Zeebe when there is no free capacity"() {
+		given:
+		Map<String, Consumer<ActivatedJob>> streams = stubJobStreams()
+		ActivatedJob job1 = Stub()
+		ActivatedJob job2 = Stub() {
+			getRetries() >> 3
+		}
+
+		and:
+		zeebeClient.newFailCommand(job2) >> Mock(FailJobCommandStep1) {
+			1 * retries(3) >> Mock(FailJobCommandStep1.FailJobCommandStep2) {
+				1 * retryBackoff(Duration.ZERO) >> it
+				1 * errorMessage(_) >> it
+				1 * send() >> new CamundaClientFutureImpl<>().tap { complete(null) }
+			}
+		}
+
+		and:
+		pollQueue = []
+
+		and:
+		@Subject
+		ZeebeJobPoller streamingPoller = new ZeebeJobPoller(
+				zeebeProperties,
+				pollingProperties.toBuilder().streamingEnabled(true).build(),
+				zeebeClient,
+				zeebeJobService,
+				concurrencyLimiter,
+				tagGenerator,
+				{ Mono.never() })
+
+		and:
+		streamingPoller.init()
+		Consumer<ActivatedJob> stream = streams[TASK_PREFIX + "tag-one"]
+
+		when:
+		stream.accept(job1)
+		stream.accept(job2)
+
+		then:
+		1 * zeebeJobService.handleJob(job1, _) >> Mono.never()
+		0 * zeebeJobService.handleJob(job2, _)
+	}
+
+	void "Hands back in-flight jobs which do not finish before the drain timeout on shutdown"() {
+		given:
+		ActivatedJob job = Stub() {
+			getRetries() >> 3
+		}
+
+		and:
+		pollQueue = ["tag-one"]
+		activate1.jobType(TASK_PREFIX + "tag-one") >> activateJobClientCall(job)
+		zeebeJobService.handleJob(job, _) >> Mono.never()
+
+		and:
+		zeebeClient.newFailCommand(job) >> Mock(FailJobCommandStep1) {
+			1 * retries(3) >> Mock(FailJobCommandStep1.FailJobCommandStep2) {
+				1 * retryBackoff(Duration.ZERO) >> it
+				1 * errorMessage("The worker is shutting down") >> it
+				1 * send() >> new CamundaClientFutureImpl<>().tap { complete(null) }
+			}
+		}
+
+		and:
+		jobPoller.init()
+
+		when:
+		jobPoller.shutdown()
+
+		then:
+		noExceptionThrown()
+	}
+
+	void "Waits for in-flight jobs to finish before shutting down"() {
+		given:
+		ActivatedJob job = Stub()
+		FailJobCommandStep1 fail = Mock()
+		zeebeClient.newFailCommand(_) >> fail
+
+		and:
+		pollQueue = ["tag-one"]
+		activate1.jobType(TASK_PREFIX + "tag-one") >> activateJobClientCall(job)
+		zeebeJobService.handleJob(job, _) >> Mono.delay(Duration.ofMillis(300)).then()
+
+		and:
+		@Subject
+		ZeebeJobPoller drainingPoller = new ZeebeJobPoller(
+				zeebeProperties,
+				pollingProperties.toBuilder().drainTimeout(Duration.ofSeconds(5)).build(),
+				zeebeClient,
+				zeebeJobService,
+				concurrencyLimiter,
+				tagGenerator,
+				{ Mono.never() })
+
+		and:
+		drainingPoller.init()
+
+		when:
+		drainingPoller.shutdown()
+
+		then:
+		0 * fail._
+	}
+
+	private Map<String, Consumer<ActivatedJob>> stubJobStreams() {
+		Map<String, Consumer<ActivatedJob>> streams = [:]
+		zeebeClient.newStreamJobsCommand() >> Stub(StreamJobsCommandStep1) {
+			jobType(_) >> { String jobType ->
+				Stub(StreamJobsCommandStep1.StreamJobsCommandStep2) {
+					consumer(_) >> { Consumer<ActivatedJob> consumer ->
+						streams[jobType] = consumer
+						return Stub(StreamJobsCommandStep1.StreamJobsCommandStep3) {
+							send() >> new CamundaClientFutureImpl<>()
+						}
+					}
+				}
+			}
+		}
+		return streams
+	}
+
 	private ActivateJobsCommandStep1.ActivateJobsCommandStep2 activateJobClientCall(ActivatedJob job = null) {
+		return activateJobsClientCall(1, job ? [job] : [])
+	}
+
+	private ActivateJobsCommandStep1.ActivateJobsCommandStep2 activateJobsClientCall(int maxJobs, List<ActivatedJob> jobs, List<String> fetchVariables = null) {
 		FinalCommandStep activateFinal = Stub() {
 			send() >> Stub(CamundaFuture) {
 				handle(_) >> { BiFunction fn ->
-					Mono.just({ -> job ? [job] : [] } as ActivateJobsResponse)
+					Mono.just({ -> jobs } as ActivateJobsResponse)
 							.toFuture()
 							.handle(fn)
 				}
@@ -191,8 +671,14 @@ class ZeebeJobPollerSpec extends Specification {
 			requestTimeout(ZeebeJobPoller.JOB_POLL_TIME) >> activateFinal
 		}
 
+		ActivateJobsCommandStep1.ActivateJobsCommandStep3 restrictable = fetchVariables == null
+				? activate3
+				: Stub(ActivateJobsCommandStep1.ActivateJobsCommandStep3) {
+					fetchVariables(fetchVariables) >> activate3
+				}
+
 		return Stub(ActivateJobsCommandStep1.ActivateJobsCommandStep2) {
-			maxJobsToActivate(1) >> activate3
+			maxJobsToActivate(maxJobs) >> restrictable
 		}
 	}
 }
@@ -10,6 +10,7 @@ import io.camunda.client.api.response.ActivatedJob
 import io.camunda.client.impl.CamundaClientFutureImpl
 import io.camunda.rpa.worker.PublisherUtils
 import io.camunda.rpa.worker.files.FilesService
+import io.camunda.rpa.worker.io.IO
 import io.camunda.rpa.worker.pexec.ProcessTimeoutException
 import io.camunda.rpa.worker.robot.ExecutionResults
 import io.camunda.rpa.worker.robot.ExecutionResults.Result
@@ -21,6 +22,9 @@ import io.camunda.rpa.worker.workspace.Workspace
 import io.camunda.rpa.worker.workspace.WorkspaceCleanupService
 import io.camunda.rpa.worker.workspace.WorkspaceService
 import io.camunda.zeebe.model.bpmn.instance.zeebe.ZeebeBindingType
+import io.grpc.Status
+import io.grpc.StatusRuntimeException
+import reactor.core.Disposable
 import reactor.core.publisher.Mono
 import spock.lang.Specification
 import spock.lang.Subject
@@ -45,6 +49,13 @@ class ZeebeJobServiceSpec extends Specification implements PublisherUtils {
 	WorkspaceService workspaceService = Stub()
 	FilesService filesService = Stub()
 	TaskTestingReportRenderer reportRenderer = Stub()
+	ZeebeJobProperties jobProperties = ZeebeJobProperties.builder()
+			.heartbeatEnabled(false)
+			.build()
+	ZeebeProperties zeebeProperties = ZeebeProperties.builder()
+			.rpaTaskPrefix("camunda::RPA-Task::")
+			.build()
+	JobJournal jobJournal = new JobJournal(jobProperties, zeebeClient, Stub(IO), objectMapper)
 
 	@Subject
 	ZeebeJobService service = new ZeebeJobService(
@@ -56,7 +67,10 @@ class ZeebeJobServiceSpec extends Specification implements PublisherUtils {
 			metricsService,
 			workspaceService,
 			filesService, 
-			reportRenderer)
+			reportRenderer,
+			jobProperties,
+			zeebeProperties,
+			jobJournal)
 
 	void "Runs received task and reports success"() {
 		given:
@@ -311,6 +325,200 @@ class ZeebeJobServiceSpec extends Specification implements PublisherUtils {
 
 	}
 
+	void "Sends heartbeats extending the job timeout while the robot is running"() {
+		given:
+		ActivatedJob job = anRpaJob()
+		Workspace workspace = new Workspace(null, Stub(Path))
+		UpdateJobCommandStep1 update1 = Mock()
+		UpdateJobCommandStep1.UpdateJobCommandStep2 update2 = Mock()
+
+		and:
+		@Subject
+		ZeebeJobService heartbeatService = withHeartbeat()
+
+		when:
+		block heartbeatService.handleJob(job)
+
+		then:
+		1 * robotService.execute(script, [], [], _, null, _, _, _, null) >> { _, __, ___, ____, _____, List<RobotExecutionListener> executionListeners, _______, ________, _________ ->
+			executionListeners*.beforeScriptExecution(workspace, Duration.ofMinutes(5))
+			return Mono.delay(Duration.ofMillis(300)).then(Mono.<ExecutionResults>empty())
+		}
+
+		and:
+		(3.._) * zeebeClient.newUpdateJobCommand(job) >> update1
+		(3.._) * update1.updateTimeout(Duration.ofSeconds(30)) >> update2
+		(3.._) * update2.send() >> new CamundaClientFutureImpl<>().tap { complete(null) }
+		0 * update1.updateTimeout(Duration.ofMinutes(5))
+	}
+
+	void "Abandons the execution when a heartbeat finds the job no longer exists"() {
+		given:
+		ActivatedJob job = anRpaJob()
+		boolean executionCancelled = false
+
+		and:
+		zeebeClient.newUpdateJobCommand(job) >> Stub(UpdateJobCommandStep1) {
+			updateTimeout(_) >> Stub(UpdateJobCommandStep1.UpdateJobCommandStep2) {
+				send() >> new CamundaClientFutureImpl<>().tap { completeExceptionally(new StatusRuntimeException(Status.NOT_FOUND)) }
+			}
+		}
+
+		and:
+		@Subject
+		ZeebeJobService heartbeatService = withHeartbeat()
+
+		when:
+		block heartbeatService.handleJob(job)
+
+		then:
+		1 * robotService.execute(script, [], [], _, null, _, _, _, null) >> Mono.never().doOnCancel { executionCancelled = true }
+
+		and:
+		1 * metricsService.onZeebeJobAbandoned(job.type)
+		1 * metricsService.onZeebeJobFinished()
+		0 * zeebeClient.newSetVariablesCommand(_)
+		0 * zeebeClient.newCompleteCommand(_)
+		0 * zeebeClient.newFailCommand(_)
+
+		and:
+		executionCancelled
+	}
+
+	void "Does not run a job again which is already running"() {
+		given:
+		ActivatedJob job = anRpaJob()
+		ActivatedJob reactivated = anRpaJob()
+
+		and:
+		robotService.execute(*_) >> Mono.never()
+		Disposable running = service.handleJob(job).subscribe()
+
+		when:
+		block service.handleJob(reactivated)
+
+		then:
+		0 * robotService.execute(*_)
+		0 * metricsService.onZeebeJobReceived(_)
+		1 * metricsService.onZeebeJobDuplicate(reactivated.type)
+		0 * metricsService.onZeebeJobFinished()
+
+		cleanup:
+		running.dispose()
+	}
+
+	void "Does not complete the job when setting variables finds the job no longer exists"() {
+		given:
+		ActivatedJob job = anRpaJob()
+
+		when:
+		block service.handleJob(job)
+
+		then:
+		1 * robotService.execute(script, [], [], _, null, _, _, _, null) >> Mono.just(new ExecutionResults(
+				[main: new ExecutionResults.ExecutionResult("main", Result.PASS, "", [:], Duration.ZERO)], Result.PASS, [:], null, Duration.ZERO))
+
+		and:
+		1 * zeebeClient.newSetVariablesCommand(job.processInstanceKey) >> Stub(SetVariablesCommandStep1) {
+			variables(_) >> Stub(SetVariablesCommandStep1.SetVariablesCommandStep2) {
+				send() >> new CamundaClientFutureImpl<>().tap { completeExceptionally(new StatusRuntimeException(Status.NOT_FOUND)) }
+			}
+		}
+
+		and:
+		1 * metricsService.onZeebeJobAbandoned(job.type)
+		1 * metricsService.onZeebeJobFinished()
+		0 * zeebeClient.newCompleteCommand(_)
+		0 * zeebeClient.newFailCommand(_)
+	}
+
+	void "Completes the job with its output variables in one command when enabled"() {
+		given:
+		ActivatedJob job = anRpaJob()
+		Map<String, String> expectedOutputVars = [outputVar: 'output-var-value']
+
+		and:
+		@Subject
+		ZeebeJobService singleStepService = serviceWith(jobProperties.toBuilder()
+				.completeWithVariables(true)
+				.build())
+
+		when:
+		block singleStepService.handleJob(job)
+
+		then:
+		1 * robotService.execute(script, [], [], _, null, _, _, _, null) >> Mono.just(new ExecutionResults(
+				[main: new ExecutionResults.ExecutionResult("main", Result.PASS, "", expectedOutputVars, Duration.ofSeconds(3))],
+				Result.PASS,
+				expectedOutputVars,
+				null,
+				Duration.ofSeconds(3)))
+
+		and:
+		1 * zeebeClient.newCompleteCommand(job) >> Mock(CompleteJobCommandStep1) {
+			1 * variables(expectedOutputVars) >> it
+			1 * send()
+		}
+		0 * zeebeClient.newSetVariablesCommand(_)
+
+		and:
+		1 * metricsService.onZeebeJobSuccess(job.type, Duration.ofSeconds(3))
+	}
+
+	void "Runs jobs of batched tags together with other jobs running the same script"() {
+		given:
+		ActivatedJob job = anRpaJob()
+
+		and:
+		@Subject
+		ZeebeJobService batchingService = serviceWith(jobProperties.toBuilder()
+				.batchTags(["default"] as Set)
+				.completeWithVariables(true)
+				.build())
+
+		when:
+		block batchingService.handleJob(job)
+
+		then:
+		1 * robotService.executeBatched("camunda::RPA-Task::default/this_script", script, [:], null, _, _, _) >> Mono.just(new ExecutionResults(
+				[main: new ExecutionResults.ExecutionResult("main", Result.PASS, "", [:], Duration.ofSeconds(3))],
+				Result.PASS,
+				[:],
+				null,
+				Duration.ofSeconds(3)))
+		0 * robotService.execute(*_)
+
+		and:
+		1 * zeebeClient.newCompleteCommand(job) >> Mock(CompleteJobCommandStep1) {
+			_ * variables(_) >> it
+			1 * send()
+		}
+	}
+
+	private ZeebeJobService withHeartbeat() {
+		return serviceWith(jobProperties.toBuilder()
+				.heartbeatEnabled(true)
+				.heartbeatInterval(Duration.ofMillis(50))
+				.heartbeatTimeout(Duration.ofSeconds(30))
+				.build())
+	}
+
+	private ZeebeJobService serviceWith(ZeebeJobProperties jobProperties) {
+		return new ZeebeJobService(
+				zeebeClient,
+				robotService,
+				scriptRepository,
+				objectMapper,
+				workspaceCleanupService,
+				metricsService,
+				workspaceService,
+				filesService,
+				reportRenderer,
+				jobProperties,
+				zeebeProperties,
+				jobJournal)
+	}
+
 	private ActivatedJob anRpaJob(Map<String, Object> variables = [:], List additionalResources = [], Map additionalHeaders = [:]) {
 		return Stub(ActivatedJob) {
 			getCustomHeaders() >> [
@@ -1,6 +1,7 @@
 package io.camunda.rpa.worker.zeebe
 
 
+import io.camunda.rpa.worker.robot.ExecutionResults
 import io.micrometer.core.instrument.MeterRegistry
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import spock.lang.Specification
@@ -42,6 +43,7 @@ class ZeebeMetricsServiceSpec extends Specification {
 		
 		when:
 		service.onZeebeJobSuccess("job-type", Duration.ofSeconds(3))
+		service.onZeebeJobFinished()
 		
 		then:
 		meterRegistry.get(ZeebeMetricsService.METRIC_PREFIX + "job.active").gauge().value() == 0
@@ -65,6 +67,7 @@ class ZeebeMetricsServiceSpec extends Specification {
 
 		when:
 		service.onZeebeJobFail("job-type", code)
+		service.onZeebeJobFinished()
 
 		then:
 		meterRegistry.get(ZeebeMetricsService.METRIC_PREFIX + "job.active").gauge().value() == 0
@@ -90,6 +93,7 @@ class ZeebeMetricsServiceSpec extends Specification {
 
 		when:
 		service.onZeebeJobError("job-type")
+		service.onZeebeJobFinished()
 
 		then:
 		meterRegistry.get(ZeebeMetricsService.METRIC_PREFIX + "job.active").gauge().value() == 0
@@ -103,4 +107,82 @@ class ZeebeMetricsServiceSpec extends Specification {
 		and:
 		meterRegistry.get(ZeebeMetricsService.METRIC_PREFIX + "job.capacity.available").gauge().value() == 2
 	}
+
+	void "Records abandoned job"() {
+		given:
+		service.onZeebeJobReceived("job-type")
+
+		when:
+		service.onZeebeJobAbandoned("job-type")
+		service.onZeebeJobFinished()
+
+		then:
+		meterRegistry.get(ZeebeMetricsService.METRIC_PREFIX + "job.active").gauge().value() == 0
+
+		and:
+		with(meterRegistry.get(ZeebeMetricsService.METRIC_PREFIX + "job.abandoned").counter()) {
+			measure().first().value == 1
+			id.getTag("type") == "job-type"
+		}
+	}
+
+	void "Counts a job as active until it has finished, whatever its outcome"() {
+		given:
+		service.onZeebeJobReceived("job-type")
+
+		when:
+		service.onZeebeJobAbandoned("job-type")
+		service.onZeebeJobFail("job-type", "ROBOT_TASKFAIL")
+
+		then:
+		meterRegistry.get(ZeebeMetricsService.METRIC_PREFIX + "job.active").gauge().value() == 1
+
+		when:
+		service.onZeebeJobFinished()
+
+		then:
+		meterRegistry.get(ZeebeMetricsService.METRIC_PREFIX + "job.active").gauge().value() == 0
+	}
+
+	void "Records duplicate job"() {
+		when:
+		service.onZeebeJobDuplicate("job-type")
+
+		then:
+		with(meterRegistry.get(ZeebeMetricsService.METRIC_PREFIX + "job.duplicate").counter()) {
+			measure().first().value == 1
+			id.getTag("type") == "job-type"
+		}
+	}
+
+	void "Records the resources used by the Robots of a job"() {
+		when:
+		service.onRobotResources("job-type", "script-id", 
+				new ExecutionResults.ResourceUsage(Duration.ofMillis(1500), 2048, 100, 200, 3))
+
+		then:
+		with(meterRegistry.get(ZeebeMetricsService.METRIC_PREFIX + "job.robot.cpu").summary()) {
+			totalAmount() == 1.5
+			id.getTag("type") == "job-type"
+			id.getTag("mainScript") == "script-id"
+		}
+		
+		and:
+		meterRegistry.get(ZeebeMetricsService.METRIC_PREFIX + "job.robot.memory.peak").summary().totalAmount() == 2048
+		meterRegistry.get(ZeebeMetricsService.METRIC_PREFIX + "job.robot.io.read").summary().totalAmount() == 100
+		meterRegistry.get(ZeebeMetricsService.METRIC_PREFIX + "job.robot.io.written").summary().totalAmount() == 200
+		meterRegistry.get(ZeebeMetricsService.METRIC_PREFIX + "job.robot.processes").summary().totalAmount() == 3
+	}
+
+	void "Records changes to the concurrent job limit"() {
+		given:
+		service.onZeebeJobReceived("job-type")
+
+		when:
+		service.onConcurrencyLimitChanged(1)
+
+		then:
+		meterRegistry.get(ZeebeMetricsService.METRIC_PREFIX + "job.capacity.limit").gauge().value() == 1
+		meterRegistry.get(ZeebeMetricsService.METRIC_PREFIX + "job.capacity.available").gauge().value() == 0
+	}
 }
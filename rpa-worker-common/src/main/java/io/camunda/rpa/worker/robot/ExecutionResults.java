@@ -5,6 +5,7 @@ import lombok.Builder;
 
 import java.time.Duration;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Builder(toBuilder = true)
@@ -19,12 +20,50 @@ public record ExecutionResults(
 		PASS, FAIL, ERROR
 	}
 	
+	/// @param resources what the Robot process used, when it was measured
 	public record ExecutionResult(
 			String executionId,
 			Result result,
 			String output,
 			Map<String, Object> outputVariables,
-			Duration duration) {}
+			Duration duration, 
+			ResourceUsage resources) {
+		
+		public ExecutionResult(
+				String executionId, 
+				Result result, 
+				String output, 
+				Map<String, Object> outputVariables, 
+				Duration duration) {
+			
+			this(executionId, result, output, outputVariables, duration, null);
+		}
+	}
+
+	/// The resources used by a Robot process and the processes it started, as sampled while it ran
+	///
+	/// @param cpuTime the CPU time used
+	/// @param peakMemoryBytes the most resident memory in use at once
+	/// @param bytesRead the bytes read from storage
+	/// @param bytesWritten the bytes written to storage
+	/// @param childProcesses how many processes were started by the Robot process
+	public record ResourceUsage(
+			Duration cpuTime, 
+			long peakMemoryBytes, 
+			long bytesRead, 
+			long bytesWritten, 
+			int childProcesses) {
+
+		/// The resources used by this and another process, when run one after the other
+		public ResourceUsage plus(ResourceUsage other) {
+			return new ResourceUsage(
+					cpuTime.plus(other.cpuTime()),
+					Math.max(peakMemoryBytes, other.peakMemoryBytes()),
+					bytesRead + other.bytesRead(),
+					bytesWritten + other.bytesWritten(),
+					childProcesses + other.childProcesses());
+		}
+	}
 	
 	public String fullLogString() {
 		return results.entrySet().stream()
@@ -32,4 +71,13 @@ public record ExecutionResults(
 						.map(l -> "[%s] %s".formatted(kv.getKey(), l)))
 				.collect(Collectors.joining("\n"));
 	}
+
+	/// @return the resources used by all of the Robot processes, or `null` if none were measured
+	public ResourceUsage resources() {
+		return results.values().stream()
+				.map(ExecutionResult::resources)
+				.filter(Objects::nonNull)
+				.reduce(ResourceUsage::plus)
+				.orElse(null);
+	}
 }
@@ -0,0 +1,32 @@
+package io.camunda.rpa.worker.robot
+
+import spock.lang.Specification
+
+import java.time.Duration
+
+class ExecutionResultsSpec extends Specification {
+	
+	void "Adds up the resources used by each Robot"() {
+		given:
+		ExecutionResults results = new ExecutionResults([
+				pre : new ExecutionResults.ExecutionResult("pre", ExecutionResults.Result.PASS, "", [:], Duration.ZERO,
+						new ExecutionResults.ResourceUsage(Duration.ofSeconds(1), 100, 10, 20, 1)),
+				main: new ExecutionResults.ExecutionResult("main", ExecutionResults.Result.PASS, "", [:], Duration.ZERO,
+						new ExecutionResults.ResourceUsage(Duration.ofSeconds(2), 300, 30, 40, 2)),
+				post: new ExecutionResults.ExecutionResult("post", ExecutionResults.Result.PASS, "", [:], Duration.ZERO)],
+				ExecutionResults.Result.PASS, [:], null, Duration.ZERO)
+		
+		expect:
+		results.resources() == new ExecutionResults.ResourceUsage(Duration.ofSeconds(3), 300, 40, 60, 3)
+	}
+	
+	void "Has no resources when none were measured"() {
+		given:
+		ExecutionResults results = new ExecutionResults([
+				main: new ExecutionResults.ExecutionResult("main", ExecutionResults.Result.PASS, "", [:], Duration.ZERO)],
+				ExecutionResults.Result.PASS, [:], null, Duration.ZERO)
+		
+		expect:
+		results.resources() == null
+	}
+}